@@ -1,12 +1,14 @@
 package com.example.telegrambot.bot;
 
 import com.example.telegrambot.config.BotConfig;
+import com.example.telegrambot.config.ExecutionConfig;
 import com.example.telegrambot.dto.Category;
 import com.example.telegrambot.dto.City;
 import com.example.telegrambot.dto.Event;
 import com.example.telegrambot.service.EventsService;
 import com.example.telegrambot.service.EventHoldService;
 import com.example.telegrambot.service.EventPollingService;
+import com.example.telegrambot.service.TimeSlots;
 import com.example.telegrambot.service.UserCookieService;
 import com.example.telegrambot.service.UserPreferencesService;
 import com.example.telegrambot.service.WaitlistService;
@@ -23,10 +25,13 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Profile;
@@ -63,6 +68,10 @@ public class TelegramBot extends TelegramLongPollingBot {
     // Хранилище всех messageId для каждого chatId (для удаления сообщений при /start)
     private final Map<Long, List<Integer>> chatMessages = new ConcurrentHashMap<>();
 
+    // Асинхронные уведомления: последняя поставленная отправка для каждого chatId (сохраняет порядок сообщений в чате)
+    private final Map<Long, CompletableFuture<Void>> pendingSends = new ConcurrentHashMap<>();
+    private final ExecutorService ioExecutor;
+
     @Value("${booking.default.timeslot:0}")
     private long defaultTimeSlot;
 
@@ -77,7 +86,7 @@ public class TelegramBot extends TelegramLongPollingBot {
 
     private static final String DEFAULT_USER_AGENT = "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/138.0.0.0 YaBrowser/25.8.0.0 Safari/537.36";
 
-    public TelegramBot(BotConfig botConfig, EventsService eventsService, WaitlistService waitlistService, YandexEventsBookingService bookingService, UserCookieService userCookieService, UserPreferencesService userPreferencesService, EventHoldService eventHoldService, ApplicationContext applicationContext, EventPollingService eventPollingService) {
+    public TelegramBot(BotConfig botConfig, EventsService eventsService, WaitlistService waitlistService, YandexEventsBookingService bookingService, UserCookieService userCookieService, UserPreferencesService userPreferencesService, EventHoldService eventHoldService, ApplicationContext applicationContext, EventPollingService eventPollingService, @Qualifier(ExecutionConfig.BLOCKING_IO_EXECUTOR) ExecutorService ioExecutor) {
         this.botConfig = botConfig;
         this.eventsService = eventsService;
         this.waitlistService = waitlistService;
@@ -87,6 +96,7 @@ public class TelegramBot extends TelegramLongPollingBot {
         this.eventHoldService = eventHoldService;
         this.applicationContext = applicationContext;
         this.eventPollingService = eventPollingService;
+        this.ioExecutor = ioExecutor;
     }
 
     /**
@@ -140,40 +150,6 @@ public class TelegramBot extends TelegramLongPollingBot {
         return null;
     }
 
-    private Long extractFirstSlotId(JsonNode slotsJson) {
-        if (slotsJson == null) {
-            return null;
-        }
-        // Вариант 1: массив слотов
-        if (slotsJson.isArray() && slotsJson.size() > 0) {
-            JsonNode first = slotsJson.get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        // Вариант 2: объект с полем result
-        if (slotsJson.has("result") && slotsJson.get("result").isArray() && slotsJson.get("result").size() > 0) {
-            JsonNode first = slotsJson.get("result").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        // Вариант 3: объект с полем timeSlots/timeslots
-        if (slotsJson.has("timeSlots") && slotsJson.get("timeSlots").isArray() && slotsJson.get("timeSlots").size() > 0) {
-            JsonNode first = slotsJson.get("timeSlots").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        if (slotsJson.has("timeslots") && slotsJson.get("timeslots").isArray() && slotsJson.get("timeslots").size() > 0) {
-            JsonNode first = slotsJson.get("timeslots").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        return null;
-    }
-
     @Override
     public void onUpdateReceived(Update update) {
         // Обработка callback от кнопок
@@ -366,8 +342,8 @@ public class TelegramBot extends TelegramLongPollingBot {
                     logger.error("Error refreshing events after unhold", e);
                 }
                 return;
-            } else if (messageText.equals("/start_poll")) {
-                // Запускает опрос событий
+            } else if (messageText.equals("/start_poll") || messageText.startsWith("/start_poll ")) {
+                // Запускает опрос событий: /start_poll [цели в формате EVENTS_POLL_NAMES]
                 Long userId = update.getMessage().getFrom().getId();
 
                 if (!ensureCookieIsSet(chatId, userId)) {
@@ -381,39 +357,30 @@ public class TelegramBot extends TelegramLongPollingBot {
                 // Применяем категории из переменной окружения, если они есть (категории не обязательны)
                 ensureCategoriesAreSet(chatId, userId);
 
-                if (eventPollingService.isPollingEnabled()) {
-                    Long currentUserId = eventPollingService.getPollingUserId();
-                    if (currentUserId != null && currentUserId.equals(userId)) {
-                        sendMessage(chatId, "✅ Опрос уже запущен для вашего аккаунта.");
-                    } else {
-                        sendMessage(chatId, "❌ Опрос уже запущен для другого пользователя. Используйте /end_poll, чтобы остановить его.");
-                    }
+                if (eventPollingService.isPollingEnabled(userId)) {
+                    sendMessage(chatId, "✅ Опрос уже запущен для вашего аккаунта. Используйте /end_poll, чтобы остановить его.");
                     return;
                 }
 
-                boolean started = eventPollingService.startPolling(userId, chatId);
+                String[] parts = messageText.split("\\s+", 2);
+                String targets = parts.length > 1 ? parts[1].trim() : null;
+                boolean started = eventPollingService.startPolling(userId, chatId, targets);
                 if (started) {
-                    sendMessage(chatId, "✅ Опрос событий запущен!\n\nБот будет проверять доступность событий каждые 5 секунд и автоматически бронировать их, когда они станут доступны.");
+                    sendMessage(chatId, "✅ Опрос событий запущен!\n\nБот будет проверять доступность событий — чаще всего вокруг времени открытия записи, реже, пока до него далеко, — и автоматически бронировать их, когда они станут доступны.");
                 } else {
-                    sendMessage(chatId, "❌ Не удалось запустить опрос. Убедитесь, что в переменных окружения задан список имен событий (EVENTS_POLL_NAMES).");
+                    sendMessage(chatId, "❌ Не удалось запустить опрос. Убедитесь, что в переменных окружения задан список имен событий (EVENTS_POLL_NAMES), или укажите цели в команде: /start_poll Плавание:3,теннис");
                 }
                 return;
             } else if (messageText.equals("/end_poll")) {
                 // Останавливает опрос событий
                 Long userId = update.getMessage().getFrom().getId();
 
-                if (!eventPollingService.isPollingEnabled()) {
+                if (!eventPollingService.isPollingEnabled(userId)) {
                     sendMessage(chatId, "❌ Опрос не запущен.");
                     return;
                 }
 
-                Long pollingUserId = eventPollingService.getPollingUserId();
-                if (pollingUserId != null && !pollingUserId.equals(userId)) {
-                    sendMessage(chatId, "❌ Опрос запущен для другого пользователя. Только он может остановить опрос.");
-                    return;
-                }
-
-                eventPollingService.stopPolling();
+                eventPollingService.stopPolling(userId);
                 sendMessage(chatId, "✅ Опрос событий остановлен.");
                 return;
             } else {
@@ -628,7 +595,7 @@ public class TelegramBot extends TelegramLongPollingBot {
                         DEFAULT_USER_AGENT);
 
                     // 2) Выбираем первый доступный слот (id)
-                    Long slotId = extractFirstSlotId(slotsJson);
+                    Long slotId = TimeSlots.firstSlotId(slotsJson);
                     logger.info("Timeslots for event {}: {}", eventId, slotsJson);
                     logger.info("Selected slot id: {}", slotId);
                     if (slotId == null || slotId <= 0) {
@@ -639,6 +606,7 @@ public class TelegramBot extends TelegramLongPollingBot {
 
                     // 3) Пытаемся записаться
                     var response = bookingService.book(
+                        eventId,
                         userCookie,
                         referer,
                         DEFAULT_USER_AGENT,
@@ -963,11 +931,8 @@ public class TelegramBot extends TelegramLongPollingBot {
 
     private Long findUserIdByChatIdAndEventId(long chatId, String eventId) {
         // Ищем userId в waitlist записях (для booking используем API)
-        var waitlistEntries = waitlistService.getAllUsersInWaitlist(eventId);
-        return waitlistEntries.stream()
-            .filter(entry -> entry.getChatId().equals(chatId))
+        return waitlistService.findEntryByChatId(eventId, chatId)
             .map(entry -> entry.getUserId())
-            .findFirst()
             .orElse(null);
     }
 
@@ -1077,9 +1042,6 @@ public class TelegramBot extends TelegramLongPollingBot {
                 return;
             }
 
-            // Получаем всех пользователей из листа ожидания для этого события
-            var waitlistUsers = waitlistService.getAllUsersInWaitlist(eventId);
-
             // Получаем всех пользователей, которые просматривают это событие (по кешу)
             // и обновляем их кнопки
             for (Map.Entry<String, Integer> cacheEntry : eventMessageCache.entrySet()) {
@@ -1097,15 +1059,13 @@ public class TelegramBot extends TelegramLongPollingBot {
                     Integer messageId = cacheEntry.getValue();
 
                     // Определяем, находится ли этот пользователь в листе ожидания
-                    // Проверяем по chatId из записей листа ожидания
-                    boolean isInWaitlist = waitlistUsers.stream()
-                        .anyMatch(waitlistEntry -> waitlistEntry.getChatId().equals(chatId));
+                    // Ищем запись листа ожидания по chatId (по индексу, без загрузки всего листа)
+                    var waitlistEntry = waitlistService.findEntryByChatId(eventId, chatId);
+                    boolean isInWaitlist = waitlistEntry.isPresent();
 
                     // Получаем userId из листа ожидания для этого chatId (если есть)
-                    Long targetUserId = waitlistUsers.stream()
-                        .filter(waitlistEntry -> waitlistEntry.getChatId().equals(chatId))
-                        .map(waitlistEntry -> waitlistEntry.getUserId())
-                        .findFirst()
+                    Long targetUserId = waitlistEntry
+                        .map(entry -> entry.getUserId())
                         .orElse(excludeUserId); // Если не нашли, используем excludeUserId
 
                     // Обновляем кнопку (не вызываем updateEventButton, чтобы избежать рекурсии)
@@ -1611,6 +1571,34 @@ public class TelegramBot extends TelegramLongPollingBot {
         }
     }
 
+    /**
+     * Асинхронная отправка сообщения с Markdown для фоновых сервисов (опрос, мониторинги):
+     * вызывающий поток не ждет Telegram API. Сообщения в один чат уходят в порядке вызовов.
+     */
+    public void sendMessageWithMarkdownAsync(long chatId, String text) {
+        enqueueSend(chatId, () -> sendMessageWithMarkdownInternal(chatId, text));
+    }
+
+    /**
+     * Асинхронный вариант {@link #sendSlotOfferNotification} для фоновых сервисов.
+     */
+    public void sendSlotOfferNotificationAsync(long chatId, Long userId, String eventId, String eventTitle, String message) {
+        enqueueSend(chatId, () -> sendSlotOfferNotification(chatId, userId, eventId, eventTitle, message));
+    }
+
+    private void enqueueSend(long chatId, Runnable send) {
+        CompletableFuture<Void> queued = pendingSends.compute(chatId, (key, previous) -> {
+            CompletableFuture<Void> tail = previous != null ? previous : CompletableFuture.completedFuture(null);
+            return tail.thenRunAsync(send, ioExecutor)
+                .exceptionally(e -> {
+                    logger.error("Error sending async message to chat {}", chatId, e);
+                    return null;
+                });
+        });
+        // Очередь чата удаляется, когда последняя отправка завершена
+        queued.whenComplete((result, e) -> pendingSends.remove(chatId, queued));
+    }
+
     private void saveMessageId(long chatId, Integer messageId) {
         chatMessages.computeIfAbsent(chatId, k -> new CopyOnWriteArrayList<>()).add(messageId);
     }
@@ -1861,7 +1849,7 @@ public class TelegramBot extends TelegramLongPollingBot {
 • `/help` - Показать это сообщение
 • `/refresh` - Обновить список событий
 • `/reset_categories` - Перевыбрать категории событий для фильтрации
-• `/start_poll` - Запустить автоматический опрос событий (бронирование при появлении)
+• `/start_poll` - Запустить автоматический опрос событий (бронирование при появлении); можно указать свои цели: `/start_poll Плавание:3,теннис`
 • `/end_poll` - Остановить автоматический опрос событий
 
 🧪 *Команды для тестирования:*
@@ -1881,7 +1869,7 @@ public class TelegramBot extends TelegramLongPollingBot {
 • Кнопки под событиями позволяют записаться или встать в лист ожидания
 • Вы можете перевыбрать категории в любой момент командой `/reset_categories`
 • Бот автоматически проверяет доступность слотов для событий из листа ожидания каждую секунду
-• Используйте `/start_poll` для автоматического бронирования событий: настройте список имен событий в переменной окружения `EVENTS_POLL_NAMES`, и бот будет проверять их доступность каждую секунду
+• Используйте `/start_poll` для автоматического бронирования событий: укажите цели прямо в команде (`/start_poll Плавание:3,теннис`) или задайте их по умолчанию в `EVENTS_POLL_NAMES`; бот проверяет их доступность тем чаще, чем ближе время открытия записи
         """;
         sendMessageWithMarkdown(chatId, helpMessage);
     }
@@ -0,0 +1,91 @@
+package com.example.telegrambot.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for blocking Yandex API and Telegram calls.
+ * <ul>
+ *     <li>{@link #BLOCKING_IO_EXECUTOR}: fan-out of background subsystems: per-subscription next-week
+ *     checks, connection pre-warm and Telegram notifications.</li>
+ *     <li>{@link #WAITLIST_SCAN_EXECUTOR}: per-event checks of the waitlist scan, sized by
+ *     {@code events.waitlist.scan.parallelism}. A scan every 5 seconds would otherwise take every
+ *     thread of the shared pool and queue the other subsystems behind it.</li>
+ *     <li>{@link #POLL_BOOKING_EXECUTOR}: booking jobs of the events poller (one per planned target).
+ *     They are latency-critical and must never queue behind background work, so they get their own
+ *     executor, just as each subsystem has its own scheduler ({@code SchedulingConfig}).</li>
+ * </ul>
+ * With {@code spring.threads.virtual.enabled=true} every task runs on its own virtual thread, so
+ * fanning out over hundreds of events costs almost nothing in threads and memory (Spring Boot also
+ * switches Tomcat to virtual threads with the same flag). Otherwise background work uses a bounded
+ * pool of platform threads, and booking jobs a pool that grows with the number of targets polled at once.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    public static final String BLOCKING_IO_EXECUTOR = "blockingIoExecutor";
+    public static final String POLL_BOOKING_EXECUTOR = "pollBookingExecutor";
+    public static final String WAITLIST_SCAN_EXECUTOR = "waitlistScanExecutor";
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${events.execution.platform-pool-size:8}")
+    private int platformPoolSize;
+
+    @Value("${events.waitlist.scan.parallelism:8}")
+    private int waitlistScanParallelism;
+
+    @Bean(name = BLOCKING_IO_EXECUTOR, destroyMethod = "shutdownNow")
+    public ExecutorService blockingIoExecutor() {
+        if (virtualThreads) {
+            logger.info("Blocking I/O executor: virtual threads");
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("io-virtual-", 0).factory());
+        }
+        int poolSize = Math.max(1, platformPoolSize);
+        logger.info("Blocking I/O executor: {} platform thread(s)", poolSize);
+        return Executors.newFixedThreadPool(poolSize, daemonThreads("io-"));
+    }
+
+    @Bean(name = POLL_BOOKING_EXECUTOR, destroyMethod = "shutdownNow")
+    public ExecutorService pollBookingExecutor() {
+        if (virtualThreads) {
+            logger.info("Poll booking executor: virtual threads");
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("poll-booking-virtual-", 0).factory());
+        }
+        logger.info("Poll booking executor: platform threads on demand");
+        // Jobs per tick are bounded by the pending targets; idle threads are dropped after a minute
+        return Executors.newCachedThreadPool(daemonThreads("poll-booking-"));
+    }
+
+    @Bean(name = WAITLIST_SCAN_EXECUTOR, destroyMethod = "shutdownNow")
+    public ExecutorService waitlistScanExecutor() {
+        if (virtualThreads) {
+            logger.info("Waitlist scan executor: virtual threads");
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("waitlist-scan-virtual-", 0).factory());
+        }
+        // WaitlistScan never runs more than scan.parallelism checks at once, so they never queue here
+        int poolSize = Math.max(1, waitlistScanParallelism);
+        logger.info("Waitlist scan executor: {} platform thread(s)", poolSize);
+        return Executors.newFixedThreadPool(poolSize, daemonThreads("waitlist-scan-"));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.telegrambot.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Separate schedulers for each scheduled subsystem.
+ * <p>
+ * Spring's default {@code @Scheduled} pool has a single thread, so a slow waitlist scan or a
+ * blocked poll tick used to delay every other task. Each subsystem now names its scheduler in
+ * {@code @Scheduled(scheduler = ...)} and runs on its own threads; lightweight housekeeping tasks
+ * stay on the default {@code taskScheduler}.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    public static final String POLLING_SCHEDULER = "pollingScheduler";
+    public static final String POLLING_WINDOW_SCHEDULER = "pollingWindowScheduler";
+    public static final String WAITLIST_SCHEDULER = "waitlistScheduler";
+    public static final String NEXT_WEEK_SCHEDULER = "nextWeekScheduler";
+
+    @Value("${events.scheduler.polling.pool-size:1}")
+    private int pollingPoolSize;
+
+    @Value("${events.scheduler.polling-window.pool-size:2}")
+    private int pollingWindowPoolSize;
+
+    @Value("${events.scheduler.waitlist.pool-size:1}")
+    private int waitlistPoolSize;
+
+    @Value("${events.scheduler.next-week.pool-size:1}")
+    private int nextWeekPoolSize;
+
+    // Default scheduler for tasks without an explicit scheduler
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        return scheduler("scheduling-", 1);
+    }
+
+    // EventPollingService.pollEvents — booking ticks (self-rescheduled with an adaptive interval)
+    @Bean(POLLING_SCHEDULER)
+    public ThreadPoolTaskScheduler pollingScheduler() {
+        return scheduler("poll-", pollingPoolSize);
+    }
+
+    // ScheduledPollingService: polling window and pre-warm checks (server-only)
+    @Bean(POLLING_WINDOW_SCHEDULER)
+    public ThreadPoolTaskScheduler pollingWindowScheduler() {
+        return scheduler("poll-window-", pollingWindowPoolSize);
+    }
+
+    @Bean(WAITLIST_SCHEDULER)
+    public ThreadPoolTaskScheduler waitlistScheduler() {
+        return scheduler("waitlist-", waitlistPoolSize);
+    }
+
+    @Bean(NEXT_WEEK_SCHEDULER)
+    public ThreadPoolTaskScheduler nextWeekScheduler() {
+        return scheduler("next-week-", nextWeekPoolSize);
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(String threadNamePrefix, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setPoolSize(Math.max(1, poolSize));
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.telegrambot.config;
+
+import com.example.telegrambot.service.ServerClock;
+import com.example.telegrambot.service.TieredTimeoutRequestFactory;
+import com.example.telegrambot.service.YandexApiRateLimiter;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP client for events.yandex-team.ru.
+ * <p>
+ * All Yandex API services build their {@code RestTemplate} on top of the same
+ * {@link ClientHttpRequestFactory}, so they share one Apache {@link CloseableHttpClient} and its
+ * connection pool of keep-alive connections with their TLS sessions. A booking POST therefore reuses
+ * the connection warmed up by the events poller instead of paying a fresh TCP + TLS handshake.
+ * The pool belongs to this client (not to the JVM), so its size and how long idle connections are
+ * kept come from {@code events.http.*}. Request timeouts depend on the endpoint and on the caller's
+ * {@code Deadline} ({@link TieredTimeoutRequestFactory}).
+ * <p>
+ * Every request made through the factory passes {@link YandexApiRateLimiter}, and its response
+ * calibrates {@link ServerClock}.
+ */
+@Configuration
+public class YandexHttpClientConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(YandexHttpClientConfig.class);
+
+    // A pooled connection idle for longer is checked before reuse (the server may have closed it)
+    private static final TimeValue VALIDATE_AFTER_INACTIVITY = TimeValue.ofSeconds(2);
+
+    @Value("${events.http.connect-timeout-ms:10000}")
+    private long connectTimeoutMs;
+
+    // Per endpoint class, see TieredTimeoutRequestFactory
+    @Value("${events.http.timeouts.list-ms:3000}")
+    private long listTimeoutMs;
+
+    @Value("${events.http.timeouts.timeslots-ms:3000}")
+    private long timeslotsTimeoutMs;
+
+    @Value("${events.http.timeouts.book-ms:5000}")
+    private long bookTimeoutMs;
+
+    // Background refresh of user bookings; the former single read timeout is its default
+    @Value("${events.http.timeouts.bookings-ms:${events.http.read-timeout-ms:20000}}")
+    private long bookingsTimeoutMs;
+
+    @Value("${events.http.idle-ttl-seconds:300}")
+    private long idleTtlSeconds;
+
+    @Value("${events.http.max-connections:20}")
+    private int maxConnections;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient yandexHttpClient() {
+        int poolSize = Math.max(1, maxConnections);
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            // All requests go to one host, so the per-route limit is the pool size
+            .setMaxConnTotal(poolSize)
+            .setMaxConnPerRoute(poolSize)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY)
+                .build())
+            .build();
+
+        CloseableHttpClient client = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .evictIdleConnections(TimeValue.ofSeconds(idleTtlSeconds))
+            // Cookies are per user and sent explicitly; a shared cookie store would mix users up
+            .disableCookieManagement()
+            // Retries (including 429 with Retry-After) are decided above, past the rate limiter and deadline
+            .disableAutomaticRetries()
+            .build();
+
+        logger.info("Shared Yandex HTTP client created: connectTimeout={} ms, idleTtl={} s, maxConnections={}",
+            connectTimeoutMs, idleTtlSeconds, poolSize);
+        return client;
+    }
+
+    @Bean
+    public ClientHttpRequestFactory yandexRequestFactory(CloseableHttpClient yandexHttpClient, YandexApiRateLimiter rateLimiter,
+                                                         ServerClock serverClock) {
+        Map<YandexApiRateLimiter.EndpointClass, Long> timeouts = new EnumMap<>(YandexApiRateLimiter.EndpointClass.class);
+        timeouts.put(YandexApiRateLimiter.EndpointClass.LIST, listTimeoutMs);
+        timeouts.put(YandexApiRateLimiter.EndpointClass.TIMESLOTS, timeslotsTimeoutMs);
+        timeouts.put(YandexApiRateLimiter.EndpointClass.BOOK, bookTimeoutMs);
+        timeouts.put(YandexApiRateLimiter.EndpointClass.BOOKINGS, bookingsTimeoutMs);
+        logger.info("Yandex API timeouts: list={} ms, timeslots={} ms, book={} ms, bookings={} ms",
+            listTimeoutMs, timeslotsTimeoutMs, bookTimeoutMs, bookingsTimeoutMs);
+        // Idle connections are kept as long as the pool keeps them, unless the server asks for less (Keep-Alive header)
+        RequestConfig defaults = RequestConfig.custom()
+            .setDefaultKeepAlive(idleTtlSeconds, TimeUnit.SECONDS)
+            .build();
+        ClientHttpRequestFactory factory = new TieredTimeoutRequestFactory(yandexHttpClient, defaults, timeouts);
+        // Clock after the limiter: round-trip samples must not include waiting for a token
+        return new InterceptingClientHttpRequestFactory(factory, List.of(rateLimiter, serverClock));
+    }
+}
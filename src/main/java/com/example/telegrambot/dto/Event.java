@@ -1,5 +1,6 @@
 package com.example.telegrambot.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.util.List;
 
@@ -16,6 +17,8 @@ public class Event {
     private City city;
     private boolean haveFreeSeats;
     private List<String> datesOf;
+    // datesOf decoded once when set, see EventDates
+    private EventDates dates = EventDates.empty();
     private boolean booked;
     private int freeSeats;
     private int bookedCount;
@@ -106,6 +109,12 @@ public class Event {
 
     public void setDatesOf(List<String> datesOf) {
         this.datesOf = datesOf;
+        this.dates = EventDates.of(datesOf);
+    }
+
+    @JsonIgnore
+    public EventDates getDates() {
+        return dates;
     }
 
     public boolean isBooked() {
@@ -0,0 +1,137 @@
+package com.example.telegrambot.dto;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decoded view of {@link Event#getDatesOf()}, built once when the list is set (i.e. at deserialization).
+ * <p>
+ * Each date is parsed once: strings ending with {@code Z} are UTC instants, strings without an offset
+ * are Moscow local time. Matchers read epoch seconds and the precomputed Moscow day-of-week and hour
+ * from primitive arrays instead of re-parsing the ISO strings on every poll tick. Unparseable entries
+ * keep their index and are reported by {@link #isValid(int)}.
+ */
+public final class EventDates {
+
+    public static final ZoneId MOSCOW = ZoneId.of("Europe/Moscow");
+
+    private static final EventDates EMPTY = new EventDates(List.of(), new long[0], new int[0], new byte[0], new byte[0]);
+
+    private final List<String> raw;
+    private final long[] epochSeconds;
+    // Offset the string was written in (0 for "Z"), to format the wall-clock time as the API sent it
+    private final int[] offsetSeconds;
+    // 1 (Monday) .. 7 (Sunday) in Europe/Moscow; 0 if the entry could not be parsed
+    private final byte[] dayOfWeek;
+    private final byte[] hour;
+
+    private EventDates(List<String> raw, long[] epochSeconds, int[] offsetSeconds, byte[] dayOfWeek, byte[] hour) {
+        this.raw = raw;
+        this.epochSeconds = epochSeconds;
+        this.offsetSeconds = offsetSeconds;
+        this.dayOfWeek = dayOfWeek;
+        this.hour = hour;
+    }
+
+    public static EventDates empty() {
+        return EMPTY;
+    }
+
+    public static EventDates of(List<String> dates) {
+        if (dates == null || dates.isEmpty()) {
+            return EMPTY;
+        }
+        int size = dates.size();
+        long[] epochSeconds = new long[size];
+        int[] offsetSeconds = new int[size];
+        byte[] dayOfWeek = new byte[size];
+        byte[] hour = new byte[size];
+        for (int i = 0; i < size; i++) {
+            OffsetDateTime parsed = parse(dates.get(i));
+            if (parsed == null) {
+                continue;
+            }
+            ZonedDateTime moscow = parsed.atZoneSameInstant(MOSCOW);
+            epochSeconds[i] = parsed.toEpochSecond();
+            offsetSeconds[i] = parsed.getOffset().getTotalSeconds();
+            dayOfWeek[i] = (byte) moscow.getDayOfWeek().getValue();
+            hour[i] = (byte) moscow.getHour();
+        }
+        // Not List.copyOf: the API may send null entries
+        return new EventDates(Collections.unmodifiableList(new ArrayList<>(dates)), epochSeconds, offsetSeconds, dayOfWeek, hour);
+    }
+
+    public int size() {
+        return raw.size();
+    }
+
+    public boolean isEmpty() {
+        return raw.isEmpty();
+    }
+
+    public boolean isValid(int index) {
+        return dayOfWeek[index] != 0;
+    }
+
+    public String raw(int index) {
+        return raw.get(index);
+    }
+
+    public long epochSecond(int index) {
+        return epochSeconds[index];
+    }
+
+    /**
+     * @return day of week in Europe/Moscow, 1 (Monday) .. 7 (Sunday)
+     */
+    public int dayOfWeek(int index) {
+        return dayOfWeek[index];
+    }
+
+    /**
+     * @return hour of day in Europe/Moscow
+     */
+    public int hour(int index) {
+        return hour[index];
+    }
+
+    /**
+     * @return date and time as written in the source string (the offset is not applied)
+     */
+    public LocalDateTime wallClock(int index) {
+        return LocalDateTime.ofEpochSecond(epochSeconds[index], 0, ZoneOffset.ofTotalSeconds(offsetSeconds[index]));
+    }
+
+    /**
+     * @return true if any valid date falls on the given Moscow day of week
+     */
+    public boolean containsDayOfWeek(int day) {
+        for (byte value : dayOfWeek) {
+            if (value == day && value != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static OffsetDateTime parse(String dateStr) {
+        if (dateStr == null || dateStr.isEmpty()) {
+            return null;
+        }
+        try {
+            if (dateStr.endsWith("Z")) {
+                return OffsetDateTime.parse(dateStr);
+            }
+            return LocalDateTime.parse(dateStr).atZone(MOSCOW).toOffsetDateTime();
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+}
@@ -24,6 +24,8 @@ public class WaitlistEntry {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
+    // Queue order: increasing per event, never renumbered, so gaps are left by removed entries.
+    // The place in the queue is the number of entries with a smaller (position, id) plus one.
     @Column(name = "position", nullable = false)
     private Integer position;
 
@@ -1,12 +1,32 @@
 package com.example.telegrambot.exception;
 
 /**
- * Thrown when the Yandex Events API returns 429 TOO_MANY_REQUESTS (rate limited).
+ * Thrown when the Yandex Events API returns 429 TOO_MANY_REQUESTS (rate limited),
+ * or when the local rate limiter cannot grant a request in time.
  * Callers should wait and retry.
  */
 public class RateLimitException extends RuntimeException {
 
+    private final boolean localLimit;
+
     public RateLimitException(String message) {
+        this(message, false);
+    }
+
+    /**
+     * @param localLimit true if the request was not sent: the local rate limiter had no token
+     *                   within its wait limit or the caller's deadline
+     */
+    public RateLimitException(String message, boolean localLimit) {
         super(message);
+        this.localLimit = localLimit;
+    }
+
+    /**
+     * @return true if the limiter already waited as long as it was allowed to, so an immediate
+     *         retry would fail the same way
+     */
+    public boolean isLocalLimit() {
+        return localLimit;
     }
 }
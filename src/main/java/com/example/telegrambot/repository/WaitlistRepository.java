@@ -3,25 +3,46 @@ package com.example.telegrambot.repository;
 import com.example.telegrambot.entity.WaitlistEntry;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+/**
+ * Queue order is (position, id): positions are sequence numbers with gaps, the rank of an entry is
+ * the number of entries ahead of it plus one. Every query here is served by an index
+ * (see db/migration), so lookups do not slow down as the table grows.
+ */
 @Repository
 public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
 
-    List<WaitlistEntry> findByEventIdOrderByPositionAsc(String eventId);
+    List<WaitlistEntry> findByEventIdOrderByPositionAscIdAsc(String eventId);
+
+    List<WaitlistEntry> findByEventIdOrderByPositionAscIdAsc(String eventId, Pageable pageable);
 
     Optional<WaitlistEntry> findByEventIdAndUserId(String eventId, Long userId);
 
-    Optional<WaitlistEntry> findByEventIdAndChatId(String eventId, Long chatId);
+    Optional<WaitlistEntry> findFirstByEventIdAndChatId(String eventId, Long chatId);
 
     @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.eventId = :eventId")
     long countByEventId(String eventId);
 
-    void deleteByEventIdAndUserId(String eventId, Long userId);
+    @Query("SELECT COALESCE(MAX(w.position), 0) FROM WaitlistEntry w WHERE w.eventId = :eventId")
+    int findMaxPosition(String eventId);
+
+    @Query("SELECT COUNT(w) FROM WaitlistEntry w WHERE w.eventId = :eventId "
+        + "AND (w.position < :position OR (w.position = :position AND w.id < :id))")
+    long countAhead(String eventId, int position, Long id);
+
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.eventId = :eventId "
+        + "AND (w.position > :position OR (w.position = :position AND w.id > :id)) ORDER BY w.position, w.id")
+    List<WaitlistEntry> findBehind(String eventId, int position, Long id);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.id = :id")
+    int deleteEntry(Long id);
 
     @Query("SELECT DISTINCT w.eventId FROM WaitlistEntry w")
     List<String> findAllDistinctEventIds();
 }
-
@@ -0,0 +1,169 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * "Armed" booking for the poller: resolves timeslot IDs for every event matching a poll target
+ * before seats open. Booking status comes from the bookings cache of {@link YandexEventsBookingService}.
+ * When a seat is released the poller only needs the final {@code book()} POST instead of
+ * {@code isUserBooked} + {@code getTimeSlots} + {@code book} in series; its headers and body are
+ * prepared at arming time as well.
+ */
+@Service
+public class ArmedBookingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArmedBookingService.class);
+    private static final String DEFAULT_USER_AGENT = "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/138.0.0.0 YaBrowser/25.8.0.0 Safari/537.36";
+
+    @Value("${events.poll.armed-booking.enabled:true}")
+    private boolean enabled = true;
+
+    // Armed slot IDs older than this are resolved again (slot list of an event may change)
+    @Value("${events.poll.armed-booking.slot-ttl-ms:300000}")
+    private long slotTtlMs = 300_000;
+
+    private final YandexEventsBookingService bookingService;
+
+    // eventId -> armed slot
+    private final Map<String, ArmedSlot> armedSlots = new ConcurrentHashMap<>();
+    // eventId, для которых сейчас выполняется запрос /timeslots
+    private final Set<String> armingInFlight = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService armingExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "armed-booking");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ArmedBookingService(YandexEventsBookingService bookingService) {
+        this.bookingService = bookingService;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Resolves slot IDs in the background for events that are not armed yet (or whose armed slot is stale).
+     */
+    public void arm(Collection<Event> events, String cookie) {
+        if (!enabled || cookie == null || cookie.isEmpty()) {
+            return;
+        }
+        for (Event event : events) {
+            String eventId = event.getId();
+            ArmedSlot armed = armedSlots.get(eventId);
+            if (armed != null && !armed.isStale(slotTtlMs)) {
+                continue;
+            }
+            if (!armingInFlight.add(eventId)) {
+                continue;
+            }
+            try {
+                armingExecutor.execute(() -> {
+                    try {
+                        resolveSlot(event, cookie);
+                    } finally {
+                        armingInFlight.remove(eventId);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                armingInFlight.remove(eventId);
+            }
+        }
+    }
+
+    private void resolveSlot(Event event, String cookie) {
+        String eventId = event.getId();
+        try {
+            JsonNode slotsJson = bookingService.getTimeSlots(eventId, cookie, referer(event), DEFAULT_USER_AGENT);
+            List<Long> slotIds = TimeSlots.slotIds(slotsJson).stream().filter(id -> id > 0).toList();
+            if (!slotIds.isEmpty()) {
+                bookingService.prepareBooking(cookie, referer(event), DEFAULT_USER_AGENT, slotIds);
+                ArmedSlot previous = armedSlots.put(eventId, new ArmedSlot(slotIds, System.currentTimeMillis()));
+                if (previous == null || !previous.slotIds().equals(slotIds)) {
+                    logger.info("Armed event {} (id={}) with slot(s) {}", event.getTitle(), eventId, slotIds);
+                }
+            } else {
+                logger.debug("No slots to arm for event {} (id={})", event.getTitle(), eventId);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to arm event {}: {}", eventId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return first armed slot ID or null if the event is not armed
+     */
+    public Long getArmedSlot(String eventId) {
+        ArmedSlot armed = armedSlots.get(eventId);
+        return armed != null ? armed.slotIds().get(0) : null;
+    }
+
+    /**
+     * @return all armed slot IDs in API order, empty if the event is not armed
+     */
+    public List<Long> getArmedSlots(String eventId) {
+        ArmedSlot armed = armedSlots.get(eventId);
+        return armed != null ? armed.slotIds() : List.of();
+    }
+
+    /**
+     * Drops an armed slot, e.g. after a booking with it failed; the next attempt resolves slots again.
+     */
+    public void disarm(String eventId) {
+        armedSlots.remove(eventId);
+    }
+
+    /**
+     * Drops armed slots of events that no longer match any pending target of any session.
+     */
+    public void retainOnly(Set<String> eventIds) {
+        armedSlots.keySet().removeIf(eventId -> {
+            if (eventIds.contains(eventId)) {
+                return false;
+            }
+            logger.debug("Disarmed event {}: it no longer matches a pending target", eventId);
+            return true;
+        });
+    }
+
+    /**
+     * Forgets all armed slots (polling restarted or stopped).
+     */
+    public void reset() {
+        armedSlots.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        armingExecutor.shutdownNow();
+    }
+
+    private static String referer(Event event) {
+        int cityId = event.getCity() != null ? event.getCity().getId() : 1;
+        return String.format("https://events.yandex-team.ru/?city=%d&eventId=%s", cityId, event.getId());
+    }
+
+    private record ArmedSlot(List<Long> slotIds, long resolvedAt) {
+
+        boolean isStale(long ttlMs) {
+            return System.currentTimeMillis() - resolvedAt > ttlMs;
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.example.telegrambot.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of polling progress, so that a restart in the middle of a polling window resumes
+ * each session where it stopped instead of starting from the first target again.
+ * <p>
+ * One line per record: session started, target done (with the booked event and its slots), target
+ * lost, event booked, session ended. Every line carries a CRC32 of its payload; replay stops at the
+ * first line that is torn or corrupt, which after a crash can only be the tail. Writes go to the OS
+ * right away and are fsynced in batches every {@code sync-interval-ms}: a crash may lose the last
+ * records, in which case the resumed session re-checks those events with the API as before.
+ * <p>
+ * On startup the journal is replayed into memory and compacted to the records of unfinished sessions
+ * started within {@code resume-within-minutes}. The session record carries everything needed to
+ * recreate the session (targets, mode, chat), so {@code EventPollingService} restarts the sessions
+ * itself ({@link #recoveredSessions}); the progress is handed out once per user, by {@link #resume},
+ * to a session with the same targets.
+ */
+@Service
+public class BookingJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingJournal.class);
+
+    private static final String STARTED = "S";
+    private static final String DONE = "D";
+    private static final String LOST = "L";
+    private static final String BOOKED = "B";
+    private static final String ENDED = "E";
+
+    @Value("${events.poll.journal.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${events.poll.journal.path:./data/poll-journal.log}")
+    private String path = "./data/poll-journal.log";
+
+    @Value("${events.poll.journal.sync-interval-ms:50}")
+    private long syncIntervalMs = 50;
+
+    // Older progress belongs to a previous polling window and is not resumed
+    @Value("${events.poll.journal.resume-within-minutes:360}")
+    private long resumeWithinMinutes = 360;
+
+    /**
+     * Target completed: {@code eventId} is null if the target was lost (no free seats).
+     */
+    record Completion(String eventId, long[] slots) {
+
+        static final Completion LOST = new Completion(null, new long[0]);
+    }
+
+    /**
+     * Progress of one session as recorded in the journal.
+     */
+    static final class Progress {
+
+        private final String fingerprint;
+        private final long startedAtMs;
+        private final Long chatId;
+        private final boolean concurrentTargets;
+        // Targets in the EVENTS_POLL_NAMES format
+        private final String targets;
+        private final Map<Integer, Completion> completed = new LinkedHashMap<>();
+        private final Set<String> bookedEventIds = new LinkedHashSet<>();
+
+        Progress(String fingerprint, long startedAtMs, Long chatId, boolean concurrentTargets, String targets) {
+            this.fingerprint = fingerprint;
+            this.startedAtMs = startedAtMs;
+            this.chatId = chatId;
+            this.concurrentTargets = concurrentTargets;
+            this.targets = targets;
+        }
+
+        String fingerprint() {
+            return fingerprint;
+        }
+
+        Long chatId() {
+            return chatId;
+        }
+
+        boolean concurrentTargets() {
+            return concurrentTargets;
+        }
+
+        List<PollTarget> targets() {
+            return PollTarget.parseList(targets);
+        }
+
+        long startedAtMs() {
+            return startedAtMs;
+        }
+
+        Map<Integer, Completion> completed() {
+            return completed;
+        }
+
+        Set<String> bookedEventIds() {
+            return bookedEventIds;
+        }
+    }
+
+    // Replayed on startup, not resumed yet
+    private final Map<Long, Progress> recovered = new ConcurrentHashMap<>();
+    // Users with a session in the journal; when none is left, the journal is truncated
+    private final Set<Long> live = ConcurrentHashMap.newKeySet();
+
+    private FileChannel channel;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private ScheduledExecutorService syncer;
+
+    @PostConstruct
+    void open() {
+        if (!enabled) {
+            logger.info("Booking journal disabled");
+            return;
+        }
+        try {
+            Path file = Path.of(path);
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            long started = System.nanoTime();
+            Map<Long, Progress> replayed = replay(file);
+            long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(resumeWithinMinutes);
+            replayed.values().removeIf(progress -> progress.startedAtMs() < cutoff);
+            compact(file, replayed);
+            recovered.putAll(replayed);
+            live.addAll(replayed.keySet());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            logger.info("Booking journal {}: {} unfinished session(s) recovered in {} ms",
+                file, replayed.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException e) {
+            logger.error("Cannot open booking journal {}, polling progress will not survive restarts", path, e);
+            channel = null;
+            return;
+        }
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(this::sync, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        if (channel == null) {
+            return;
+        }
+        sync();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Error closing booking journal: {}", e.getMessage());
+        }
+        channel = null;
+    }
+
+    /**
+     * Identity of a session's targets: progress is only resumed into a session with the same targets and mode.
+     * Like {@link PollTarget#equals}, only what a target matches counts (name and day): a changed cadence
+     * policy keeps the progress.
+     */
+    static String fingerprint(List<PollTarget> targets, boolean concurrentTargets) {
+        String identity = targets.stream()
+            .map(target -> target.getNamePattern() + ":" + target.getDayOfWeek())
+            .collect(Collectors.joining(","));
+        CRC32 crc = new CRC32();
+        crc.update(((concurrentTargets ? "concurrent:" : "sequential:") + identity).getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * @return users whose sessions were interrupted by the last restart and can be recreated
+     *         from the journal; their progress is still to be {@link #resume resumed}
+     */
+    Map<Long, Progress> recoveredSessions() {
+        Map<Long, Progress> sessions = new LinkedHashMap<>(recovered);
+        sessions.values().removeIf(progress -> progress.targets().isEmpty());
+        return sessions;
+    }
+
+    /**
+     * @return progress of the user's session interrupted by the last restart, if its targets match;
+     *         null otherwise. Returned at most once per user.
+     */
+    Progress resume(Long userId, String fingerprint) {
+        Progress progress = recovered.remove(userId);
+        if (progress == null || !progress.fingerprint().equals(fingerprint)) {
+            return null;
+        }
+        return progress;
+    }
+
+    /**
+     * Starts a new session for the user in the journal, replacing any previous one.
+     */
+    void sessionStarted(Long userId, Long chatId, List<PollTarget> targets, boolean concurrentTargets) {
+        recovered.remove(userId);
+        live.add(userId);
+        append(STARTED, userId, String.valueOf(System.currentTimeMillis()), fingerprint(targets, concurrentTargets),
+            chatId == null ? "" : String.valueOf(chatId), concurrentTargets ? "concurrent" : "sequential", spec(targets));
+    }
+
+    private static String spec(List<PollTarget> targets) {
+        return targets.stream().map(PollTarget::toSpec).collect(Collectors.joining(","));
+    }
+
+    void sessionEnded(Long userId) {
+        recovered.remove(userId);
+        if (live.remove(userId)) {
+            append(ENDED, userId);
+        }
+        if (live.isEmpty()) {
+            truncate();
+        }
+    }
+
+    /**
+     * @return log recording the progress of the user's session
+     */
+    PollingSession.ProgressLog log(Long userId) {
+        if (!enabled) {
+            return PollingSession.ProgressLog.NONE;
+        }
+        return new PollingSession.ProgressLog() {
+            @Override
+            public void targetDone(int target, String eventId, long[] slots) {
+                append(DONE, userId, String.valueOf(target), eventId, joinSlots(slots));
+            }
+
+            @Override
+            public void targetLost(int target) {
+                append(LOST, userId, String.valueOf(target));
+            }
+
+            @Override
+            public void eventBooked(String eventId) {
+                append(BOOKED, userId, eventId);
+            }
+        };
+    }
+
+    private synchronized void append(String type, Long userId, String... fields) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            ByteBuffer line = ByteBuffer.wrap(encode(type, userId, fields));
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            dirty.set(true);
+        } catch (IOException e) {
+            logger.error("Cannot write booking journal, disabling it", e);
+            closeQuietly();
+        }
+    }
+
+    void sync() {
+        FileChannel current = channel;
+        if (current == null || !dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            current.force(false);
+        } catch (IOException e) {
+            logger.warn("Cannot sync booking journal: {}", e.getMessage());
+            dirty.set(true);
+        }
+    }
+
+    private synchronized void truncate() {
+        if (channel == null || !live.isEmpty()) {
+            return;
+        }
+        try {
+            channel.truncate(0);
+            dirty.set(true);
+        } catch (IOException e) {
+            logger.warn("Cannot truncate booking journal: {}", e.getMessage());
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already failing
+        }
+        channel = null;
+    }
+
+    static Map<Long, Progress> replay(Path file) throws IOException {
+        Map<Long, Progress> sessions = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return sessions;
+        }
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        int lineNumber = 0;
+        int start = 0;
+        int end;
+        // A line without the trailing newline is a torn write and is ignored
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            lineNumber++;
+            String[] fields = decode(content.substring(start, end));
+            start = end + 1;
+            if (fields == null || !apply(sessions, fields)) {
+                logger.warn("Booking journal {}: corrupt record at line {}, ignoring the rest", file, lineNumber);
+                break;
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * @return false if the record is malformed
+     */
+    private static boolean apply(Map<Long, Progress> sessions, String[] fields) {
+        try {
+            String type = fields[0];
+            Long userId = Long.valueOf(fields[1]);
+            if (STARTED.equals(type)) {
+                // Records without targets (written before they were journaled) can only be resumed by fingerprint
+                boolean full = fields.length > 6;
+                sessions.put(userId, new Progress(fields[3], Long.parseLong(fields[2]),
+                    full && !fields[4].isEmpty() ? Long.valueOf(fields[4]) : null,
+                    full && "concurrent".equals(fields[5]),
+                    full ? fields[6] : ""));
+                return true;
+            }
+            if (ENDED.equals(type)) {
+                sessions.remove(userId);
+                return true;
+            }
+            Progress progress = sessions.get(userId);
+            if (progress == null) {
+                return true;
+            }
+            switch (type) {
+                case DONE -> progress.completed().putIfAbsent(Integer.valueOf(fields[2]),
+                    new Completion(fields[3], parseSlots(fields.length > 4 ? fields[4] : "")));
+                case LOST -> progress.completed().putIfAbsent(Integer.valueOf(fields[2]), Completion.LOST);
+                case BOOKED -> progress.bookedEventIds().add(fields[2]);
+                default -> logger.warn("Unknown booking journal record type {}", type);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Rewrites the journal with just the given sessions: written to a temporary file, synced and moved over.
+     */
+    private static void compact(Path file, Map<Long, Progress> sessions) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<Long, Progress> entry : sessions.entrySet()) {
+                Long userId = entry.getKey();
+                Progress progress = entry.getValue();
+                write(out, encode(STARTED, userId, String.valueOf(progress.startedAtMs()), progress.fingerprint(),
+                    progress.chatId() == null ? "" : String.valueOf(progress.chatId()),
+                    progress.concurrentTargets() ? "concurrent" : "sequential", progress.targets));
+                for (Map.Entry<Integer, Completion> done : progress.completed().entrySet()) {
+                    Completion completion = done.getValue();
+                    write(out, completion.eventId() == null
+                        ? encode(LOST, userId, String.valueOf(done.getKey()))
+                        : encode(DONE, userId, String.valueOf(done.getKey()), completion.eventId(), joinSlots(completion.slots())));
+                }
+                for (String eventId : progress.bookedEventIds()) {
+                    write(out, encode(BOOKED, userId, eventId));
+                }
+            }
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write(FileChannel out, byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    // Line: CRC32 of the payload (hex), tab, payload (tab-separated fields), newline
+    static byte[] encode(String type, Long userId, String... fields) {
+        StringBuilder payload = new StringBuilder(type).append('\t').append(userId);
+        for (String field : fields) {
+            payload.append('\t').append(field == null ? "" : field.replace('\t', ' ').replace('\n', ' '));
+        }
+        byte[] payloadBytes = payload.toString().getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(payloadBytes);
+        return (Long.toHexString(crc.getValue()) + '\t' + payload + '\n').getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return fields of the record, or null if the line is corrupt
+     */
+    static String[] decode(String line) {
+        int separator = line.indexOf('\t');
+        if (separator < 0) {
+            return null;
+        }
+        String payload = line.substring(separator + 1);
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        if (!Long.toHexString(crc.getValue()).equals(line.substring(0, separator))) {
+            return null;
+        }
+        String[] fields = payload.split("\t", -1);
+        return fields.length >= 2 ? fields : null;
+    }
+
+    private static String joinSlots(long[] slots) {
+        return Arrays.stream(slots).mapToObj(Long::toString).collect(Collectors.joining(","));
+    }
+
+    private static long[] parseSlots(String slots) {
+        if (slots.isEmpty()) {
+            return new long[0];
+        }
+        return Arrays.stream(slots.split(",")).mapToLong(Long::parseLong).toArray();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.config.ExecutionConfig;
+import com.example.telegrambot.dto.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warms up everything the first poll tick needs before the polling window opens:
+ * DNS resolution, pooled keep-alive connections of the shared HTTP client, and the JSON
+ * decoding paths for the events list, bookings and timeslots responses.
+ * After a pre-warm the first real {@code getEvents}/{@code getTimeSlots}/{@code book} call
+ * runs at steady-state latency instead of paying DNS + TCP + TLS setup.
+ * <p>
+ * The scheduled pre-warm runs once per polling window ({@link #prewarmOnce}, {@link #resetWindow}).
+ * Until polling starts, {@link #keepWarm} keeps using the opened connections, so neither the pool
+ * nor the server closes them as idle right before the first tick.
+ * Its requests are blocking and run on the blocking I/O executor.
+ */
+@Service
+public class ConnectionPrewarmService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPrewarmService.class);
+    private static final String EVENTS_HOST = "events.yandex-team.ru";
+    private static final String DEFAULT_USER_AGENT = "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/138.0.0.0 YaBrowser/25.8.0.0 Safari/537.36";
+
+    // Number of parallel requests used to open pooled connections (only matters for HTTP/1.1)
+    @Value("${events.poll.prewarm-connections:2}")
+    private int prewarmConnections = 2;
+
+    // Pre-warmed connections are used at least this often until polling starts
+    @Value("${events.poll.keep-warm-interval-ms:10000}")
+    private long keepWarmIntervalMs = 10_000;
+
+    private final EventsService eventsService;
+    private final YandexEventsBookingService bookingService;
+    private final UserCookieService userCookieService;
+    private final ExecutorService ioExecutor;
+    // Pre-warm of the current polling window has already run
+    private final AtomicBoolean windowPrewarmed = new AtomicBoolean();
+    // Last time the pooled connections were used by a pre-warm or keep-warm round
+    private final AtomicLong lastWarmedAt = new AtomicLong();
+
+    public ConnectionPrewarmService(
+            EventsService eventsService,
+            YandexEventsBookingService bookingService,
+            UserCookieService userCookieService,
+            @Qualifier(ExecutionConfig.BLOCKING_IO_EXECUTOR) ExecutorService ioExecutor) {
+        this.eventsService = eventsService;
+        this.bookingService = bookingService;
+        this.userCookieService = userCookieService;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Runs {@link #prewarm} unless it already ran in the current polling window.
+     *
+     * @return true if the pre-warm ran
+     */
+    public boolean prewarmOnce(Long userId) {
+        if (!windowPrewarmed.compareAndSet(false, true)) {
+            return false;
+        }
+        prewarm(userId);
+        return true;
+    }
+
+    public boolean isWindowPrewarmed() {
+        return windowPrewarmed.get();
+    }
+
+    /**
+     * The polling window ended: the next one gets its own pre-warm.
+     */
+    public void resetWindow() {
+        windowPrewarmed.set(false);
+        lastWarmedAt.set(0);
+    }
+
+    long getKeepWarmIntervalMs() {
+        return keepWarmIntervalMs;
+    }
+
+    /**
+     * After the window's pre-warm: sends a light request over each pooled connection if they were
+     * last used {@code keep-warm-interval-ms} ago or earlier. Does not wait for the responses and never throws.
+     *
+     * @return true if requests were sent
+     */
+    public boolean keepWarm(Long userId) {
+        long now = System.currentTimeMillis();
+        long last = lastWarmedAt.get();
+        if (!windowPrewarmed.get() || last == 0 || now - last < keepWarmIntervalMs
+                || !lastWarmedAt.compareAndSet(last, now)) {
+            return false;
+        }
+        String cookie = userCookieService.getCookie(userId);
+        if (cookie == null || cookie.isEmpty()) {
+            return false;
+        }
+        for (CompletableFuture<Void> request : lightRequests(cookie)) {
+            request.whenComplete((ignored, e) -> {
+                if (e != null) {
+                    logger.debug("Keep-warm request failed: {}", e.getMessage());
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Runs the pre-warm sequence for the given user. Never throws: a failed pre-warm
+     * only means the first poll tick pays the setup cost as before.
+     */
+    public void prewarm(Long userId) {
+        long startedAt = System.currentTimeMillis();
+        String cookie = userCookieService.getCookie(userId);
+        if (cookie == null || cookie.isEmpty()) {
+            logger.warn("Skipping pre-warm: no cookie for user {}", userId);
+            return;
+        }
+
+        resolveDns();
+        openConnections(cookie);
+
+        // Full round on real data: events list, user bookings and timeslots of the first event
+        List<Event> events = List.of();
+        try {
+            events = eventsService.getEvents(userId);
+        } catch (Exception e) {
+            logger.warn("Pre-warm of events list failed: {}", e.getMessage());
+        }
+        try {
+            bookingService.getUserBookings(cookie, DEFAULT_USER_AGENT);
+            if (!events.isEmpty()) {
+                Event event = events.get(0);
+                int cityId = event.getCity() != null ? event.getCity().getId() : 1;
+                String referer = String.format("https://events.yandex-team.ru/?city=%d&eventId=%s", cityId, event.getId());
+                bookingService.getTimeSlots(event.getId(), cookie, referer, DEFAULT_USER_AGENT);
+            }
+        } catch (Exception e) {
+            logger.warn("Pre-warm of bookings/timeslots failed: {}", e.getMessage());
+        }
+
+        lastWarmedAt.set(System.currentTimeMillis());
+        logger.info("Pre-warm completed in {} ms ({} events in snapshot)",
+            System.currentTimeMillis() - startedAt, events.size());
+    }
+
+    private void resolveDns() {
+        try {
+            InetAddress[] addresses = InetAddress.getAllByName(EVENTS_HOST);
+            logger.info("Pre-warm: resolved {} to {} address(es)", EVENTS_HOST, addresses.length);
+        } catch (UnknownHostException e) {
+            logger.warn("Pre-warm: failed to resolve {}: {}", EVENTS_HOST, e.getMessage());
+        }
+    }
+
+    /**
+     * Issues a few small requests in parallel so the pool holds several open connections.
+     */
+    private void openConnections(String cookie) {
+        List<CompletableFuture<Void>> requests = lightRequests(cookie);
+        try {
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).join();
+            logger.info("Pre-warm: opened {} pooled connection(s)", requests.size());
+        } catch (Exception e) {
+            logger.warn("Pre-warm: failed to open pooled connections: {}", e.getMessage());
+        }
+    }
+
+    private List<CompletableFuture<Void>> lightRequests(String cookie) {
+        int connections = Math.max(1, prewarmConnections);
+        List<CompletableFuture<Void>> requests = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            requests.add(CompletableFuture.runAsync(() -> eventsService.getCities(cookie), ioExecutor));
+        }
+        return requests;
+    }
+}
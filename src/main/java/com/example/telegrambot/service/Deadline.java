@@ -0,0 +1,90 @@
+package com.example.telegrambot.service;
+
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Time budget of an operation spanning several Yandex API requests (e.g. one booking attempt).
+ * <p>
+ * The deadline is entered on the calling thread ({@link #enter()}); every request made from that
+ * thread through the shared request factory gets at most the remaining time as its timeout, and the
+ * rate limiter does not wait for a token past it. Work handed to another thread carries the deadline
+ * explicitly via {@link #call(Supplier)}.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(long millis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis)));
+    }
+
+    /**
+     * @return deadline entered on this thread, or null
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    public long remainingMs() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Makes this deadline current on the calling thread until the scope is closed.
+     */
+    public Scope enter() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Runs {@code task} with this deadline current, e.g. on an executor thread.
+     */
+    public <T> T call(Supplier<T> task) {
+        try (Scope ignored = enter()) {
+            return task.get();
+        }
+    }
+
+    /**
+     * @return whether {@code e} or one of its causes is a request timeout (including an expired deadline)
+     */
+    public static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException || cause instanceof ConnectTimeoutException
+                    || cause instanceof ConnectionRequestTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One difference between two successive {@code /back/events/} snapshots of the same city and categories.
+ * An event whose seats changed yields one record per changed field.
+ *
+ * @param event    the event in the new snapshot (null for {@link Type#DISAPPEARED})
+ * @param previous the event in the previous snapshot (null for {@link Type#APPEARED})
+ */
+record EventChange(Type type, String eventId, Event event, Event previous) {
+
+    enum Type {
+        APPEARED,
+        DISAPPEARED,
+        // haveFreeSeats: false -> true
+        SEATS_OPENED,
+        // haveFreeSeats: true -> false
+        SEATS_CLOSED,
+        FREE_SEATS_CHANGED,
+        BOOKED_COUNT_CHANGED
+    }
+
+    int freeSeatsDelta() {
+        return event == null || previous == null ? 0 : event.getFreeSeats() - previous.getFreeSeats();
+    }
+
+    int bookedCountDelta() {
+        return event == null || previous == null ? 0 : event.getBookedCount() - previous.getBookedCount();
+    }
+
+    /**
+     * Changes from {@code previous} to {@code current}, both keyed by event ID in API order:
+     * appearances and field changes in the order of {@code current}, then disappearances.
+     */
+    static List<EventChange> diff(Map<String, Event> previous, Map<String, Event> current) {
+        List<EventChange> changes = new ArrayList<>();
+        for (Event event : current.values()) {
+            Event before = previous.get(event.getId());
+            if (before == null) {
+                changes.add(new EventChange(Type.APPEARED, event.getId(), event, null));
+                continue;
+            }
+            if (before.isHaveFreeSeats() != event.isHaveFreeSeats()) {
+                changes.add(new EventChange(event.isHaveFreeSeats() ? Type.SEATS_OPENED : Type.SEATS_CLOSED,
+                    event.getId(), event, before));
+            }
+            if (before.getFreeSeats() != event.getFreeSeats()) {
+                changes.add(new EventChange(Type.FREE_SEATS_CHANGED, event.getId(), event, before));
+            }
+            if (before.getBookedCount() != event.getBookedCount()) {
+                changes.add(new EventChange(Type.BOOKED_COUNT_CHANGED, event.getId(), event, before));
+            }
+        }
+        for (Event before : previous.values()) {
+            if (!current.containsKey(before.getId())) {
+                changes.add(new EventChange(Type.DISAPPEARED, before.getId(), null, before));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * @return events by ID in list order; a duplicate ID keeps its first occurrence
+     */
+    static Map<String, Event> byId(List<Event> events) {
+        Map<String, Event> byId = new LinkedHashMap<>();
+        for (Event event : events) {
+            if (event.getId() != null) {
+                byId.putIfAbsent(event.getId(), event);
+            }
+        }
+        return byId;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Change stream over successive events list snapshots, per snapshot key (city and categories).
+ * <p>
+ * Every freshly loaded snapshot is diffed against the previous one of its key ({@link EventChange#diff});
+ * the changes get consecutive sequence numbers and are kept in a bounded log. A consumer keeps the
+ * cursor of the last change it handled and asks for the changes after it ({@link #since}), so it can
+ * react to O(changes) instead of rescanning the list. When the cursor is unknown or has fallen out of
+ * the log, the batch is not {@link Batch#complete() complete} and the consumer rescans
+ * {@link Batch#current()} once.
+ */
+final class EventChangeFeed {
+
+    // Changes kept per key; a consumer further behind than this rescans the snapshot
+    static final int MAX_LOG_SIZE = 4096;
+
+    // Cursor of a consumer that has not seen the feed yet
+    static final long NO_CURSOR = -1;
+
+    /**
+     * @param changes  changes after the requested cursor, oldest first (empty if not complete)
+     * @param cursor   cursor to pass next time
+     * @param complete false if changes were missed: rescan {@code current} instead
+     * @param current  latest snapshot by event ID, in API order
+     */
+    record Batch(List<EventChange> changes, long cursor, boolean complete, Map<String, Event> current) {
+    }
+
+    private record Entry(long sequence, EventChange change) {
+    }
+
+    private static final class Stream {
+
+        private Map<String, Event> current = Map.of();
+        private long sequence = NO_CURSOR;
+        private final Deque<Entry> log = new ArrayDeque<>();
+    }
+
+    private final Map<EventsSnapshotCache.Key, Stream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * Appends the changes from the key's previous snapshot to {@code events}.
+     * The first snapshot of a key is the baseline and yields no changes.
+     *
+     * @return the changes appended
+     */
+    List<EventChange> record(EventsSnapshotCache.Key key, List<Event> events) {
+        Map<String, Event> current = Collections.unmodifiableMap(EventChange.byId(events));
+        Stream stream = streams.computeIfAbsent(key, k -> new Stream());
+        synchronized (stream) {
+            boolean baseline = stream.sequence == NO_CURSOR;
+            List<EventChange> changes = baseline ? List.of() : EventChange.diff(stream.current, current);
+            stream.current = current;
+            if (baseline) {
+                stream.sequence = 0;
+            }
+            for (EventChange change : changes) {
+                stream.log.addLast(new Entry(++stream.sequence, change));
+                if (stream.log.size() > MAX_LOG_SIZE) {
+                    stream.log.removeFirst();
+                }
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * @param cursor cursor returned by the previous call, or {@link #NO_CURSOR}
+     */
+    Batch since(EventsSnapshotCache.Key key, long cursor) {
+        Stream stream = streams.get(key);
+        if (stream == null) {
+            return new Batch(List.of(), NO_CURSOR, false, Map.of());
+        }
+        synchronized (stream) {
+            long oldest = stream.log.isEmpty() ? stream.sequence + 1 : stream.log.peekFirst().sequence();
+            if (cursor == NO_CURSOR || cursor < oldest - 1 || cursor > stream.sequence) {
+                return new Batch(List.of(), stream.sequence, false, stream.current);
+            }
+            // Walk back from the newest entry, so only the changes returned are visited
+            List<EventChange> changes = new ArrayList<>((int) (stream.sequence - cursor));
+            Iterator<Entry> newestFirst = stream.log.descendingIterator();
+            while (newestFirst.hasNext()) {
+                Entry entry = newestFirst.next();
+                if (entry.sequence() <= cursor) {
+                    break;
+                }
+                changes.add(entry.change());
+            }
+            Collections.reverse(changes);
+            return new Batch(changes, stream.sequence, true, stream.current);
+        }
+    }
+}
@@ -1,20 +1,38 @@
 package com.example.telegrambot.service;
 
 import com.example.telegrambot.bot.TelegramBot;
+import com.example.telegrambot.config.ExecutionConfig;
+import com.example.telegrambot.config.SchedulingConfig;
 import com.example.telegrambot.dto.Event;
 import com.example.telegrambot.exception.RateLimitException;
 import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
 
+import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,14 +41,8 @@ public class EventPollingService {
     private static final Logger logger = LoggerFactory.getLogger(EventPollingService.class);
     private static final String DEFAULT_USER_AGENT = "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/138.0.0.0 YaBrowser/25.8.0.0 Safari/537.36";
 
-    // Флаг для включения/выключения опроса
-    private volatile boolean pollingEnabled = false;
-
-    // ID пользователя, для которого включен опрос
-    private volatile Long pollingUserId = null;
-
-    // ChatId пользователя для отправки уведомлений
-    private volatile Long pollingChatId = null;
+    // Активные сессии опроса по userId: у каждого пользователя свои цели, прогресс и забронированные события
+    private final Map<Long, PollingSession> sessions = new ConcurrentHashMap<>();
 
     // Список имен событий для отслеживания (из переменной окружения)
     // Используем String и парсим вручную, чтобы поддерживать и YAML массивы, и comma-separated env vars
@@ -40,11 +52,49 @@ public class EventPollingService {
     @Value("${events.poll.booking-delay-ms}")
     private long bookingDelayMs;
 
-    @Value("${events.poll.rate-limit-retry-delay-ms}")
-    private long rateLimitRetryDelayMs;
+    // Повторы записи при 429 в пределах тика; -1 — повторять, пока не истек срок попытки (booking-deadline-ms)
+    @Value("${events.poll.rate-limit-retry-count:-1}")
+    private int rateLimitRetryCount = -1;
+
+    // Time budget of one booking attempt (status check, slots, POST and its retries), see Deadline
+    @Value("${events.poll.booking-deadline-ms:5000}")
+    private long bookingDeadlineMs = 5000;
+
+    // Concurrent mode: every pending target is evaluated on each tick, priority only resolves conflicts
+    @Value("${events.poll.concurrent-targets:false}")
+    private boolean concurrentTargets;
+
+    // Adaptive poll cadence, see PollCadence
+    @Value("${events.poll.cadence.base-interval-ms:1000}")
+    private long baseIntervalMs;
+
+    @Value("${events.poll.cadence.burst-interval-ms:200}")
+    private long burstIntervalMs;
+
+    @Value("${events.poll.cadence.idle-interval-ms:30000}")
+    private long idleIntervalMs;
+
+    @Value("${events.poll.cadence.burst-before-ms:10000}")
+    private long burstBeforeMs;
+
+    @Value("${events.poll.cadence.burst-after-ms:120000}")
+    private long burstAfterMs;
+
+    @Value("${events.poll.cadence.max-requests-per-second:5}")
+    private double maxRequestsPerSecond;
+
+    private PollCadence cadence;
 
-    @Value("${events.poll.rate-limit-retry-count}")
-    private int rateLimitRetryCount;
+    // Hedged booking: number of top-ranked slots booked in parallel per target (1 = one event at a time)
+    @Value("${events.poll.hedge.slots:1}")
+    private int hedgeSlots = 1;
+
+    // Booking POSTs of hedged attempts; separate from bookingExecutor, whose tasks wait for them
+    private final ExecutorService hedgeExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "hedged-booking");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     // Прямое чтение из System.getenv() как fallback (для случаев когда Spring Boot не видит env var)
     private String getPollEventNamesFromEnv() {
@@ -62,21 +112,29 @@ public class EventPollingService {
         return value;
     }
 
-    // Ordered poll targets (priority: first entry is tried first, sequentially)
+    // Default ordered poll targets (priority: first entry is tried first), used when a user does not give their own
     private List<PollTarget> pollTargets = new ArrayList<>();
 
-    // Index of the current target in pollTargets (sequential booking)
-    private volatile int currentTargetIndex = 0;
-
-    // Множество eventId, которые уже были забронированы (чтобы не пытаться повторно)
-    private final Set<String> bookedEventIds = ConcurrentHashMap.newKeySet();
-
     private final EventsService eventsService;
     private final YandexEventsBookingService bookingService;
     private final UserCookieService userCookieService;
     private final EventHoldService eventHoldService;
     private final UserPreferencesService userPreferencesService;
+    private final ArmedBookingService armedBookingService;
     private final ApplicationContext applicationContext;
+    private final ScheduledTickMonitor.Task pollTicks;
+    // Booking jobs of a tick; not shared with background subsystems (see ExecutionConfig)
+    private final ExecutorService bookingExecutor;
+    private final TaskScheduler pollingScheduler;
+    private final ServerClock serverClock;
+    private final BookingJournal bookingJournal;
+
+    // Next scheduled tick (the poller reschedules itself after every tick)
+    private ScheduledFuture<?> nextTick;
+    private volatile boolean loopRunning = false;
+    private final AtomicBoolean tickRunning = new AtomicBoolean();
+    // Interval chosen after the last tick; list snapshots older than half of it are not reused
+    private volatile long currentIntervalMs;
 
     public EventPollingService(
             EventsService eventsService,
@@ -84,16 +142,37 @@ public class EventPollingService {
             UserCookieService userCookieService,
             EventHoldService eventHoldService,
             UserPreferencesService userPreferencesService,
+            ArmedBookingService armedBookingService,
+            ScheduledTickMonitor tickMonitor,
+            @Qualifier(ExecutionConfig.POLL_BOOKING_EXECUTOR) ExecutorService bookingExecutor,
+            @Qualifier(SchedulingConfig.POLLING_SCHEDULER) TaskScheduler pollingScheduler,
+            ServerClock serverClock,
+            BookingJournal bookingJournal,
             ApplicationContext applicationContext) {
         this.eventsService = eventsService;
         this.bookingService = bookingService;
         this.userCookieService = userCookieService;
         this.eventHoldService = eventHoldService;
         this.userPreferencesService = userPreferencesService;
+        this.armedBookingService = armedBookingService;
         this.applicationContext = applicationContext;
+        this.pollTicks = tickMonitor.adaptive("event-polling");
+        this.bookingExecutor = bookingExecutor;
+        this.pollingScheduler = pollingScheduler;
+        this.serverClock = serverClock;
+        this.bookingJournal = bookingJournal;
         initializeWatchedEventNames();
     }
 
+    @PostConstruct
+    void initCadence() {
+        cadence = new PollCadence(baseIntervalMs, burstIntervalMs, idleIntervalMs,
+            burstBeforeMs, burstAfterMs, maxRequestsPerSecond);
+        currentIntervalMs = baseIntervalMs;
+        logger.info("Poll cadence: base {} ms, burst {} ms ({} ms before / {} ms after release), idle {} ms, max {} req/s",
+            baseIntervalMs, burstIntervalMs, burstBeforeMs, burstAfterMs, idleIntervalMs, maxRequestsPerSecond);
+    }
+
     /**
      * Инициализирует список имен событий для отслеживания из переменной окружения
      * Имена сохраняются в нижнем регистре для case-insensitive сравнения
@@ -135,127 +214,448 @@ public class EventPollingService {
     }
 
     /**
-     * Включает опрос для указанного пользователя
+     * Включает опрос для указанного пользователя с целями по умолчанию (EVENTS_POLL_NAMES)
      */
     public boolean startPolling(Long userId, Long chatId) {
-        if (pollTargets.isEmpty()) {
-            logger.warn("Cannot start polling: no event names configured");
+        return startPolling(userId, chatId, null);
+    }
+
+    /**
+     * Включает опрос для указанного пользователя. Сессии других пользователей не затрагиваются;
+     * повторный запуск для того же пользователя начинает его сессию заново. Сессии, прерванные рестартом,
+     * восстанавливаются по журналу при старте ({@link #resumeJournaledSessions}); сессия сервера
+     * продолжается первым запуском с теми же целями.
+     *
+     * @param targets цели пользователя в формате EVENTS_POLL_NAMES; null или пустая строка — цели по умолчанию
+     */
+    public boolean startPolling(Long userId, Long chatId, String targets) {
+        List<PollTarget> sessionTargets = targets != null && !targets.trim().isEmpty()
+            ? PollTarget.parseList(targets)
+            : pollTargets;
+        if (sessionTargets.isEmpty()) {
+            logger.warn("Cannot start polling for user {}: no event names configured", userId);
             return false;
         }
-        pollingEnabled = true;
-        pollingUserId = userId;
-        pollingChatId = chatId;
-        currentTargetIndex = 0;
-        bookedEventIds.clear(); // Очищаем список забронированных событий при старте
-        logger.info("Event polling started for user {} (chatId: {})", userId, chatId);
+        startSession(userId, chatId, sessionTargets, concurrentTargets);
         return true;
     }
 
+    private void startSession(Long userId, Long chatId, List<PollTarget> sessionTargets, boolean concurrent) {
+        if (sessions.isEmpty()) {
+            // Слоты, подготовленные в прошлых сессиях, могли устареть
+            armedBookingService.reset();
+        }
+        PollingSession session = new PollingSession(userId, chatId, sessionTargets, concurrent,
+            bookingJournal.log(userId));
+        BookingJournal.Progress resumed = bookingJournal.resume(userId, BookingJournal.fingerprint(sessionTargets, concurrent));
+        if (resumed != null) {
+            session.restore(resumed);
+            logger.info("User {}: resuming interrupted session from journal: {} target(s) completed, {} event(s) booked",
+                userId, resumed.completed().size(), resumed.bookedEventIds().size());
+        } else {
+            bookingJournal.sessionStarted(userId, chatId, sessionTargets, concurrent);
+        }
+        sessions.put(userId, session);
+        logger.info("Event polling started for user {} (chatId: {}, {} targets: {}). Active sessions: {}",
+            userId, chatId, concurrent ? "concurrent" : "sequential", sessionTargets, sessions.size());
+        // The loop may be backed off to the idle interval: poll right away
+        scheduleNextTick(0);
+    }
+
+    /**
+     * Recreates the sessions interrupted by the last restart, with their journaled targets, mode and chat.
+     * The server-only session is left to {@code ScheduledPollingService}: it only polls inside its window
+     * and resumes the journaled progress when it starts the same targets.
+     */
+    void resumeJournaledSessions() {
+        bookingJournal.recoveredSessions().forEach((userId, progress) -> {
+            if (ServerStartupService.SERVER_USER_ID.equals(userId) || sessions.containsKey(userId)) {
+                return;
+            }
+            logger.info("User {}: recreating poll session interrupted by restart", userId);
+            startSession(userId, progress.chatId(), progress.targets(), progress.concurrentTargets());
+        });
+    }
+
     /**
-     * Выключает опрос
+     * Выключает опрос для указанного пользователя
      */
-    public void stopPolling() {
-        pollingEnabled = false;
-        Long userId = pollingUserId;
-        Long chatId = pollingChatId;
-        pollingUserId = null;
-        pollingChatId = null;
-        logger.info("Event polling stopped for user {} (chatId: {})", userId, chatId);
+    public void stopPolling(Long userId) {
+        PollingSession session = sessions.remove(userId);
+        if (session == null) {
+            return;
+        }
+        bookingJournal.sessionEnded(userId);
+        if (sessions.isEmpty()) {
+            armedBookingService.reset();
+        }
+        logger.info("Event polling stopped for user {} (chatId: {}). Active sessions: {}",
+            userId, session.getChatId(), sessions.size());
     }
 
     /**
-     * Проверяет, включен ли опрос
+     * Проверяет, включен ли опрос хотя бы для одного пользователя
      */
     public boolean isPollingEnabled() {
-        return pollingEnabled;
+        return !sessions.isEmpty();
     }
 
     /**
-     * Получает ID пользователя, для которого включен опрос
+     * Проверяет, включен ли опрос для указанного пользователя
      */
-    public Long getPollingUserId() {
-        return pollingUserId;
+    public boolean isPollingEnabled(Long userId) {
+        return userId != null && sessions.containsKey(userId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPollLoop() {
+        loopRunning = true;
+        resumeJournaledSessions();
+        scheduleNextTick(0);
+    }
+
+    @PreDestroy
+    public synchronized void stopPollLoop() {
+        loopRunning = false;
+        if (nextTick != null) {
+            nextTick.cancel(false);
+        }
+        hedgeExecutor.shutdownNow();
     }
 
     /**
-     * Проверяет события каждую секунду
+     * Проверяет события с адаптивным интервалом (на отдельном планировщике, см. {@link SchedulingConfig}):
+     * после каждого тика следующий планируется через {@link PollCadence#nextDelayMs}.
      */
-    @Scheduled(fixedRate = 1000)
     public void pollEvents() {
-        if (!pollingEnabled || pollingUserId == null) {
+        if (!tickRunning.compareAndSet(false, true)) {
+            // A tick is already running (e.g. woken up by startPolling); it schedules the next one
             return;
         }
+        int[] requestsPerTick = {0};
+        try {
+            pollTicks.run(() -> requestsPerTick[0] = pollEventsTick());
+        } finally {
+            tickRunning.set(false);
+            long delay = nextDelayMs(requestsPerTick[0]);
+            currentIntervalMs = delay;
+            scheduleNextTick(delay);
+        }
+    }
 
-        if (currentTargetIndex >= pollTargets.size()) {
-            logger.debug("All poll targets completed ({} total)", pollTargets.size());
+    private long nextDelayMs(int requestsPerTick) {
+        try {
+            List<PollTarget> pending = new ArrayList<>();
+            for (PollingSession session : sessions.values()) {
+                pending.addAll(session.pendingTargets());
+            }
+            return cadence.nextDelayMs(ZonedDateTime.now(serverClock.clock()), pending, requestsPerTick);
+        } catch (Exception e) {
+            // The loop must keep going whatever happens
+            logger.error("Error computing next poll interval, using base interval", e);
+            return baseIntervalMs;
+        }
+    }
+
+    /**
+     * Replaces the pending tick with one starting in {@code delayMs}, so at most one tick is ever scheduled.
+     */
+    private synchronized void scheduleNextTick(long delayMs) {
+        if (!loopRunning) {
             return;
         }
+        if (nextTick != null) {
+            nextTick.cancel(false);
+        }
+        long startAt = System.currentTimeMillis() + delayMs;
+        pollTicks.expectStartAt(startAt);
+        nextTick = pollingScheduler.schedule(this::pollEvents, Instant.ofEpochMilli(startAt));
+    }
+
+    /**
+     * @return list requests made by this tick (one per distinct snapshot), for the requests-per-second cap
+     */
+    private int pollEventsTick() {
+        List<PollingSession> active = sessions.values().stream()
+            .filter(session -> !session.isFinished())
+            .toList();
+        if (active.isEmpty()) {
+            return 0;
+        }
+
+        // Сессии с одинаковыми городом и категориями используют один снимок списка событий за тик
+        Map<EventsSnapshotCache.Key, List<PollingSession>> bySnapshot = new LinkedHashMap<>();
+        for (PollingSession session : active) {
+            bySnapshot.computeIfAbsent(eventsService.snapshotKey(session.getUserId()), key -> new ArrayList<>())
+                .add(session);
+        }
+
+        List<TargetJob> jobs = new ArrayList<>();
+        // Events to keep armed; only trusted if every snapshot of the tick was evaluated
+        Set<String> stillArmed = new HashSet<>();
+        boolean[] allEvaluated = {true};
+        bySnapshot.forEach((key, group) -> {
+            try {
+                List<Event> events = eventsService.getEvents(anyCookie(group), key, currentIntervalMs / 2);
+                if (events == null || events.isEmpty()) {
+                    logger.debug("No events found for polling (city {}, categories {})", key.cityId(), key.categoryIds());
+                    allEvaluated[0] = false;
+                    return;
+                }
+                ZonedDateTime now = ZonedDateTime.now(serverClock.clock());
+                for (PollingSession session : group) {
+                    Map<Integer, List<Event>> hitsByTarget = session.matchAll(events);
+                    for (PollTarget released : session.observeReleases(hitsByTarget)) {
+                        logger.info("User {}: poll target [{}] became available, learning release time",
+                            session.getUserId(), released);
+                        cadence.learnRelease(released, now);
+                    }
+                    stillArmed.addAll(armPendingTargets(session, hitsByTarget));
+                    session.plan(hitsByTarget, target -> cadence.awaitsRelease(target, now)).forEach((target, candidates) ->
+                        jobs.add(new TargetJob(session, target, candidates)));
+                }
+            } catch (Exception e) {
+                allEvaluated[0] = false;
+                logger.error("Error in event polling task (city {}, categories {})", key.cityId(), key.categoryIds(), e);
+            }
+        });
+        if (allEvaluated[0] && armedBookingService.isEnabled()) {
+            armedBookingService.retainOnly(stillArmed);
+        }
 
         try {
-            List<Event> events = eventsService.getEvents(pollingUserId);
-            if (events == null || events.isEmpty()) {
-                logger.debug("No events found for polling");
-                return;
+            runJobs(jobs);
+            // Цели, уступившие слот кандидатам более приоритетных целей, получают то, что те не забронировали
+            List<TargetJob> deferredJobs = new ArrayList<>();
+            for (PollingSession session : active) {
+                session.planDeferred().forEach((target, candidates) ->
+                    deferredJobs.add(new TargetJob(session, target, candidates)));
             }
+            runJobs(deferredJobs);
+        } catch (Exception e) {
+            logger.error("Error in event polling task", e);
+        }
+        return bySnapshot.size();
+    }
+
+    /**
+     * Books events of all planned targets. A single job runs on the polling thread; several jobs
+     * (concurrent targets or several sessions) run in parallel on the dedicated poll booking executor.
+     */
+    private void runJobs(List<TargetJob> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        if (jobs.size() == 1) {
+            TargetJob job = jobs.get(0);
+            applyAttempt(job, bookFirstAvailable(job.session(), job.candidates()));
+            return;
+        }
 
-            PollTarget target = pollTargets.get(currentTargetIndex);
-            List<Event> matchingEvents = events.stream()
-                .filter(target::matchesEvent)
-                .collect(Collectors.toList());
+        List<CompletableFuture<TargetAttempt>> attempts = jobs.stream()
+            .map(job -> CompletableFuture.supplyAsync(() -> bookFirstAvailable(job.session(), job.candidates()), bookingExecutor))
+            .toList();
+        CompletableFuture.allOf(attempts.toArray(CompletableFuture[]::new)).join();
+        for (int i = 0; i < jobs.size(); i++) {
+            applyAttempt(jobs.get(i), attempts.get(i).join());
+        }
+    }
 
-            if (matchingEvents.isEmpty()) {
-                logger.debug("Poll target [{}] ({}/{}): no matching events in list yet",
-                    target, currentTargetIndex + 1, pollTargets.size());
-                return;
+    private void applyAttempt(TargetJob job, TargetAttempt attempt) {
+        if (attempt.isDone()) {
+            job.session().targetDone(job.target(), attempt.event(),
+                attempt.result() == BookingAttemptResult.BOOKED ? "booked" : "already booked");
+        }
+    }
+
+    /**
+     * Tries events with free seats in order until one is booked (or found already booked).
+     * Stops early on a rate limit: the target is retried on the next tick.
+     */
+    private TargetAttempt bookFirstAvailable(PollingSession session, List<Event> events) {
+        if (hedgeSlots > 1) {
+            return bookHedged(session, events);
+        }
+        for (Event event : events) {
+            if (!event.isHaveFreeSeats()) {
+                continue;
+            }
+            BookingAttemptResult result = checkAndBookEvent(session, event);
+            if (result == BookingAttemptResult.BOOKED || result == BookingAttemptResult.ALREADY_BOOKED
+                    || result == BookingAttemptResult.RATE_LIMITED) {
+                return new TargetAttempt(result, event);
             }
+        }
+        return new TargetAttempt(BookingAttemptResult.FAILED, null);
+    }
 
-            logger.info("Poll target [{}] ({}/{}): {} matching event(s): {}",
-                target, currentTargetIndex + 1, pollTargets.size(), matchingEvents.size(),
-                matchingEvents.stream()
-                    .map(e -> String.format("%s (id=%s, haveFreeSeats=%s, freeSeats=%d)",
-                        e.getTitle(), e.getId(), e.isHaveFreeSeats(), e.getFreeSeats()))
-                    .collect(Collectors.joining("; ")));
-
-            boolean anyFreeSeats = matchingEvents.stream().anyMatch(Event::isHaveFreeSeats);
-            if (!anyFreeSeats) {
-                logger.info("Poll target [{}]: all matching events have no free seats — target lost, advancing",
-                    target);
-                advanceToNextTarget("no free seats");
-                return;
+    /**
+     * Hedged mode: the same checks as {@link #checkAndBookEvent}, then booking POSTs for the top
+     * {@code events.poll.hedge.slots} slots of the candidates race each other, see {@link HedgedBooking}.
+     */
+    private TargetAttempt bookHedged(PollingSession session, List<Event> events) {
+        Long userId = session.getUserId();
+        Deadline deadline = Deadline.after(bookingDeadlineMs);
+        try (Deadline.Scope ignored = deadline.enter()) {
+            String userCookie = userCookieService.getCookie(userId);
+            if (userCookie == null || userCookie.isEmpty()) {
+                logger.warn("No cookie found for user {}, cannot book event", userId);
+                return new TargetAttempt(BookingAttemptResult.FAILED, null);
             }
 
-            for (Event event : matchingEvents) {
-                if (!event.isHaveFreeSeats()) {
+            List<Event> bookable = new ArrayList<>();
+            for (Event event : events) {
+                if (!event.isHaveFreeSeats() || eventHoldService.isEventHeld(event.getId())) {
                     continue;
                 }
-                BookingAttemptResult result = checkAndBookEvent(event);
-                if (result == BookingAttemptResult.BOOKED || result == BookingAttemptResult.ALREADY_BOOKED) {
-                    advanceToNextTarget(result == BookingAttemptResult.BOOKED ? "booked" : "already booked");
-                    return;
+                if (session.isBooked(event.getId())
+                        || bookingService.isUserBooked(event.getId(), userCookie, referer(event), DEFAULT_USER_AGENT)) {
+                    logger.info("User {} is already booked for event {}", userId, event.getTitle());
+                    session.markBooked(event.getId());
+                    return new TargetAttempt(BookingAttemptResult.ALREADY_BOOKED, event);
                 }
-                if (result == BookingAttemptResult.RATE_LIMITED) {
-                    return;
+                bookable.add(event);
+            }
+
+            List<HedgedBooking.Slot> slots = HedgedBooking.rank(bookable, event -> slotsOf(event, userCookie), hedgeSlots);
+            if (slots.isEmpty()) {
+                logger.warn("No available slots for {} candidate event(s)", bookable.size());
+                return new TargetAttempt(BookingAttemptResult.FAILED, null);
+            }
+            logger.info("User {}: hedged booking of {} slot(s): {}", userId, slots.size(), slots.stream()
+                .map(slot -> String.format("%s (id=%s, slot=%d)", slot.event().getTitle(), slot.event().getId(), slot.slotId()))
+                .collect(Collectors.joining("; ")));
+
+            HedgedBooking.Result result = HedgedBooking.race(slots,
+                slot -> deadline.call(() -> bookingService.book(slot.event().getId(), userCookie, referer(slot.event()),
+                    DEFAULT_USER_AGENT, new YandexEventsBookingService.BookingRequest(slot.slotId(), 0, 0))),
+                hedgeExecutor,
+                (extra, winner) -> releaseHedged(userCookie, extra, winner));
+
+            if (result.winner() == null) {
+                if (result.rateLimited()) {
+                    logger.warn("Rate limited during hedged booking, will retry current poll target");
+                    return new TargetAttempt(BookingAttemptResult.RATE_LIMITED, null);
                 }
+                logger.warn("Hedged booking failed for all {} slot(s)", slots.size());
+                // Слоты могли устареть — при следующей попытке запросим слоты заново
+                slots.forEach(slot -> armedBookingService.disarm(slot.event().getId()));
+                return new TargetAttempt(BookingAttemptResult.FAILED, null);
+            }
+
+            Event booked = result.winner().slot().event();
+            logger.info("Successfully booked event: {} (ID: {}, slot {})", booked.getTitle(), booked.getId(),
+                result.winner().slot().slotId());
+            session.markBooked(booked.getId());
+            sendBookingNotification(session.getChatId(), booked.getTitle(), booked.getId());
+            if (bookingDelayMs > 0) {
+                Thread.sleep(bookingDelayMs);
             }
+            return new TargetAttempt(BookingAttemptResult.BOOKED, booked);
+        } catch (RateLimitException e) {
+            logger.warn("Rate limited during hedged booking, will retry current poll target: {}", e.getMessage());
+            return new TargetAttempt(BookingAttemptResult.RATE_LIMITED, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for booking delay");
+            return new TargetAttempt(BookingAttemptResult.FAILED, null);
         } catch (Exception e) {
-            logger.error("Error in event polling task", e);
+            logger.error("Error during hedged booking for user {}: {}", userId, e.getMessage(), e);
+            return new TargetAttempt(BookingAttemptResult.FAILED, null);
         }
     }
 
-    private void advanceToNextTarget(String reason) {
-        if (currentTargetIndex >= pollTargets.size()) {
-            return;
+    /**
+     * Slot IDs of an event: armed ones, otherwise requested from {@code /timeslots}.
+     */
+    private List<Long> slotsOf(Event event, String userCookie) {
+        List<Long> armed = armedBookingService.getArmedSlots(event.getId());
+        if (!armed.isEmpty()) {
+            return armed;
+        }
+        try {
+            return TimeSlots.slotIds(bookingService.getTimeSlots(event.getId(), userCookie, referer(event), DEFAULT_USER_AGENT));
+        } catch (RateLimitException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.warn("Failed to get timeslots for event {} (id={}): {}", event.getTitle(), event.getId(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Unbooks a hedged attempt that succeeded after the winner.
+     */
+    private void releaseHedged(String userCookie, HedgedBooking.Attempt extra, HedgedBooking.Attempt winner) {
+        Event event = extra.slot().event();
+        boolean sameEvent = event.getId().equals(winner.slot().event().getId());
+        String bookingId = YandexEventsBookingService.readId(extra.response());
+        if (bookingId == null && sameEvent) {
+            // Both bookings are of the same event: only the extra slot's booking may be cancelled
+            bookingId = bookingService.getBookingId(event.getId(), extra.slot().slotId(), userCookie, referer(event),
+                DEFAULT_USER_AGENT);
         }
-        PollTarget completed = pollTargets.get(currentTargetIndex);
-        currentTargetIndex++;
-        if (currentTargetIndex < pollTargets.size()) {
-            logger.info("Poll target [{}] done ({}). Next target: [{}] ({}/{})",
-                completed, reason, pollTargets.get(currentTargetIndex),
-                currentTargetIndex + 1, pollTargets.size());
+        logger.info("Hedged booking: slot {} of {} (id={}) was booked too, unbooking it (kept slot {})",
+            extra.slot().slotId(), event.getTitle(), event.getId(), winner.slot().slotId());
+
+        boolean released;
+        if (bookingId != null) {
+            released = bookingService.unbook(event.getId(), bookingId, userCookie, referer(event), DEFAULT_USER_AGENT);
         } else {
-            logger.info("Poll target [{}] done ({}). All {} poll target(s) completed.",
-                completed, reason, pollTargets.size());
+            // Without the booking ID only a different event can be unbooked safely (by its cached or looked up ID)
+            released = !sameEvent && bookingService.unbook(event.getId(), userCookie, referer(event), DEFAULT_USER_AGENT);
+        }
+        if (!released) {
+            logger.error("Failed to unbook extra hedged booking: {} (id={}), slot {}",
+                event.getTitle(), event.getId(), extra.slot().slotId());
+            return;
+        }
+        if (sameEvent) {
+            // The extra booking's response overwrote the winner in the bookings cache
+            bookingService.recordBooked(userCookie, event.getId(), YandexEventsBookingService.readId(winner.response()));
+        }
+    }
+
+    private static String referer(Event event) {
+        int cityId = event.getCity() != null ? event.getCity().getId() : 1;
+        return String.format("https://events.yandex-team.ru/?city=%d&eventId=%s", cityId, event.getId());
+    }
+
+    private String anyCookie(List<PollingSession> group) {
+        for (PollingSession session : group) {
+            String cookie = userCookieService.getCookie(session.getUserId());
+            if (cookie != null && !cookie.isEmpty()) {
+                return cookie;
+            }
         }
+        return null;
+    }
+
+    /**
+     * Armed mode: resolves slot IDs for events of all not yet completed targets of the session,
+     * so that a seat release costs a single book() request. Armed slots are shared by all sessions.
+     *
+     * @return IDs of the events armed for this session
+     */
+    private Set<String> armPendingTargets(PollingSession session, Map<Integer, List<Event>> hitsByTarget) {
+        if (!armedBookingService.isEnabled()) {
+            return Set.of();
+        }
+        String userCookie = userCookieService.getCookie(session.getUserId());
+
+        Map<String, Event> toArm = new LinkedHashMap<>();
+        hitsByTarget.forEach((targetIndex, matched) -> {
+            if (!session.isPending(targetIndex)) {
+                return;
+            }
+            for (Event event : matched) {
+                if (!session.isBooked(event.getId())) {
+                    toArm.putIfAbsent(event.getId(), event);
+                }
+            }
+        });
+        armedBookingService.arm(toArm.values(), userCookie);
+        return toArm.keySet();
     }
 
     private enum BookingAttemptResult {
@@ -266,16 +666,28 @@ public class EventPollingService {
         FAILED
     }
 
+    private record TargetJob(PollingSession session, int target, List<Event> candidates) {
+    }
+
+    private record TargetAttempt(BookingAttemptResult result, Event event) {
+
+        boolean isDone() {
+            return result == BookingAttemptResult.BOOKED || result == BookingAttemptResult.ALREADY_BOOKED;
+        }
+    }
+
     /**
      * Проверяет событие и бронирует его, если оно доступно
      */
-    private BookingAttemptResult checkAndBookEvent(Event event) {
+    private BookingAttemptResult checkAndBookEvent(PollingSession session, Event event) {
         String eventId = event.getId();
         String eventTitle = event.getTitle();
+        Long userId = session.getUserId();
 
-        try {
+        Deadline deadline = Deadline.after(bookingDeadlineMs);
+        try (Deadline.Scope ignored = deadline.enter()) {
             // Если событие уже было забронировано, пропускаем
-            if (bookedEventIds.contains(eventId)) {
+            if (session.isBooked(eventId)) {
                 logger.info("Skipping {} (id={}): already booked in this session", eventTitle, eventId);
                 return BookingAttemptResult.ALREADY_BOOKED;
             }
@@ -290,20 +702,19 @@ public class EventPollingService {
                 return BookingAttemptResult.SKIPPED;
             }
 
-            String userCookie = userCookieService.getCookie(pollingUserId);
+            String userCookie = userCookieService.getCookie(userId);
             if (userCookie == null || userCookie.isEmpty()) {
-                logger.warn("No cookie found for user {}, cannot book event", pollingUserId);
+                logger.warn("No cookie found for user {}, cannot book event", userId);
                 return BookingAttemptResult.FAILED;
             }
 
-            int cityId = event.getCity() != null ? event.getCity().getId() : 1;
-            String referer = String.format("https://events.yandex-team.ru/?city=%d&eventId=%s", cityId, eventId);
+            String referer = referer(event);
 
-            // Проверяем, не зарегистрирован ли уже пользователь
+            // Проверяем, не зарегистрирован ли уже пользователь (по кэшу регистраций)
             boolean isAlreadyBooked = bookingService.isUserBooked(eventId, userCookie, referer, DEFAULT_USER_AGENT);
             if (isAlreadyBooked) {
-                logger.info("User {} is already booked for event {}", pollingUserId, eventTitle);
-                bookedEventIds.add(eventId);
+                logger.info("User {} is already booked for event {}", userId, eventTitle);
+                session.markBooked(eventId);
                 return BookingAttemptResult.ALREADY_BOOKED;
             }
 
@@ -311,24 +722,30 @@ public class EventPollingService {
             logger.info("Attempting to book event: {} (ID: {}, haveFreeSeats={}, freeSeats={})", 
                 eventTitle, eventId, event.isHaveFreeSeats(), event.getFreeSeats());
 
-            // Получаем доступные слоты
-            JsonNode slotsJson = bookingService.getTimeSlots(eventId, userCookie, referer, DEFAULT_USER_AGENT);
-            Long slotId = extractFirstSlotId(slotsJson);
+            // Берем заранее подготовленный слот, иначе запрашиваем доступные слоты
+            Long slotId = armedBookingService.getArmedSlot(eventId);
+            if (slotId != null) {
+                logger.info("Using armed slot {} for event {}", slotId, eventTitle);
+            } else {
+                JsonNode slotsJson = bookingService.getTimeSlots(eventId, userCookie, referer, DEFAULT_USER_AGENT);
+                slotId = TimeSlots.firstSlotId(slotsJson);
+            }
 
             if (slotId == null || slotId <= 0) {
                 logger.warn("No available slots for event {}", eventTitle);
                 return BookingAttemptResult.FAILED;
             }
 
-            // Бронируем событие с retry при 429
+            // Бронируем событие с retry при 429 и таймауте, пока не истек срок попытки. Паузу перед повтором
+            // (Retry-After) выдерживает YandexApiRateLimiter; если лимит не снят, текущая цель повторяется
+            // на следующем тике
             JsonNode response = null;
-            int maxRetries = rateLimitRetryCount;
-            boolean infiniteRetries = maxRetries < 0;
-            int attempt = 1;
-
-            while (infiniteRetries || attempt <= maxRetries) {
+            boolean bookedBeforeRetry = false;
+            int maxAttempts = rateLimitRetryCount < 0 ? Integer.MAX_VALUE : 1 + rateLimitRetryCount;
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
                 try {
                     response = bookingService.book(
+                        eventId,
                         userCookie,
                         referer,
                         DEFAULT_USER_AGENT,
@@ -336,33 +753,44 @@ public class EventPollingService {
                     );
                     break;
                 } catch (RateLimitException e) {
-                    if (!infiniteRetries && attempt >= maxRetries) {
-                        logger.warn("Rate limited (429) for event {} after {} retries, skipping for this cycle",
-                            eventTitle, maxRetries);
+                    // A 429 response is retried: the limiter waits out Retry-After before the next request.
+                    // A refusal of the limiter itself means no token before the deadline, retrying would spin
+                    if (e.isLocalLimit() || attempt >= maxAttempts || deadline.isExpired()) {
+                        logger.warn("Rate limited for event {} after {} attempt(s), skipping for this cycle",
+                            eventTitle, attempt);
+                        throw e;
+                    }
+                    logger.warn("Rate limited for event {}, retry {}/{} ({} ms left)", eventTitle, attempt,
+                        rateLimitRetryCount < 0 ? "until deadline" : rateLimitRetryCount, deadline.remainingMs());
+                } catch (ResourceAccessException e) {
+                    if (!Deadline.isTimeout(e) || attempt >= maxAttempts || deadline.isExpired()) {
                         throw e;
                     }
-                    if (infiniteRetries) {
-                        logger.warn("Rate limited (429) for event {}, waiting {} ms before retry {} (no limit)",
-                            eventTitle, rateLimitRetryDelayMs, attempt);
-                    } else {
-                        logger.warn("Rate limited (429) for event {}, waiting {} ms before retry {}/{}",
-                            eventTitle, rateLimitRetryDelayMs, attempt, maxRetries);
+                    // POST не идемпотентен: запрос мог дойти и создать регистрацию, потерян только ответ.
+                    // Повторяем, только если свежий список регистраций (мимо кэша) ее не содержит;
+                    // если проверить не удалось, исключение завершает попытку без повтора
+                    if (bookingService.isUserBookedFresh(eventId, userCookie, DEFAULT_USER_AGENT)) {
+                        logger.info("Booking request for event {} timed out, but the booking exists", eventTitle);
+                        bookedBeforeRetry = true;
+                        break;
                     }
-                    Thread.sleep(rateLimitRetryDelayMs);
-                    attempt++;
+                    logger.warn("Booking request for event {} timed out, retry {}/{} ({} ms left)", eventTitle, attempt,
+                        rateLimitRetryCount < 0 ? "until deadline" : rateLimitRetryCount, deadline.remainingMs());
                 }
             }
 
-            if (response == null) {
+            if (response == null && !bookedBeforeRetry) {
+                armedBookingService.disarm(eventId);
                 return BookingAttemptResult.FAILED;
             }
 
-            boolean registrationSuccessful = response.has("startDatetime") && response.get("startDatetime").asText() != null;
+            boolean registrationSuccessful = bookedBeforeRetry
+                || response.has("startDatetime") && response.get("startDatetime").asText() != null;
 
             if (registrationSuccessful) {
                 logger.info("Successfully booked event: {} (ID: {})", eventTitle, eventId);
-                bookedEventIds.add(eventId);
-                sendBookingNotification(eventTitle, eventId);
+                session.markBooked(eventId);
+                sendBookingNotification(session.getChatId(), eventTitle, eventId);
 
                 if (bookingDelayMs > 0) {
                     Thread.sleep(bookingDelayMs);
@@ -371,62 +799,31 @@ public class EventPollingService {
             }
 
             logger.warn("Failed to book event: {} (ID: {}). Response: {}", eventTitle, eventId, response);
+            // Слот мог устареть — при следующей попытке запросим слоты заново
+            armedBookingService.disarm(eventId);
             return BookingAttemptResult.FAILED;
         } catch (RateLimitException e) {
             logger.warn("Rate limited for event {}, will retry current poll target: {}", eventTitle, e.getMessage());
             return BookingAttemptResult.RATE_LIMITED;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            logger.warn("Interrupted while waiting for rate limit retry or booking delay");
+            logger.warn("Interrupted while waiting for booking delay");
             return BookingAttemptResult.FAILED;
         } catch (Exception e) {
+            if (Deadline.isTimeout(e)) {
+                logger.warn("Booking attempt for event {} ran out of time ({} ms): {}", eventTitle, bookingDeadlineMs, e.getMessage());
+                return BookingAttemptResult.FAILED;
+            }
             logger.error("Error checking/booking event {}: {}", eventTitle, e.getMessage(), e);
             return BookingAttemptResult.FAILED;
         }
     }
 
-    /**
-     * Извлекает ID первого доступного слота из JSON ответа
-     */
-    private Long extractFirstSlotId(JsonNode slotsJson) {
-        if (slotsJson == null) {
-            return null;
-        }
-        // Вариант 1: массив слотов
-        if (slotsJson.isArray() && slotsJson.size() > 0) {
-            JsonNode first = slotsJson.get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        // Вариант 2: объект с полем result
-        if (slotsJson.has("result") && slotsJson.get("result").isArray() && slotsJson.get("result").size() > 0) {
-            JsonNode first = slotsJson.get("result").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        // Вариант 3: объект с полем timeSlots/timeslots
-        if (slotsJson.has("timeSlots") && slotsJson.get("timeSlots").isArray() && slotsJson.get("timeSlots").size() > 0) {
-            JsonNode first = slotsJson.get("timeSlots").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        if (slotsJson.has("timeslots") && slotsJson.get("timeslots").isArray() && slotsJson.get("timeslots").size() > 0) {
-            JsonNode first = slotsJson.get("timeslots").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        return null;
-    }
-
     /**
      * Отправляет уведомление пользователю о успешной бронировке события
      */
-    private void sendBookingNotification(String eventTitle, String eventId) {
-        if (pollingChatId == null) {
+    private void sendBookingNotification(Long chatId, String eventTitle, String eventId) {
+        if (chatId == null) {
             logger.warn("Cannot send booking notification: chatId is null");
             return;
         }
@@ -448,10 +845,10 @@ public class EventPollingService {
                 eventTitle.replace("*", "\\*").replace("_", "\\_"),
                 eventUrl
             );
-            telegramBot.sendMessageWithMarkdown(pollingChatId, message);
-            logger.info("Sent booking notification to chatId {} for event {}", pollingChatId, eventTitle);
+            telegramBot.sendMessageWithMarkdownAsync(chatId, message);
+            logger.info("Sent booking notification to chatId {} for event {}", chatId, eventTitle);
         } catch (Exception e) {
-            logger.error("Error sending booking notification to chatId {}: {}", pollingChatId, e.getMessage(), e);
+            logger.error("Error sending booking notification to chatId {}: {}", chatId, e.getMessage(), e);
         }
         }
 }
@@ -3,23 +3,42 @@ package com.example.telegrambot.service;
 import com.example.telegrambot.dto.Category;
 import com.example.telegrambot.dto.City;
 import com.example.telegrambot.dto.Event;
+import com.example.telegrambot.dto.EventDates;
 import com.example.telegrambot.dto.EventsResponse;
+import com.example.telegrambot.exception.RateLimitException;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.time.LocalDateTime;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
@@ -28,18 +47,41 @@ import org.springframework.web.client.RestTemplate;
 public class EventsService {
 
     private static final Logger logger = LoggerFactory.getLogger(EventsService.class);
-    private static final String EVENTS_API_URL_BASE = "https://events.yandex-team.ru/back/events/?_limit=100&_page=1&category__id=%s&city__id=%d&group__id=";
+    private static final String EVENTS_API_URL_BASE = "https://events.yandex-team.ru/back/events/?_limit=%d&_page=%d&category__id=%s&city__id=%d&group__id=";
+    private static final int EVENTS_PAGE_SIZE = 100;
+    // Защита от бесконечной пагинации при некорректном значении pages в ответе
+    private static final int MAX_EVENTS_PAGES = 50;
     private static final String EVENT_BY_ID_API_URL = "https://events.yandex-team.ru/back/events/%s/";
     private static final String CITIES_API_URL = "https://events.yandex-team.ru/back/events/cities/";
     private static final String CATEGORIES_API_URL = "https://events.yandex-team.ru/back/events/categories/";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
     private final RestTemplate restTemplate;
     private final UserCookieService userCookieService;
     private final UserPreferencesService userPreferencesService;
     private final ObjectMapper objectMapper;
-
-    public EventsService(UserCookieService userCookieService, UserPreferencesService userPreferencesService) {
-        this.restTemplate = new RestTemplate();
+    private final EventsSnapshotCache snapshotCache = new EventsSnapshotCache();
+    // Изменения между последовательными снимками одного ключа
+    private final EventChangeFeed changeFeed = new EventChangeFeed();
+
+    // Время жизни снимка списка событий; в пределах TTL повторные запросы с тем же городом/категориями не уходят в API
+    @Value("${events.api.snapshot-ttl-ms:900}")
+    private long snapshotTtlMs = 900;
+
+    // Сколько страниц списка событий (начиная со второй) загружается одновременно
+    @Value("${events.api.page-fetch-parallelism:4}")
+    private int pageFetchParallelism = 4;
+
+    private final ExecutorService pageFetchExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "events-page-fetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EventsService(UserCookieService userCookieService,
+                         UserPreferencesService userPreferencesService,
+                         ClientHttpRequestFactory yandexRequestFactory) {
+        this.restTemplate = new RestTemplate(yandexRequestFactory);
         this.userCookieService = userCookieService;
         this.userPreferencesService = userPreferencesService;
         this.objectMapper = new ObjectMapper();
@@ -56,24 +98,73 @@ public class EventsService {
         return getEvents(cookies, null, null);
     }
 
+    /**
+     * Возвращает список событий для города и набора категорий.
+     * Ответ кешируется на {@code events.api.snapshot-ttl-ms} и разделяется между всеми
+     * вызывающими с тем же (cityId, categoryIds); параллельные запросы ждут один общий запрос.
+     * Общий запрос выполняется с кукой первого вызывающего, поэтому список, полученный по сессии
+     * одного пользователя, видят и другие; если общий запрос не удался, вызывающие с другой кукой
+     * повторяют его со своей. Возвращаемый список только для чтения.
+     */
     public List<Event> getEvents(String cookies, Integer cityId, Set<Integer> categoryIds) {
-        try {
-            // Используем сохраненный город пользователя или дефолтный (1)
-            int selectedCityId = (cityId != null && cityId > 0) ? cityId : 1;
+        return getEvents(cookies, snapshotKey(cityId, categoryIds));
+    }
 
-            // Формируем строку категорий для URL
-            String categoryParam = "";
-            if (categoryIds != null && !categoryIds.isEmpty()) {
-                // Преобразуем Set в строку через запятую
-                categoryParam = categoryIds.stream()
-                    .map(String::valueOf)
-                    .collect(Collectors.joining(","));
+    List<Event> getEvents(String cookies, EventsSnapshotCache.Key key) {
+        return getEvents(cookies, key, snapshotTtlMs);
+    }
+
+    /**
+     * То же, но снимок старше {@code maxAgeMs} не используется (например, при опросе чаще, чем TTL снимка).
+     */
+    List<Event> getEvents(String cookies, EventsSnapshotCache.Key key, long maxAgeMs) {
+        return snapshotCache.get(key, Math.min(snapshotTtlMs, maxAgeMs), cookies, () -> {
+            List<Event> events = fetchEvents(cookies, key);
+            if (events != null) {
+                changeFeed.record(key, events);
             }
+            return events;
+        });
+    }
+
+    /**
+     * Изменения снимков списка событий для ключа после {@code cursor}, см. {@link EventChangeFeed}.
+     */
+    EventChangeFeed.Batch changesSince(EventsSnapshotCache.Key key, long cursor) {
+        return changeFeed.since(key, cursor);
+    }
+
+    /**
+     * Ключ снимка списка событий пользователя: пользователи с одинаковыми городом и категориями
+     * получают один и тот же снимок.
+     */
+    EventsSnapshotCache.Key snapshotKey(Long userId) {
+        return snapshotKey(
+            userId != null ? userPreferencesService.getCity(userId) : null,
+            userId != null ? userPreferencesService.getCategories(userId) : null);
+    }
 
-            String eventsUrl = String.format(EVENTS_API_URL_BASE, categoryParam, selectedCityId);
+    private static EventsSnapshotCache.Key snapshotKey(Integer cityId, Set<Integer> categoryIds) {
+        // Используем сохраненный город пользователя или дефолтный (1)
+        int selectedCityId = (cityId != null && cityId > 0) ? cityId : 1;
+        return EventsSnapshotCache.Key.of(selectedCityId, categoryIds);
+    }
+
+    /**
+     * Загружает список событий из API без кеша.
+     *
+     * @return список событий или null при ошибке запроса
+     */
+    private List<Event> fetchEvents(String cookies, EventsSnapshotCache.Key key) {
+        try {
+            int selectedCityId = key.cityId();
+
+            // Формируем строку категорий для URL
+            String categoryParam = key.categoryIds().stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
 
             HttpHeaders headers = createHeaders(cookies, selectedCityId);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
 
             if (cookies != null && !cookies.isEmpty()) {
                 logger.debug("Making request with cookies (length: {}), city {}, categories {}",
@@ -82,45 +173,38 @@ public class EventsService {
                 logger.warn("Making request without cookies - this may result in authorization error");
             }
 
-            ResponseEntity<String> rawResponse = restTemplate.exchange(
-                eventsUrl,
-                HttpMethod.GET,
-                entity,
-                String.class
-            );
-
-            // Проверяем, что ответ действительно JSON
-            String responseBody = rawResponse.getBody();
-            if (responseBody != null && responseBody.trim().startsWith("<")) {
-                logger.error("API returned HTML instead of JSON. Response starts with: {}",
-                    responseBody.substring(0, Math.min(200, responseBody.length())));
-                logger.error("This usually means the cookie is invalid or expired");
+            // Первая страница сообщает общее число страниц, остальные загружаем параллельно
+            EventsResponse firstPage = fetchJson(eventsPageUrl(1, categoryParam, selectedCityId), headers, EventsResponse.class);
+            if (firstPage == null || firstPage.getResult() == null) {
                 return new ArrayList<>();
             }
 
-            // Парсим JSON вручную для лучшей обработки ошибок
-            ResponseEntity<EventsResponse> response = restTemplate.exchange(
-                eventsUrl,
-                HttpMethod.GET,
-                entity,
-                EventsResponse.class
-            );
-
-            EventsResponse eventsResponse = response.getBody();
-            List<Event> events = new ArrayList<>();
-            if (eventsResponse != null && eventsResponse.getResult() != null) {
-                events = eventsResponse.getResult();
-                logger.info("Successfully retrieved {} events for city {} and categories {}",
-                    events.size(), selectedCityId, categoryParam.isEmpty() ? "all" : categoryParam);
+            int pages = Math.min(firstPage.getPages(), MAX_EVENTS_PAGES);
+            if (firstPage.getPages() > MAX_EVENTS_PAGES) {
+                logger.warn("Events API reports {} pages, fetching only the first {}", firstPage.getPages(), MAX_EVENTS_PAGES);
             }
 
+            List<Event> events = firstPage.getResult();
+            if (pages > 1) {
+                events = mergePages(firstPage.getResult(), fetchRemainingPages(pages, categoryParam, selectedCityId, headers));
+            }
+
+            logger.info("Successfully retrieved {} events ({} page(s)) for city {} and categories {}",
+                events.size(), Math.max(pages, 1), selectedCityId, categoryParam.isEmpty() ? "all" : categoryParam);
             return events;
+        } catch (HtmlResponseException e) {
+            logger.error("API returned HTML instead of JSON. Response starts with: {}", e.getBodyPreview());
+            logger.error("This usually means the cookie is invalid or expired");
+            return null;
+        } catch (RateLimitException e) {
+            logger.warn("Events list request throttled: {}", e.getMessage());
+            return null;
         } catch (RestClientException e) {
             logger.error("Error fetching events from API", e);
             if (e.getMessage() != null && e.getMessage().contains("text/html")) {
                 logger.error("API returned HTML page - cookie is likely invalid or expired. User needs to provide a fresh cookie.");
             }
-            return new ArrayList<>();
+            return null;
         }
     }
 
@@ -130,38 +214,19 @@ public class EventsService {
      */
     public void validateCookie(String cookies) throws Exception {
         int selectedCityId = 1; // Use default city for validation
-        String eventsUrl = String.format(EVENTS_API_URL_BASE, "", selectedCityId);
+        String eventsUrl = eventsPageUrl(1, "", selectedCityId);
 
         HttpHeaders headers = createHeaders(cookies, selectedCityId);
-        HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<String> rawResponse = restTemplate.exchange(
-                eventsUrl,
-                HttpMethod.GET,
-                entity,
-                String.class
-            );
-
-            // Проверяем, что ответ действительно JSON
-            String responseBody = rawResponse.getBody();
-            if (responseBody != null && responseBody.trim().startsWith("<")) {
-                throw new IllegalStateException("API returned HTML instead of JSON. Cookie is invalid or expired.");
-            }
-
-            // Try to parse as JSON to ensure it's valid
-            ResponseEntity<EventsResponse> response = restTemplate.exchange(
-                eventsUrl,
-                HttpMethod.GET,
-                entity,
-                EventsResponse.class
-            );
-
-            if (response.getBody() == null) {
+            EventsResponse response = fetchJson(eventsUrl, headers, EventsResponse.class);
+            if (response == null) {
                 throw new IllegalStateException("API returned null response. Cookie may be invalid.");
             }
 
             logger.info("Cookie validation successful. API responded with valid JSON.");
+        } catch (HtmlResponseException e) {
+            throw new IllegalStateException("API returned HTML instead of JSON. Cookie is invalid or expired.", e);
         } catch (org.springframework.web.client.ResourceAccessException e) {
             throw new IllegalStateException("Network error during cookie validation: " + e.getMessage() + ". Cookie may be invalid or network unreachable.", e);
         } catch (org.springframework.web.client.HttpClientErrorException e) {
@@ -192,6 +257,136 @@ public class EventsService {
         return headers;
     }
 
+    private String eventsPageUrl(int page, String categoryParam, int cityId) {
+        return String.format(EVENTS_API_URL_BASE, EVENTS_PAGE_SIZE, page, categoryParam, cityId);
+    }
+
+    /**
+     * Загружает страницы 2..pages параллельно, не более {@code events.api.page-fetch-parallelism} запросов одновременно.
+     * Ошибка любой страницы, в том числе пустой ответ, пробрасывается наружу: неполный список событий
+     * не кешируется и не попадает в ленту изменений.
+     *
+     * @return события по страницам в порядке номеров страниц (индекс 0 — страница 2)
+     */
+    private List<List<Event>> fetchRemainingPages(int pages, String categoryParam, int cityId, HttpHeaders headers) {
+        int remaining = pages - 1;
+        List<List<Event>> pageResults = new ArrayList<>(Collections.nCopies(remaining, List.of()));
+        AtomicInteger nextPage = new AtomicInteger(2);
+        int workers = Math.max(1, Math.min(pageFetchParallelism, remaining));
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                int page;
+                while ((page = nextPage.getAndIncrement()) <= pages) {
+                    EventsResponse response = fetchJson(eventsPageUrl(page, categoryParam, cityId), headers, EventsResponse.class);
+                    if (response == null || response.getResult() == null) {
+                        // Пропущенная страница сделала бы список неполным, а её события — «исчезнувшими»
+                        throw new RestClientException("Events API returned an empty response for page " + page + " of " + pages);
+                    }
+                    pageResults.set(page - 2, response.getResult());
+                }
+            }, pageFetchExecutor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return pageResults;
+    }
+
+    /**
+     * Склеивает страницы в один список, сохраняя порядок API.
+     * Событие, сдвинувшееся между страницами за время загрузки, попадает в список один раз.
+     */
+    static List<Event> mergePages(List<Event> firstPage, List<List<Event>> otherPages) {
+        Map<String, Event> merged = new LinkedHashMap<>();
+        for (Event event : firstPage) {
+            merged.putIfAbsent(event.getId(), event);
+        }
+        for (List<Event> page : otherPages) {
+            for (Event event : page) {
+                merged.putIfAbsent(event.getId(), event);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pageFetchExecutor.shutdownNow();
+    }
+
+    <T> T fetchJson(String url, HttpHeaders headers, Class<T> type) {
+        return fetchJson(url, headers, objectMapper.constructType(type));
+    }
+
+    private <T> T fetchJson(String url, HttpHeaders headers, TypeReference<T> type) {
+        return fetchJson(url, headers, objectMapper.constructType(type));
+    }
+
+    /**
+     * Выполняет один GET-запрос и сразу разбирает тело ответа в DTO.
+     * HTML-страница (обычно логин при протухшей куке) определяется по Content-Type
+     * или по первому значащему байту тела и приводит к {@link HtmlResponseException}.
+     *
+     * @return разобранный ответ или null, если тело пустое
+     */
+    private <T> T fetchJson(String url, HttpHeaders headers, JavaType type) {
+        return restTemplate.execute(
+            url,
+            HttpMethod.GET,
+            request -> request.getHeaders().putAll(headers),
+            response -> readJsonBody(url, response, type)
+        );
+    }
+
+    private <T> T readJsonBody(String url, ClientHttpResponse response, JavaType type) throws IOException {
+        byte[] body = StreamUtils.copyToByteArray(response.getBody());
+        int start = 0;
+        while (start < body.length && Character.isWhitespace(body[start])) {
+            start++;
+        }
+        if (start == body.length) {
+            return null;
+        }
+
+        MediaType contentType = response.getHeaders().getContentType();
+        boolean htmlContentType = contentType != null && MediaType.TEXT_HTML.isCompatibleWith(contentType);
+        if (htmlContentType || body[start] == '<') {
+            String preview = new String(body, start, Math.min(200, body.length - start), StandardCharsets.UTF_8);
+            throw new HtmlResponseException(url, preview);
+        }
+
+        try {
+            return objectMapper.readValue(body, start, body.length - start, type);
+        } catch (JsonProcessingException e) {
+            throw new RestClientException("Failed to parse JSON response from " + url, e);
+        }
+    }
+
+    /**
+     * API вернул HTML вместо JSON — как правило, кука невалидна или протухла.
+     */
+    static class HtmlResponseException extends RestClientException {
+
+        private final String bodyPreview;
+
+        HtmlResponseException(String url, String bodyPreview) {
+            super("API returned HTML instead of JSON for " + url);
+            this.bodyPreview = bodyPreview;
+        }
+
+        String getBodyPreview() {
+            return bodyPreview;
+        }
+    }
+
     public String formatEventsMessage(List<Event> events) {
         if (events == null || events.isEmpty()) {
             return "Событий не найдено.";
@@ -224,11 +419,8 @@ public class EventsService {
             }
 
             // Даты
-            if (event.getDatesOf() != null && !event.getDatesOf().isEmpty()) {
-                String dates = event.getDatesOf().stream()
-                    .map(dateStr -> formatDate(dateStr))
-                    .collect(Collectors.joining(", "));
-                message.append("📆 ").append(dates).append("\n");
+            if (!event.getDates().isEmpty()) {
+                message.append("📆 ").append(formatDates(event.getDates())).append("\n");
             }
 
             // Места
@@ -289,11 +481,8 @@ public class EventsService {
         }
 
         // Даты
-        if (event.getDatesOf() != null && !event.getDatesOf().isEmpty()) {
-            String dates = event.getDatesOf().stream()
-                .map(dateStr -> formatDate(dateStr))
-                .collect(Collectors.joining(", "));
-            message.append("📆 ").append(dates).append("\n");
+        if (!event.getDates().isEmpty()) {
+            message.append("📆 ").append(formatDates(event.getDates())).append("\n");
         }
 
         // Места
@@ -345,7 +534,6 @@ public class EventsService {
     public List<City> getCities(String cookies) {
         try {
             HttpHeaders headers = createHeaders(cookies, 1); // Используем дефолтный город для headers
-            HttpEntity<String> entity = new HttpEntity<>(headers);
 
             if (cookies != null && !cookies.isEmpty()) {
                 logger.debug("Making request for cities with cookies (length: {})", cookies.length());
@@ -353,30 +541,15 @@ public class EventsService {
                 logger.warn("Making request for cities without cookies - this may result in authorization error");
             }
 
-            ResponseEntity<String> rawResponse = restTemplate.exchange(
-                CITIES_API_URL,
-                HttpMethod.GET,
-                entity,
-                String.class
-            );
-
-            // Проверяем, что ответ действительно JSON
-            String responseBody = rawResponse.getBody();
-            if (responseBody != null && responseBody.trim().startsWith("<")) {
-                logger.error("Cities API returned HTML instead of JSON. Response starts with: {}",
-                    responseBody.substring(0, Math.min(200, responseBody.length())));
-                logger.error("This usually means the cookie is invalid or expired");
+            List<City> cities = fetchJson(CITIES_API_URL, headers, new TypeReference<List<City>>() {});
+            if (cities == null) {
                 return new ArrayList<>();
             }
-
-            // Парсим JSON как массив городов
-            if (responseBody != null && !responseBody.trim().isEmpty()) {
-                List<City> cities = objectMapper.readValue(responseBody,
-                    new TypeReference<List<City>>() {});
-                logger.info("Successfully retrieved {} cities", cities.size());
-                return cities;
-            }
-
+            logger.info("Successfully retrieved {} cities", cities.size());
+            return cities;
+        } catch (HtmlResponseException e) {
+            logger.error("Cities API returned HTML instead of JSON. Response starts with: {}", e.getBodyPreview());
+            logger.error("This usually means the cookie is invalid or expired");
             return new ArrayList<>();
         } catch (RestClientException e) {
             logger.error("Error fetching cities from API", e);
@@ -401,7 +574,6 @@ public class EventsService {
     public List<Category> getCategories(String cookies) {
         try {
             HttpHeaders headers = createHeaders(cookies, 1); // Используем дефолтный город для headers
-            HttpEntity<String> entity = new HttpEntity<>(headers);
 
             if (cookies != null && !cookies.isEmpty()) {
                 logger.debug("Making request for categories with cookies (length: {})", cookies.length());
@@ -409,30 +581,15 @@ public class EventsService {
                 logger.warn("Making request for categories without cookies - this may result in authorization error");
             }
 
-            ResponseEntity<String> rawResponse = restTemplate.exchange(
-                CATEGORIES_API_URL,
-                HttpMethod.GET,
-                entity,
-                String.class
-            );
-
-            // Проверяем, что ответ действительно JSON
-            String responseBody = rawResponse.getBody();
-            if (responseBody != null && responseBody.trim().startsWith("<")) {
-                logger.error("Categories API returned HTML instead of JSON. Response starts with: {}",
-                    responseBody.substring(0, Math.min(200, responseBody.length())));
-                logger.error("This usually means the cookie is invalid or expired");
+            List<Category> categories = fetchJson(CATEGORIES_API_URL, headers, new TypeReference<List<Category>>() {});
+            if (categories == null) {
                 return new ArrayList<>();
             }
-
-            // Парсим JSON как массив категорий
-            if (responseBody != null && !responseBody.trim().isEmpty()) {
-                List<Category> categories = objectMapper.readValue(responseBody,
-                    new TypeReference<List<Category>>() {});
-                logger.info("Successfully retrieved {} categories", categories.size());
-                return categories;
-            }
-
+            logger.info("Successfully retrieved {} categories", categories.size());
+            return categories;
+        } catch (HtmlResponseException e) {
+            logger.error("Categories API returned HTML instead of JSON. Response starts with: {}", e.getBodyPreview());
+            logger.error("This usually means the cookie is invalid or expired");
             return new ArrayList<>();
         } catch (RestClientException e) {
             logger.error("Error fetching categories from API", e);
@@ -457,7 +614,8 @@ public class EventsService {
 
     /**
      * Получает событие по ID из API
-     * Использует альтернативные методы, так как прямой endpoint /back/events/{eventId}/ не работает
+     * Использует альтернативные методы, так как прямой endpoint /back/events/{eventId}/ не работает:
+     * сначала кешированный список событий, затем query параметры
      *
      * @param eventId ID события
      * @param cookies Куки для авторизации
@@ -466,15 +624,15 @@ public class EventsService {
     public Event getEventById(String eventId, String cookies) {
         logger.debug("Fetching event by ID: {}", eventId);
 
-        // Пробуем через query параметры
-        Event event = getEventByIdViaQueryParam(eventId, cookies);
+        // Сначала ищем в общем снимке списка событий (обычно уже закеширован)
+        Event event = getEventByIdFromList(eventId, cookies);
         if (event != null) {
             return event;
         }
 
-        // Если не получилось, ищем в списке событий
-        logger.debug("Event {} not found via query params, trying events list", eventId);
-        return getEventByIdFromList(eventId, cookies);
+        // Если не получилось, пробуем через query параметры
+        logger.debug("Event {} not found in events list, trying query params", eventId);
+        return getEventByIdViaQueryParam(eventId, cookies);
     }
 
     /**
@@ -555,7 +713,7 @@ public class EventsService {
 
     /**
      * Получает событие по ID, ища его в списке всех событий
-     * Используется как fallback, когда прямой endpoint возвращает 404
+     * Список берется из общего кеша снимков, поэтому повторные поиски не делают новых запросов
      *
      * @param eventId ID события
      * @param cookies Куки для авторизации
@@ -577,7 +735,7 @@ public class EventsService {
                 logger.debug("Found event {} in events list: {}", eventId, foundEvent.getTitle());
                 return foundEvent;
             } else {
-                logger.warn("Event {} not found in events list either", eventId);
+                logger.debug("Event {} not found in events list", eventId);
                 return null;
             }
         } catch (Exception e) {
@@ -586,20 +744,13 @@ public class EventsService {
         }
     }
 
-    private String formatDate(String dateString) {
-        try {
-            // Parse ISO 8601 format: 2025-11-05T18:00:00Z
-            String dateStr = dateString;
-            if (dateStr.endsWith("Z")) {
-                dateStr = dateStr.replace("Z", "");
-            }
-            LocalDateTime dateTime = LocalDateTime.parse(dateStr);
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
-            return dateTime.format(formatter);
-        } catch (DateTimeParseException e) {
-            logger.warn("Failed to parse date: {}", dateString);
-            return dateString;
+    private String formatDates(EventDates dates) {
+        StringJoiner joined = new StringJoiner(", ");
+        for (int i = 0; i < dates.size(); i++) {
+            // Wall-clock time as the API sent it (e.g. 2025-11-05T18:00:00Z -> 05.11.2025 18:00)
+            joined.add(dates.isValid(i) ? DATE_FORMATTER.format(dates.wallClock(i)) : dates.raw(i));
         }
+        return joined.toString();
     }
 
 }
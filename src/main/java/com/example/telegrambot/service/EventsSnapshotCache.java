@@ -0,0 +1,166 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of {@code /back/events/} listings keyed by city and category set.
+ * Concurrent callers asking for the same key while a load is in flight wait for that
+ * load instead of issuing their own request (single-flight).
+ * <p>
+ * The cached list is shared between callers and must be treated as read-only.
+ * <p>
+ * Sharing crosses users: a listing loaded with one user's cookie is served to every user
+ * with the same city and categories until it expires. This is acceptable because the listing
+ * itself is the same for everyone; per-user fields of {@link Event} (e.g. {@code booked}) are
+ * not reliable here, booking status is resolved through {@link YandexEventsBookingService}.
+ * A failed load is not shared across sessions: callers whose session differs from the failed
+ * loader's retry, still one load at a time per key (see {@link #get}).
+ * <p>
+ * Snapshots older than {@link #RETENTION_MS} are evicted, so keys of users who changed
+ * their city or categories do not accumulate.
+ */
+final class EventsSnapshotCache {
+
+    // Snapshots older than this are dropped when a new key is cached (far above any TTL in use)
+    static final long RETENTION_MS = 60_000;
+
+    private final Map<Key, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<Key, Load> inFlight = new ConcurrentHashMap<>();
+    private final long retentionMs;
+
+    EventsSnapshotCache() {
+        this(RETENTION_MS);
+    }
+
+    EventsSnapshotCache(long retentionMs) {
+        this.retentionMs = retentionMs;
+    }
+
+    /**
+     * A load in flight; {@code events} completes with null if the load failed.
+     */
+    private record Load(Object session, CompletableFuture<List<Event>> events) {
+    }
+
+    /**
+     * Same as {@link #get(Key, long, Object, Supplier)} for callers without a session of their own.
+     */
+    List<Event> get(Key key, long ttlMs, Supplier<List<Event>> loader) {
+        return get(key, ttlMs, null, loader);
+    }
+
+    /**
+     * Returns a snapshot not older than {@code ttlMs}, loading it if needed.
+     * A {@code null} result from the loader means the request failed: it is not cached.
+     * Callers that waited for a failed load of the same {@code session} (e.g. the same cookie)
+     * get the same outcome: an empty list, or the loader's exception rethrown. Callers with another
+     * session retry through a new shared load with their own {@code loader}, so one expired cookie
+     * does not empty the listing for everybody on the key, and there is still one request per key at a time.
+     *
+     * @param session identifies whose credentials {@code loader} uses; compared with {@code equals}
+     */
+    List<Event> get(Key key, long ttlMs, Object session, Supplier<List<Event>> loader) {
+        while (true) {
+            Snapshot cached = snapshots.get(key);
+            if (cached != null && cached.isFresh(ttlMs)) {
+                return cached.events();
+            }
+
+            Load load = new Load(session, new CompletableFuture<>());
+            Load running = inFlight.putIfAbsent(key, load);
+            if (running == null) {
+                return load(key, ttlMs, load, loader);
+            }
+
+            boolean sameSession = Objects.equals(running.session(), session);
+            List<Event> shared;
+            try {
+                shared = running.events().join();
+            } catch (CompletionException e) {
+                if (sameSession) {
+                    throw e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+                shared = null;
+            }
+            if (shared != null) {
+                return shared;
+            }
+            if (sameSession) {
+                return Collections.emptyList();
+            }
+            // The failed load is already out of inFlight: the next pass joins or starts a new one
+        }
+    }
+
+    private List<Event> load(Key key, long ttlMs, Load load, Supplier<List<Event>> loader) {
+        List<Event> events;
+        try {
+            // Another caller may have finished loading between our check and putIfAbsent
+            Snapshot cached = snapshots.get(key);
+            events = cached != null && cached.isFresh(ttlMs) ? cached.events() : store(key, loader.get());
+        } catch (RuntimeException e) {
+            inFlight.remove(key, load);
+            load.events().completeExceptionally(e);
+            throw e;
+        }
+        // Removed before completing, so a retrying waiter never finds this load again
+        inFlight.remove(key, load);
+        load.events().complete(events);
+        return events != null ? events : Collections.emptyList();
+    }
+
+    /**
+     * Caches a successful load. Snapshots past the retention are evicted when a new key is added,
+     * the only way the map grows.
+     *
+     * @return the cached read-only list, or null if the load failed
+     */
+    private List<Event> store(Key key, List<Event> loaded) {
+        if (loaded == null) {
+            return null;
+        }
+        List<Event> events = Collections.unmodifiableList(loaded);
+        if (snapshots.put(key, new Snapshot(events, System.nanoTime())) == null) {
+            snapshots.values().removeIf(snapshot -> !snapshot.isFresh(retentionMs));
+        }
+        return events;
+    }
+
+    void invalidateAll() {
+        snapshots.clear();
+    }
+
+    int size() {
+        return snapshots.size();
+    }
+
+    record Key(int cityId, List<Integer> categoryIds) {
+
+        /**
+         * Builds a key with sorted, de-duplicated category IDs so that {3,13} and {13,3} share a snapshot.
+         */
+        static Key of(int cityId, Collection<Integer> categoryIds) {
+            List<Integer> sorted = categoryIds == null
+                ? List.of()
+                : categoryIds.stream().distinct().sorted().toList();
+            return new Key(cityId, sorted);
+        }
+    }
+
+    private record Snapshot(List<Event> events, long loadedAtNanos) {
+
+        boolean isFresh(long ttlMs) {
+            return System.nanoTime() - loadedAtNanos < ttlMs * 1_000_000L;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import com.example.telegrambot.exception.RateLimitException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Hedged booking: booking POSTs for the top-K acceptable slots race each other.
+ * <p>
+ * Slots are ranked by the order the user gave (poll target priority, then the order of matching
+ * events) and, within an event, by the order of the {@code /timeslots} response; each slot is posted
+ * at most once. The first successful booking wins. Attempts that have not started yet are skipped,
+ * and attempts already in flight that succeed as well are handed to {@code release} to be unbooked.
+ */
+final class HedgedBooking {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgedBooking.class);
+
+    record Slot(Event event, long slotId) {
+    }
+
+    /**
+     * Outcome of one POST: the API response, or the error it failed with.
+     */
+    record Attempt(Slot slot, JsonNode response, RuntimeException error) {
+
+        boolean isBooked() {
+            return response != null && response.hasNonNull("startDatetime");
+        }
+
+        boolean isRateLimited() {
+            return error instanceof RateLimitException;
+        }
+    }
+
+    /**
+     * @param winner      first successful attempt, or null if none succeeded
+     * @param rateLimited whether any attempt was rejected by the rate limit
+     */
+    record Result(Attempt winner, boolean rateLimited) {
+    }
+
+    private HedgedBooking() {
+    }
+
+    /**
+     * @param events   candidate events in priority order
+     * @param slotsOf  slot IDs of an event in API order
+     * @param maxSlots K, the number of slots to race
+     * @return top {@code maxSlots} distinct slots
+     */
+    static List<Slot> rank(List<Event> events, Function<Event, List<Long>> slotsOf, int maxSlots) {
+        List<Slot> ranked = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Event event : events) {
+            if (ranked.size() >= maxSlots) {
+                break;
+            }
+            for (long slotId : slotsOf.apply(event)) {
+                if (ranked.size() >= maxSlots) {
+                    break;
+                }
+                if (slotId > 0 && seen.add(slotId)) {
+                    ranked.add(new Slot(event, slotId));
+                }
+            }
+        }
+        return ranked;
+    }
+
+    /**
+     * Posts all {@code slots} on {@code executor} and waits for the first success or for all to fail.
+     *
+     * @param book    one booking POST; may throw (e.g. {@link RateLimitException})
+     * @param release called, on an executor thread, with every successful attempt other than the winner
+     *                and the winner
+     */
+    static Result race(List<Slot> slots, Function<Slot, JsonNode> book, Executor executor,
+                       BiConsumer<Attempt, Attempt> release) {
+        if (slots.isEmpty()) {
+            return new Result(null, false);
+        }
+        CompletableFuture<Attempt> winner = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(slots.size());
+        AtomicBoolean rateLimited = new AtomicBoolean();
+
+        for (Slot slot : slots) {
+            Runnable attempt = () -> {
+                try {
+                    // Not started before the race was decided: the POST is not needed any more
+                    if (winner.isDone()) {
+                        return;
+                    }
+                    Attempt result = post(slot, book);
+                    if (result.isBooked()) {
+                        // The race cannot end with null while this attempt is running, so the winner is set
+                        if (!winner.complete(result)) {
+                            release.accept(result, winner.join());
+                        }
+                    } else if (result.isRateLimited()) {
+                        rateLimited.set(true);
+                    }
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        winner.complete(null);
+                    }
+                }
+            };
+            try {
+                executor.execute(attempt);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Hedged booking of slot {} rejected: {}", slot.slotId(), e.getMessage());
+                if (remaining.decrementAndGet() == 0) {
+                    winner.complete(null);
+                }
+            }
+        }
+        return new Result(winner.join(), rateLimited.get());
+    }
+
+    private static Attempt post(Slot slot, Function<Slot, JsonNode> book) {
+        try {
+            return new Attempt(slot, book.apply(slot), null);
+        } catch (RuntimeException e) {
+            return new Attempt(slot, null, e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.telegrambot.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over a fixed set of substrings.
+ * <p>
+ * Built once from all patterns; {@link #find(String)} scans a text in a single pass and reports
+ * every pattern it contains, so the cost per title does not grow with the number of patterns.
+ * Patterns and texts are compared after {@link #normalize(String)}.
+ */
+final class MultiPatternMatcher {
+
+    private static final int ROOT = 0;
+
+    // Per state: sorted transition characters and target states
+    private final char[][] transitionChars;
+    private final int[][] transitionTargets;
+    private final int[] fail;
+    // Per state: IDs of all patterns ending here, including those reached via failure links
+    private final int[][] outputs;
+    private final int patternCount;
+
+    private MultiPatternMatcher(char[][] transitionChars, int[][] transitionTargets, int[] fail, int[][] outputs, int patternCount) {
+        this.transitionChars = transitionChars;
+        this.transitionTargets = transitionTargets;
+        this.fail = fail;
+        this.outputs = outputs;
+        this.patternCount = patternCount;
+    }
+
+    /**
+     * Lower-cases text the same way poll targets are parsed; null becomes an empty string.
+     */
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Compiles the automaton. Pattern IDs are indexes in {@code patterns}; empty patterns match every text.
+     */
+    static MultiPatternMatcher compile(List<String> patterns) {
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(new ArrayList<>());
+
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = normalize(patterns.get(id));
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    ends.add(new ArrayList<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            ends.get(state).add(id);
+        }
+
+        int states = trie.size();
+        char[][] chars = new char[states][];
+        int[][] targets = new int[states][];
+        for (int state = 0; state < states; state++) {
+            TreeMap<Character, Integer> edges = trie.get(state);
+            chars[state] = new char[edges.size()];
+            targets[state] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                chars[state][i] = edge.getKey();
+                targets[state][i] = edge.getValue();
+                i++;
+            }
+        }
+
+        // Failure links and merged outputs in BFS order (a state's failure target is always shallower)
+        int[] fail = new int[states];
+        int[][] outputs = new int[states][];
+        outputs[ROOT] = toArray(ends.get(ROOT));
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[ROOT]) {
+            fail[child] = ROOT;
+            queue.add(child);
+        }
+        MultiPatternMatcher partial = new MultiPatternMatcher(chars, targets, fail, outputs, patterns.size());
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] fallback = outputs[fail[state]];
+            int[] own = toArray(ends.get(state));
+            int[] merged = Arrays.copyOf(own, own.length + fallback.length);
+            System.arraycopy(fallback, 0, merged, own.length, fallback.length);
+            outputs[state] = merged;
+
+            for (int i = 0; i < chars[state].length; i++) {
+                char c = chars[state][i];
+                int child = targets[state][i];
+                int f = fail[state];
+                int next;
+                while ((next = partial.transition(f, c)) < 0 && f != ROOT) {
+                    f = fail[f];
+                }
+                fail[child] = next >= 0 ? next : ROOT;
+                queue.add(child);
+            }
+        }
+        return partial;
+    }
+
+    /**
+     * @return IDs of all patterns contained in {@code text} (normalized before matching)
+     */
+    BitSet find(String text) {
+        BitSet found = new BitSet(patternCount);
+        for (int id : outputs[ROOT]) {
+            found.set(id);
+        }
+        String normalized = normalize(text);
+        int state = ROOT;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            int next;
+            while ((next = transition(state, c)) < 0 && state != ROOT) {
+                state = fail[state];
+            }
+            state = next >= 0 ? next : ROOT;
+            for (int id : outputs[state]) {
+                found.set(id);
+            }
+        }
+        return found;
+    }
+
+    int patternCount() {
+        return patternCount;
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(transitionChars[state], c);
+        return index >= 0 ? transitionTargets[state][index] : -1;
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -1,20 +1,24 @@
 package com.example.telegrambot.service;
 
 import com.example.telegrambot.bot.TelegramBot;
+import com.example.telegrambot.config.ExecutionConfig;
+import com.example.telegrambot.config.SchedulingConfig;
 import com.example.telegrambot.dto.Category;
 import com.example.telegrambot.dto.Event;
+import com.example.telegrambot.dto.EventDates;
 import com.example.telegrambot.entity.NextWeekSubscription;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,28 +26,42 @@ import java.util.stream.Collectors;
 public class NextWeekMonitoringService {
 
     private static final Logger logger = LoggerFactory.getLogger(NextWeekMonitoringService.class);
+    private static final long NEXT_WEEK_CHECK_INTERVAL_MS = 5000;
+    private static final long SECONDS_PER_DAY = 86_400;
     private static final String DEFAULT_USER_AGENT = "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/138.0.0.0 YaBrowser/25.8.0.0 Safari/537.36";
     
     // Track which subscriptions have been processed to avoid duplicate bookings
-    private final Set<Long> processedSubscriptions = new HashSet<>();
+    private final Set<Long> processedSubscriptions = ConcurrentHashMap.newKeySet();
+
+    // Compiled title matcher and decoded original date by subscription ID (neither changes after creation)
+    private final Map<Long, CompiledSubscription> compiledSubscriptions = new ConcurrentHashMap<>();
+
+    // Similar events found so far by subscription ID, kept up to date from the events change feed
+    private final Map<Long, SimilarEvents> similarEventsBySubscription = new ConcurrentHashMap<>();
     
     private final NextWeekSubscriptionService subscriptionService;
     private final EventsService eventsService;
     private final YandexEventsBookingService bookingService;
     private final UserCookieService userCookieService;
     private final ApplicationContext applicationContext;
+    private final ScheduledTickMonitor.Task nextWeekTicks;
+    private final ExecutorService ioExecutor;
 
     public NextWeekMonitoringService(
             NextWeekSubscriptionService subscriptionService,
             EventsService eventsService,
             YandexEventsBookingService bookingService,
             UserCookieService userCookieService,
+            ScheduledTickMonitor tickMonitor,
+            @Qualifier(ExecutionConfig.BLOCKING_IO_EXECUTOR) ExecutorService ioExecutor,
             ApplicationContext applicationContext) {
         this.subscriptionService = subscriptionService;
         this.eventsService = eventsService;
         this.bookingService = bookingService;
         this.userCookieService = userCookieService;
         this.applicationContext = applicationContext;
+        this.nextWeekTicks = tickMonitor.fixedRate("next-week-monitoring", NEXT_WEEK_CHECK_INTERVAL_MS);
+        this.ioExecutor = ioExecutor;
     }
 
     private TelegramBot getTelegramBot() {
@@ -53,19 +71,26 @@ public class NextWeekMonitoringService {
     /**
      * Checks for similar events next week every 5 seconds
      */
-    @Scheduled(fixedRate = 5000)
+    @Scheduled(fixedRate = NEXT_WEEK_CHECK_INTERVAL_MS, scheduler = SchedulingConfig.NEXT_WEEK_SCHEDULER)
     public void checkNextWeekEvents() {
+        nextWeekTicks.run(this::checkNextWeekEventsTick);
+    }
+
+    private void checkNextWeekEventsTick() {
         try {
             List<NextWeekSubscription> subscriptions = subscriptionService.getAllActiveSubscriptions();
-            
-            for (NextWeekSubscription subscription : subscriptions) {
+            // Drop matchers of subscriptions deactivated elsewhere (e.g. unsubscribed from the bot)
+            Set<Long> activeIds = subscriptions.stream().map(NextWeekSubscription::getId).collect(Collectors.toSet());
+            compiledSubscriptions.keySet().retainAll(activeIds);
+            similarEventsBySubscription.keySet().retainAll(activeIds);
+
+            // Subscriptions are checked concurrently on the blocking I/O executor (virtual threads if enabled)
+            CompletableFuture<?>[] checks = subscriptions.stream()
                 // Skip if already processed (will be cleared when subscription is deactivated)
-                if (processedSubscriptions.contains(subscription.getId())) {
-                    continue;
-                }
-                
-                checkSubscription(subscription);
-            }
+                .filter(subscription -> !processedSubscriptions.contains(subscription.getId()))
+                .map(subscription -> CompletableFuture.runAsync(() -> checkSubscription(subscription), ioExecutor))
+                .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(checks).join();
         } catch (Exception e) {
             logger.error("Error in next week monitoring task", e);
         }
@@ -84,11 +109,11 @@ public class NextWeekMonitoringService {
                 return;
             }
 
-            // Get current events for the user
-            List<Event> currentEvents = eventsService.getEvents(userId);
-            
-            // Find similar events
-            List<Event> similarEvents = findSimilarEvents(subscription, currentEvents);
+            // Refresh the user's events snapshot, then find similar events among what changed since the last check
+            eventsService.getEvents(userId);
+            EventChangeFeed.Batch batch = eventsService.changesSince(
+                eventsService.snapshotKey(userId), cursorOf(subscription.getId()));
+            List<Event> similarEvents = updateSimilarEvents(subscription, batch);
             
             if (!similarEvents.isEmpty()) {
                 // Found similar event - try to book it
@@ -100,6 +125,8 @@ public class NextWeekMonitoringService {
                 if (booked) {
                     // Mark subscription as processed and deactivate
                     processedSubscriptions.add(subscription.getId());
+                    compiledSubscriptions.remove(subscription.getId());
+                    similarEventsBySubscription.remove(subscription.getId());
                     subscriptionService.deactivateSubscription(subscription.getId());
                     
                     // Notify user
@@ -109,7 +136,7 @@ public class NextWeekMonitoringService {
                         "Это похожее событие на то, на которое вы подписались.",
                         escapeMarkdown(targetEvent.getTitle())
                     );
-                    getTelegramBot().sendMessageWithMarkdown(subscription.getChatId(), message);
+                    getTelegramBot().sendMessageWithMarkdownAsync(subscription.getChatId(), message);
                 }
             }
         } catch (Exception e) {
@@ -117,10 +144,52 @@ public class NextWeekMonitoringService {
         }
     }
 
+    private long cursorOf(Long subscriptionId) {
+        SimilarEvents similar = similarEventsBySubscription.get(subscriptionId);
+        return similar != null ? similar.cursor() : EventChangeFeed.NO_CURSOR;
+    }
+
+    /**
+     * Applies the batch to the subscription's similar events: only appeared events are matched and
+     * disappeared ones dropped (matching does not depend on seats). Without a complete batch (first check,
+     * or the subscription fell behind the feed) the whole snapshot is matched.
+     *
+     * @return similar events in the current snapshot: API order after a full match, newly appeared ones last
+     */
+    private List<Event> updateSimilarEvents(NextWeekSubscription subscription, EventChangeFeed.Batch batch) {
+        SimilarEvents previous = similarEventsBySubscription.get(subscription.getId());
+        Set<String> ids;
+        if (previous == null || !batch.complete()) {
+            ids = new LinkedHashSet<>();
+            for (Event event : findSimilarEvents(subscription, batch.current().values())) {
+                ids.add(event.getId());
+            }
+        } else {
+            ids = previous.eventIds();
+            for (EventChange change : batch.changes()) {
+                if (change.type() == EventChange.Type.APPEARED && isSimilarEvent(subscription, change.event())) {
+                    ids.add(change.eventId());
+                } else if (change.type() == EventChange.Type.DISAPPEARED) {
+                    ids.remove(change.eventId());
+                }
+            }
+        }
+        similarEventsBySubscription.put(subscription.getId(), new SimilarEvents(batch.cursor(), ids));
+
+        List<Event> similar = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Event event = batch.current().get(id);
+            if (event != null) {
+                similar.add(event);
+            }
+        }
+        return similar;
+    }
+
     /**
      * Finds events similar to the subscription
      */
-    private List<Event> findSimilarEvents(NextWeekSubscription subscription, List<Event> events) {
+    private List<Event> findSimilarEvents(NextWeekSubscription subscription, Collection<Event> events) {
         List<Event> similar = new ArrayList<>();
         
         for (Event event : events) {
@@ -137,32 +206,11 @@ public class NextWeekMonitoringService {
      * Matches by: title, category, city, and time pattern (same day/time next week)
      */
     private boolean isSimilarEvent(NextWeekSubscription subscription, Event event) {
-        // Check title similarity (exact match or very similar)
-        String subscriptionTitle = subscription.getEventTitle().toLowerCase().trim();
-        String eventTitle = event.getTitle() != null ? event.getTitle().toLowerCase().trim() : "";
-        
         // Title should be very similar (exact match or contains key words)
-        if (!subscriptionTitle.equals(eventTitle) && 
-            !eventTitle.contains(subscriptionTitle) && 
-            !subscriptionTitle.contains(eventTitle)) {
-            // Try fuzzy match - check if at least 70% of words match
-            String[] subWords = subscriptionTitle.split("\\s+");
-            String[] eventWords = eventTitle.split("\\s+");
-            int matchingWords = 0;
-            for (String subWord : subWords) {
-                if (subWord.length() > 3) { // Only check words longer than 3 chars
-                    for (String eventWord : eventWords) {
-                        if (eventWord.contains(subWord) || subWord.contains(eventWord)) {
-                            matchingWords++;
-                            break;
-                        }
-                    }
-                }
-            }
-            double similarity = subWords.length > 0 ? (double) matchingWords / subWords.length : 0;
-            if (similarity < 0.5) {
-                return false;
-            }
+        CompiledSubscription compiled = compiledSubscriptions.computeIfAbsent(
+            subscription.getId(), id -> CompiledSubscription.of(subscription));
+        if (!compiled.titleMatcher().matches(event.getTitle())) {
+            return false;
         }
         
         // Check city
@@ -191,34 +239,20 @@ public class NextWeekMonitoringService {
         }
         
         // Check time pattern - should be approximately same time next week
-        if (subscription.getOriginalEventDate() != null && !subscription.getOriginalEventDate().isEmpty() &&
-            event.getDatesOf() != null && !event.getDatesOf().isEmpty()) {
-            
-            try {
-                // Parse original event date
-                String originalDateStr = subscription.getOriginalEventDate();
-                ZonedDateTime originalDate = parseDate(originalDateStr);
-                
-                if (originalDate != null) {
-                    // Check if any event date is approximately same time next week (within 7-10 days)
-                    for (String eventDateStr : event.getDatesOf()) {
-                        ZonedDateTime eventDate = parseDate(eventDateStr);
-                        if (eventDate != null) {
-                            long daysDiff = java.time.temporal.ChronoUnit.DAYS.between(originalDate, eventDate);
-                            // Should be between 6-10 days later (approximately next week)
-                            if (daysDiff >= 6 && daysDiff <= 10) {
-                                // Check if time is similar (within 2 hours)
-                                int originalHour = originalDate.getHour();
-                                int eventHour = eventDate.getHour();
-                                if (Math.abs(originalHour - eventHour) <= 2) {
-                                    return true; // Good match
-                                }
-                            }
-                        }
-                    }
+        EventDates originalDate = compiled.originalDate();
+        EventDates eventDates = event.getDates();
+        if (!originalDate.isEmpty() && originalDate.isValid(0)) {
+            // Check if any event date is approximately same time next week (within 7-10 days)
+            for (int i = 0; i < eventDates.size(); i++) {
+                if (!eventDates.isValid(i)) {
+                    continue;
+                }
+                long daysDiff = (eventDates.epochSecond(i) - originalDate.epochSecond(0)) / SECONDS_PER_DAY;
+                // Should be between 6-10 days later (approximately next week)
+                // and at a similar time (within 2 hours, Moscow time)
+                if (daysDiff >= 6 && daysDiff <= 10 && Math.abs(originalDate.hour(0) - eventDates.hour(i)) <= 2) {
+                    return true; // Good match
                 }
-            } catch (Exception e) {
-                logger.debug("Error comparing dates: {}", e.getMessage());
             }
         }
         
@@ -247,27 +281,6 @@ public class NextWeekMonitoringService {
         return ids;
     }
 
-    /**
-     * Parses ISO 8601 date string
-     */
-    private ZonedDateTime parseDate(String dateStr) {
-        if (dateStr == null || dateStr.isEmpty()) {
-            return null;
-        }
-        
-        try {
-            if (dateStr.endsWith("Z")) {
-                return ZonedDateTime.parse(dateStr);
-            } else {
-                LocalDateTime localDateTime = LocalDateTime.parse(dateStr.replace("Z", ""));
-                return localDateTime.atZone(ZoneId.of("Europe/Moscow"));
-            }
-        } catch (Exception e) {
-            logger.debug("Failed to parse date: {}", dateStr);
-            return null;
-        }
-    }
-
     /**
      * Tries to book an event for a subscription
      */
@@ -292,7 +305,7 @@ public class NextWeekMonitoringService {
             );
             
             // Extract first slot
-            Long slotId = extractFirstSlotId(slotsJson);
+            Long slotId = TimeSlots.firstSlotId(slotsJson);
             if (slotId == null || slotId <= 0) {
                 logger.debug("No available slots for event {}", eventId);
                 return false;
@@ -300,6 +313,7 @@ public class NextWeekMonitoringService {
             
             // Try to book
             JsonNode response = bookingService.book(
+                eventId,
                 userCookie,
                 referer,
                 DEFAULT_USER_AGENT,
@@ -323,37 +337,6 @@ public class NextWeekMonitoringService {
         }
     }
 
-    /**
-     * Extracts first available slot ID from JSON
-     */
-    private Long extractFirstSlotId(JsonNode slotsJson) {
-        if (slotsJson == null) {
-            return null;
-        }
-        // Similar to WaitlistMonitoringService
-        if (slotsJson.isArray() && slotsJson.size() > 0) {
-            JsonNode first = slotsJson.get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        if (slotsJson.has("result") && slotsJson.get("result").isArray() && 
-            slotsJson.get("result").size() > 0) {
-            JsonNode first = slotsJson.get("result").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        if (slotsJson.has("timeSlots") && slotsJson.get("timeSlots").isArray() && 
-            slotsJson.get("timeSlots").size() > 0) {
-            JsonNode first = slotsJson.get("timeSlots").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        return null;
-    }
-
     /**
      * Escapes Markdown special characters
      */
@@ -368,5 +351,21 @@ public class NextWeekMonitoringService {
             .replace("[", "\\[")
             .replace("]", "\\]");
     }
-}
 
+    /**
+     * @param cursor   last change of the events feed applied to {@code eventIds}
+     * @param eventIds similar events; modified only by the subscription's own check
+     */
+    private record SimilarEvents(long cursor, Set<String> eventIds) {
+    }
+
+    private record CompiledSubscription(SimilarTitleMatcher titleMatcher, EventDates originalDate) {
+
+        static CompiledSubscription of(NextWeekSubscription subscription) {
+            String originalDate = subscription.getOriginalEventDate();
+            return new CompiledSubscription(
+                SimilarTitleMatcher.of(subscription.getEventTitle()),
+                originalDate == null || originalDate.isEmpty() ? EventDates.empty() : EventDates.of(List.of(originalDate)));
+        }
+    }
+}
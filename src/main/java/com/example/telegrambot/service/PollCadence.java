@@ -0,0 +1,129 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.EventDates;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interval policy of the poller: how long to wait before the next tick.
+ * <p>
+ * Around the release time of a pending target (registration opening, configured per target or learned
+ * from the moment its events first got free seats) the poller runs in bursts; targets without a known
+ * release time are polled at the base interval; when nothing is pending, or the next release window is
+ * far away, it backs off to the idle interval. The interval never drops below what the
+ * requests-per-second cap allows for the number of list requests one tick makes.
+ */
+final class PollCadence {
+
+    private final long baseIntervalMs;
+    private final long burstIntervalMs;
+    private final long idleIntervalMs;
+    private final long burstBeforeMs;
+    private final long burstAfterMs;
+    private final double maxRequestsPerSecond;
+
+    // A full target whose release is at most this far away is kept pending until it opens
+    static final long AWAIT_RELEASE_HORIZON_MS = 12 * 3600_000L;
+
+    // Release times observed at runtime, for targets without a configured one
+    private final Map<PollTarget, LocalTime> learnedReleaseTimes = new ConcurrentHashMap<>();
+
+    PollCadence(long baseIntervalMs, long burstIntervalMs, long idleIntervalMs,
+                long burstBeforeMs, long burstAfterMs, double maxRequestsPerSecond) {
+        this.baseIntervalMs = Math.max(1, baseIntervalMs);
+        this.burstIntervalMs = Math.max(1, burstIntervalMs);
+        this.idleIntervalMs = Math.max(this.baseIntervalMs, idleIntervalMs);
+        this.burstBeforeMs = Math.max(0, burstBeforeMs);
+        this.burstAfterMs = Math.max(0, burstAfterMs);
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    /**
+     * Remembers when a target's events became available (truncated to the minute), so that later
+     * sessions burst around the same time of day. Configured release times take precedence.
+     */
+    void learnRelease(PollTarget target, ZonedDateTime observedAt) {
+        if (target.getReleaseTime() != null) {
+            return;
+        }
+        learnedReleaseTimes.put(target, observedAt.withZoneSameInstant(EventDates.MOSCOW)
+            .toLocalTime().truncatedTo(ChronoUnit.MINUTES));
+    }
+
+    LocalTime releaseTimeOf(PollTarget target) {
+        return target.getReleaseTime() != null ? target.getReleaseTime() : learnedReleaseTimes.get(target);
+    }
+
+    /**
+     * Whether a target whose matching events are all full should wait for its release instead of being
+     * given up: its release time is known and its burst window is open or opens within
+     * {@link #AWAIT_RELEASE_HORIZON_MS}.
+     */
+    boolean awaitsRelease(PollTarget target, ZonedDateTime now) {
+        LocalTime releaseTime = releaseTimeOf(target);
+        if (releaseTime == null) {
+            return false;
+        }
+        return millisUntilBurstWindow(now.withZoneSameInstant(EventDates.MOSCOW), releaseTime) <= AWAIT_RELEASE_HORIZON_MS;
+    }
+
+    /**
+     * @param pendingTargets  targets of all active sessions that are not completed yet
+     * @param requestsPerTick list requests one tick makes (one per distinct snapshot)
+     */
+    long nextDelayMs(ZonedDateTime now, Collection<PollTarget> pendingTargets, int requestsPerTick) {
+        if (pendingTargets.isEmpty()) {
+            return idleIntervalMs;
+        }
+        ZonedDateTime moscowNow = now.withZoneSameInstant(EventDates.MOSCOW);
+        long delay = idleIntervalMs;
+        for (PollTarget target : pendingTargets) {
+            LocalTime releaseTime = releaseTimeOf(target);
+            if (releaseTime == null) {
+                delay = Math.min(delay, baseIntervalMs);
+                continue;
+            }
+            long untilWindow = millisUntilBurstWindow(moscowNow, releaseTime);
+            if (untilWindow == 0) {
+                delay = Math.min(delay, target.getBurstIntervalMs() != null ? target.getBurstIntervalMs() : burstIntervalMs);
+            } else {
+                // Far from the release: back off, but wake up exactly when the burst window opens
+                delay = Math.min(delay, untilWindow);
+            }
+        }
+        return Math.max(delay, minIntervalMs(requestsPerTick));
+    }
+
+    /**
+     * @return 0 inside the burst window of {@code releaseTime}, otherwise milliseconds until the next window opens
+     */
+    long millisUntilBurstWindow(ZonedDateTime moscowNow, LocalTime releaseTime) {
+        long until = Long.MAX_VALUE;
+        for (int dayOffset = -1; dayOffset <= 1; dayOffset++) {
+            ZonedDateTime releaseAt = moscowNow.toLocalDate().plusDays(dayOffset).atTime(releaseTime)
+                .atZone(EventDates.MOSCOW);
+            ZonedDateTime windowStart = releaseAt.minus(Duration.ofMillis(burstBeforeMs));
+            ZonedDateTime windowEnd = releaseAt.plus(Duration.ofMillis(burstAfterMs));
+            if (!moscowNow.isBefore(windowStart) && !moscowNow.isAfter(windowEnd)) {
+                return 0;
+            }
+            if (windowStart.isAfter(moscowNow)) {
+                until = Math.min(until, Duration.between(moscowNow, windowStart).toMillis());
+            }
+        }
+        return Math.max(1, until);
+    }
+
+    private long minIntervalMs(int requestsPerTick) {
+        if (requestsPerTick <= 0 || maxRequestsPerSecond <= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(1000.0 * requestsPerTick / maxRequestsPerSecond);
+    }
+}
@@ -3,9 +3,8 @@ package com.example.telegrambot.service;
 import com.example.telegrambot.dto.Event;
 
 import java.time.DayOfWeek;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -14,15 +13,26 @@ import java.util.Objects;
 /**
  * A single poll entry: event name substring match (case-insensitive) and optional day of week.
  * Day numbers follow ISO-8601: 1 = Monday, 7 = Sunday (e.g. 3 = Wednesday).
+ * <p>
+ * Optional poll cadence policy: the daily time (Moscow) when registration for the target opens, around
+ * which the poller polls in bursts, and the burst interval for this target (see {@link PollCadence}).
  */
 public final class PollTarget {
 
     private final String namePattern;
     private final Integer dayOfWeek;
+    private final LocalTime releaseTime;
+    private final Long burstIntervalMs;
 
     public PollTarget(String namePattern, Integer dayOfWeek) {
+        this(namePattern, dayOfWeek, null, null);
+    }
+
+    public PollTarget(String namePattern, Integer dayOfWeek, LocalTime releaseTime, Long burstIntervalMs) {
         this.namePattern = Objects.requireNonNull(namePattern, "namePattern");
         this.dayOfWeek = dayOfWeek;
+        this.releaseTime = releaseTime;
+        this.burstIntervalMs = burstIntervalMs;
     }
 
     public String getNamePattern() {
@@ -33,6 +43,20 @@ public final class PollTarget {
         return dayOfWeek;
     }
 
+    /**
+     * @return configured release time (Moscow) or null
+     */
+    public LocalTime getReleaseTime() {
+        return releaseTime;
+    }
+
+    /**
+     * @return poll interval near the release time for this target, or null for the default
+     */
+    public Long getBurstIntervalMs() {
+        return burstIntervalMs;
+    }
+
     public boolean matchesTitle(String eventTitle) {
         if (eventTitle == null) {
             return false;
@@ -52,8 +76,10 @@ public final class PollTarget {
 
     /**
      * Parses comma-separated poll config, preserving order.
-     * Format: {@code Name} or {@code Name:day} where day is 1–7 (Monday–Sunday).
-     * Example: {@code Плавание:3,Плавание:1,теннис,Boxing (Красная Роза):2}
+     * Format: {@code Name} or {@code Name:day} where day is 1–7 (Monday–Sunday), optionally followed by
+     * a cadence policy {@code @HH:mm} (registration opens at this Moscow time) or {@code @HH:mm/ms}
+     * (and poll every {@code ms} around it).
+     * Example: {@code Плавание:3@12:00/100,Плавание:1,теннис,Boxing (Красная Роза):2}
      */
     public static List<PollTarget> parseList(String commaSeparated) {
         List<PollTarget> targets = new ArrayList<>();
@@ -78,6 +104,23 @@ public final class PollTarget {
             return null;
         }
 
+        LocalTime releaseTime = null;
+        Long burstIntervalMs = null;
+        int atIdx = trimmed.lastIndexOf('@');
+        if (atIdx > 0) {
+            String policy = trimmed.substring(atIdx + 1).trim();
+            int slashIdx = policy.indexOf('/');
+            String time = slashIdx >= 0 ? policy.substring(0, slashIdx).trim() : policy;
+            String interval = slashIdx >= 0 ? policy.substring(slashIdx + 1).trim() : null;
+            LocalTime parsedTime = parseReleaseTime(time);
+            Long parsedInterval = interval != null ? parseInterval(interval) : null;
+            if (parsedTime != null && (interval == null || parsedInterval != null)) {
+                releaseTime = parsedTime;
+                burstIntervalMs = parsedInterval;
+                trimmed = trimmed.substring(0, atIdx).trim();
+            }
+        }
+
         int colonIdx = trimmed.lastIndexOf(':');
         if (colonIdx > 0 && colonIdx < trimmed.length() - 1) {
             String suffix = trimmed.substring(colonIdx + 1).trim();
@@ -86,42 +129,49 @@ public final class PollTarget {
                 if (!name.isEmpty()) {
                     return new PollTarget(
                         name.toLowerCase(Locale.ROOT),
-                        suffix.charAt(0) - '0'
+                        suffix.charAt(0) - '0',
+                        releaseTime,
+                        burstIntervalMs
                     );
                 }
             }
         }
 
-        return new PollTarget(trimmed.toLowerCase(Locale.ROOT), null);
+        return new PollTarget(trimmed.toLowerCase(Locale.ROOT), null, releaseTime, burstIntervalMs);
     }
 
-    static boolean matchesDayOfWeek(Event event, int dayOfWeek) {
-        List<String> dates = event.getDatesOf();
-        if (dates == null || dates.isEmpty()) {
-            return false;
+    private static LocalTime parseReleaseTime(String time) {
+        if (!time.matches("\\d{1,2}:\\d{2}")) {
+            return null;
         }
-        for (String dateStr : dates) {
-            ZonedDateTime zdt = parseDate(dateStr);
-            if (zdt != null && zdt.getDayOfWeek().getValue() == dayOfWeek) {
-                return true;
-            }
+        try {
+            return LocalTime.parse(time.length() == 4 ? "0" + time : time);
+        } catch (DateTimeParseException e) {
+            return null;
         }
-        return false;
     }
 
-    private static ZonedDateTime parseDate(String dateStr) {
-        if (dateStr == null || dateStr.isEmpty()) {
+    private static Long parseInterval(String interval) {
+        if (!interval.matches("\\d{1,6}")) {
             return null;
         }
-        try {
-            if (dateStr.endsWith("Z")) {
-                return ZonedDateTime.parse(dateStr);
-            }
-            LocalDateTime localDateTime = LocalDateTime.parse(dateStr.replace("Z", ""));
-            return localDateTime.atZone(ZoneId.of("Europe/Moscow"));
-        } catch (Exception e) {
-            return null;
+        long value = Long.parseLong(interval);
+        return value > 0 ? value : null;
+    }
+
+    /**
+     * @return the entry in the {@link #parseList} format, e.g. {@code плавание:3@12:00/100}
+     */
+    public String toSpec() {
+        String spec = dayOfWeek == null ? namePattern : namePattern + ":" + dayOfWeek;
+        if (releaseTime == null) {
+            return spec;
         }
+        return spec + "@" + releaseTime + (burstIntervalMs != null ? "/" + burstIntervalMs : "");
+    }
+
+    static boolean matchesDayOfWeek(Event event, int dayOfWeek) {
+        return event.getDates().containsDayOfWeek(dayOfWeek);
     }
 
     private static String dayName(int dayOfWeek) {
@@ -130,12 +180,15 @@ public final class PollTarget {
 
     @Override
     public String toString() {
-        if (dayOfWeek == null) {
-            return namePattern;
+        String target = dayOfWeek == null ? namePattern : namePattern + ":" + dayOfWeek + " (" + dayName(dayOfWeek) + ")";
+        if (releaseTime == null) {
+            return target;
         }
-        return namePattern + ":" + dayOfWeek + " (" + dayName(dayOfWeek) + ")";
+        return target + " @" + releaseTime + (burstIntervalMs != null ? "/" + burstIntervalMs + "ms" : "");
     }
 
+    // Equality covers what the target matches (name and day); the cadence policy does not change it
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,78 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled matcher for an ordered list of {@link PollTarget}s.
+ * <p>
+ * All name patterns go into one {@link MultiPatternMatcher}; each event title is scanned once
+ * regardless of how many targets are configured, then the optional day-of-week filter of every
+ * target whose name matched is applied. Results are equivalent to calling
+ * {@link PollTarget#matchesEvent(Event)} for every (event, target) pair.
+ */
+public final class PollTargetMatcher {
+
+    private final List<PollTarget> targets;
+    private final MultiPatternMatcher names;
+    // Pattern ID -> indexes of targets sharing that name pattern (e.g. "плавание:3" and "плавание:1")
+    private final int[][] targetsByPattern;
+
+    public PollTargetMatcher(List<PollTarget> targets) {
+        this.targets = List.copyOf(targets);
+
+        Map<String, List<Integer>> byPattern = new LinkedHashMap<>();
+        for (int i = 0; i < this.targets.size(); i++) {
+            byPattern.computeIfAbsent(this.targets.get(i).getNamePattern(), key -> new ArrayList<>()).add(i);
+        }
+        this.names = MultiPatternMatcher.compile(new ArrayList<>(byPattern.keySet()));
+        this.targetsByPattern = byPattern.values().stream()
+            .map(indexes -> indexes.stream().mapToInt(Integer::intValue).toArray())
+            .toArray(int[][]::new);
+    }
+
+    public List<PollTarget> getTargets() {
+        return targets;
+    }
+
+    /**
+     * @return indexes (in configuration order) of all targets matching the event
+     */
+    public BitSet matchingTargets(Event event) {
+        BitSet matched = new BitSet(targets.size());
+        if (event.getTitle() == null) {
+            return matched;
+        }
+        BitSet patterns = names.find(event.getTitle());
+        for (int pattern = patterns.nextSetBit(0); pattern >= 0; pattern = patterns.nextSetBit(pattern + 1)) {
+            for (int index : targetsByPattern[pattern]) {
+                Integer dayOfWeek = targets.get(index).getDayOfWeek();
+                if (dayOfWeek == null || PollTarget.matchesDayOfWeek(event, dayOfWeek)) {
+                    matched.set(index);
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * One pass over a snapshot: events matching each target, keyed by target index.
+     * Targets without matching events are absent; events keep snapshot order.
+     */
+    public Map<Integer, List<Event>> matchAll(Collection<Event> events) {
+        Map<Integer, List<Event>> hits = new LinkedHashMap<>();
+        for (Event event : events) {
+            BitSet matched = matchingTargets(event);
+            for (int index = matched.nextSetBit(0); index >= 0; index = matched.nextSetBit(index + 1)) {
+                hits.computeIfAbsent(index, key -> new ArrayList<>()).add(event);
+            }
+        }
+        return hits;
+    }
+}
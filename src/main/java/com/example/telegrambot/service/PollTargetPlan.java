@@ -0,0 +1,152 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import com.example.telegrambot.dto.EventDates;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One tick of concurrent polling: which events each pending target may try to book.
+ * <p>
+ * Every pending target is evaluated against the same snapshot. Priority (configuration order) only
+ * resolves conflicts: an event, or a slot (the Moscow start hour of any of its dates, i.e. the same
+ * day-of-week and time), goes to the highest-priority target that matches it. Events in slots already
+ * booked by another target in this session are not offered again. A target whose matching events are
+ * all full is reported as lost, the same rule the sequential mode uses to advance.
+ * <p>
+ * A higher-priority target books at most one of its candidates, so a lower target whose free events
+ * only conflict with candidates of this tick is deferred rather than blocked: it is planned again
+ * once the higher targets' bookings are known ({@link #deferred}).
+ */
+final class PollTargetPlan {
+
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private final Map<Integer, List<Event>> assignments;
+    private final BitSet lost;
+    private final BitSet blocked;
+    private final BitSet deferred;
+
+    private PollTargetPlan(Map<Integer, List<Event>> assignments, BitSet lost, BitSet blocked, BitSet deferred) {
+        this.assignments = assignments;
+        this.lost = lost;
+        this.blocked = blocked;
+        this.deferred = deferred;
+    }
+
+    /**
+     * @param pending        indexes of targets not completed yet
+     * @param hitsByTarget   events matching each target, see {@link PollTargetMatcher#matchAll}
+     * @param bookedSlots    slot -> index of the target that booked an event in it
+     * @param bookedEvents   event ID -> index of the target that booked it
+     */
+    static PollTargetPlan build(BitSet pending, Map<Integer, List<Event>> hitsByTarget,
+                                Map<Long, Integer> bookedSlots, Map<String, Integer> bookedEvents) {
+        Map<Integer, List<Event>> assignments = new LinkedHashMap<>();
+        BitSet lost = new BitSet();
+        BitSet blocked = new BitSet();
+        BitSet deferred = new BitSet();
+        // Slots and events booked before, plus candidates of higher-priority targets in this tick
+        Map<Long, Integer> reservedSlots = new HashMap<>(bookedSlots);
+        Map<String, Integer> reservedEvents = new HashMap<>(bookedEvents);
+
+        for (int target = pending.nextSetBit(0); target >= 0; target = pending.nextSetBit(target + 1)) {
+            List<Event> matched = hitsByTarget.getOrDefault(target, List.of());
+            if (matched.isEmpty()) {
+                continue;
+            }
+            if (matched.stream().noneMatch(Event::isHaveFreeSeats)) {
+                lost.set(target);
+                continue;
+            }
+
+            List<Event> candidates = new ArrayList<>();
+            for (Event event : matched) {
+                if (event.isHaveFreeSeats() && !conflicts(target, event, reservedSlots, reservedEvents)) {
+                    candidates.add(event);
+                }
+            }
+            if (candidates.isEmpty()) {
+                boolean freeOfBookings = false;
+                for (Event event : matched) {
+                    freeOfBookings |= event.isHaveFreeSeats() && !conflicts(target, event, bookedSlots, bookedEvents);
+                }
+                (freeOfBookings ? deferred : blocked).set(target);
+                continue;
+            }
+            for (Event event : candidates) {
+                reservedEvents.putIfAbsent(event.getId(), target);
+                for (long slot : slotsOf(event)) {
+                    reservedSlots.putIfAbsent(slot, target);
+                }
+            }
+            assignments.put(target, candidates);
+        }
+        return new PollTargetPlan(assignments, lost, blocked, deferred);
+    }
+
+    /**
+     * @return Moscow start hours (epoch hours) of all parseable dates of the event
+     */
+    static long[] slotsOf(Event event) {
+        EventDates dates = event.getDates();
+        long[] slots = new long[dates.size()];
+        int count = 0;
+        for (int i = 0; i < dates.size(); i++) {
+            if (dates.isValid(i)) {
+                slots[count++] = Math.floorDiv(dates.epochSecond(i), SECONDS_PER_HOUR);
+            }
+        }
+        return count == slots.length ? slots : Arrays.copyOf(slots, count);
+    }
+
+    /**
+     * @return events each target should try, in snapshot order; targets without candidates are absent
+     */
+    Map<Integer, List<Event>> assignments() {
+        return assignments;
+    }
+
+    /**
+     * @return targets whose matching events all have no free seats
+     */
+    BitSet lost() {
+        return lost;
+    }
+
+    /**
+     * @return targets with free events that all conflict with events booked by other targets
+     */
+    BitSet blocked() {
+        return blocked;
+    }
+
+    /**
+     * @return targets whose free events only conflict with candidates of higher-priority targets in this
+     *         tick, not with their bookings: worth planning again after those targets' jobs
+     */
+    BitSet deferred() {
+        return deferred;
+    }
+
+    private static boolean conflicts(int target, Event event, Map<Long, Integer> reservedSlots,
+                                     Map<String, Integer> reservedEvents) {
+        Integer eventOwner = reservedEvents.get(event.getId());
+        if (eventOwner != null && eventOwner != target) {
+            return true;
+        }
+        for (long slot : slotsOf(event)) {
+            Integer slotOwner = reservedSlots.get(slot);
+            if (slotOwner != null && slotOwner != target) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Polling state of one user: poll targets, progress through them and events booked in this session.
+ * <p>
+ * Decides which events each target should try on a tick ({@link #plan(Map)}) and records the outcome
+ * ({@link #targetDone}, {@link #targetLost}); the HTTP calls themselves are made by {@link EventPollingService}.
+ * In sequential mode only the current target is planned; in concurrent mode every pending target is,
+ * with conflicts resolved by {@link PollTargetPlan}. Progress is recorded in a {@link ProgressLog}
+ * ({@link BookingJournal}) and can be restored from it after a restart ({@link #restore}).
+ */
+final class PollingSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(PollingSession.class);
+
+    /**
+     * Receives every change of the session's progress.
+     */
+    interface ProgressLog {
+
+        ProgressLog NONE = new ProgressLog() {
+        };
+
+        default void targetDone(int target, String eventId, long[] slots) {
+        }
+
+        default void targetLost(int target) {
+        }
+
+        default void eventBooked(String eventId) {
+        }
+    }
+
+    private final Long userId;
+    private final Long chatId;
+    private final List<PollTarget> targets;
+    private final PollTargetMatcher matcher;
+    private final boolean concurrentTargets;
+    private final ProgressLog progressLog;
+
+    // Sequential mode: index of the current target
+    private volatile int currentTargetIndex = 0;
+
+    // Concurrent mode: completed target indexes, and slots/events booked by each target
+    private final Set<Integer> completedTargets = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Integer> bookedSlots = new ConcurrentHashMap<>();
+    private final Map<String, Integer> bookedEventTargets = new ConcurrentHashMap<>();
+
+    // Event IDs booked (or found already booked) in this session
+    private final Set<String> bookedEventIds = ConcurrentHashMap.newKeySet();
+
+    // Targets seen without free events (absent or full) since the session started; polling thread only
+    private final BitSet waitingForRelease = new BitSet();
+    // Targets given up because all their events were full; still observed for releases
+    private final Set<Integer> lostTargets = ConcurrentHashMap.newKeySet();
+    // Concurrent mode: hits of targets deferred in the current tick until higher targets book; polling thread only
+    private final Map<Integer, List<Event>> deferredHits = new HashMap<>();
+
+    PollingSession(Long userId, Long chatId, List<PollTarget> targets, boolean concurrentTargets) {
+        this(userId, chatId, targets, concurrentTargets, ProgressLog.NONE);
+    }
+
+    PollingSession(Long userId, Long chatId, List<PollTarget> targets, boolean concurrentTargets, ProgressLog progressLog) {
+        this.userId = userId;
+        this.chatId = chatId;
+        this.targets = List.copyOf(targets);
+        this.matcher = new PollTargetMatcher(this.targets);
+        this.concurrentTargets = concurrentTargets;
+        this.progressLog = progressLog;
+    }
+
+    /**
+     * Continues from progress recorded before a restart: completed targets stay completed and
+     * booked events are not booked again.
+     */
+    void restore(BookingJournal.Progress progress) {
+        bookedEventIds.addAll(progress.bookedEventIds());
+        progress.completed().forEach((target, completion) -> {
+            if (!concurrentTargets || target >= targets.size()) {
+                return;
+            }
+            completedTargets.add(target);
+            if (completion.eventId() == null) {
+                lostTargets.add(target);
+            } else {
+                bookedEventTargets.putIfAbsent(completion.eventId(), target);
+                for (long slot : completion.slots()) {
+                    bookedSlots.putIfAbsent(slot, target);
+                }
+            }
+        });
+        if (!concurrentTargets) {
+            int current = 0;
+            while (current < targets.size() && progress.completed().containsKey(current)) {
+                if (progress.completed().get(current).eventId() == null) {
+                    lostTargets.add(current);
+                }
+                current++;
+            }
+            currentTargetIndex = current;
+        }
+    }
+
+    Long getUserId() {
+        return userId;
+    }
+
+    Long getChatId() {
+        return chatId;
+    }
+
+    List<PollTarget> getTargets() {
+        return targets;
+    }
+
+    boolean isConcurrentTargets() {
+        return concurrentTargets;
+    }
+
+    boolean isBooked(String eventId) {
+        return bookedEventIds.contains(eventId);
+    }
+
+    /**
+     * The event was booked (or found already booked) in this session.
+     */
+    void markBooked(String eventId) {
+        if (bookedEventIds.add(eventId)) {
+            progressLog.eventBooked(eventId);
+        }
+    }
+
+    boolean isFinished() {
+        return concurrentTargets ? completedTargets.size() >= targets.size() : currentTargetIndex >= targets.size();
+    }
+
+    boolean isPending(int targetIndex) {
+        return concurrentTargets ? !completedTargets.contains(targetIndex) : targetIndex >= currentTargetIndex;
+    }
+
+    /**
+     * @return targets not completed yet
+     */
+    List<PollTarget> pendingTargets() {
+        List<PollTarget> pending = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            if (isPending(i)) {
+                pending.add(targets.get(i));
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Tracks availability of pending and lost targets across ticks. Lost targets are observed too:
+     * a target whose events were full when polling started is lost on that tick, and the moment its
+     * events open is exactly the release time worth learning.
+     * <p>
+     * This is per target, not per event, so it does not read {@link EventChangeFeed}: a target opens
+     * when any of its events does, and the tick matches the whole snapshot for the plan anyway.
+     *
+     * @return targets whose events got free seats on this tick after being unavailable before,
+     *         i.e. the moment registration for them opened
+     */
+    List<PollTarget> observeReleases(Map<Integer, List<Event>> hitsByTarget) {
+        List<PollTarget> released = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i++) {
+            if (!isPending(i) && !lostTargets.contains(i)) {
+                continue;
+            }
+            boolean available = hitsByTarget.getOrDefault(i, List.of()).stream().anyMatch(Event::isHaveFreeSeats);
+            if (!available) {
+                waitingForRelease.set(i);
+            } else if (waitingForRelease.get(i)) {
+                waitingForRelease.clear(i);
+                released.add(targets.get(i));
+            }
+        }
+        return released;
+    }
+
+    /**
+     * One pass over a snapshot: events matching each of this session's targets.
+     */
+    Map<Integer, List<Event>> matchAll(Collection<Event> events) {
+        return matcher.matchAll(events);
+    }
+
+    /**
+     * Same as {@link #plan(Map, Predicate)} with no target waiting for a release.
+     */
+    Map<Integer, List<Event>> plan(Map<Integer, List<Event>> hitsByTarget) {
+        return plan(hitsByTarget, target -> false);
+    }
+
+    /**
+     * Targets to try on this tick and their candidate events, in priority order.
+     * Targets whose matching events are all full are marked lost here, unless
+     * {@code awaitsRelease} says registration for them is about to open ({@link PollCadence#awaitsRelease}).
+     */
+    Map<Integer, List<Event>> plan(Map<Integer, List<Event>> hitsByTarget, Predicate<PollTarget> awaitsRelease) {
+        if (concurrentTargets) {
+            return planConcurrent(hitsByTarget, awaitsRelease);
+        }
+        if (isFinished()) {
+            return Map.of();
+        }
+        int current = currentTargetIndex;
+        PollTarget target = targets.get(current);
+        List<Event> matchingEvents = hitsByTarget.getOrDefault(current, List.of());
+        if (matchingEvents.isEmpty()) {
+            logger.debug("User {}: poll target [{}] ({}/{}): no matching events in list yet",
+                userId, target, current + 1, targets.size());
+            return Map.of();
+        }
+
+        logger.info("User {}: poll target [{}] ({}/{}): {} matching event(s): {}",
+            userId, target, current + 1, targets.size(), matchingEvents.size(),
+            matchingEvents.stream()
+                .map(e -> String.format("%s (id=%s, haveFreeSeats=%s, freeSeats=%d)",
+                    e.getTitle(), e.getId(), e.isHaveFreeSeats(), e.getFreeSeats()))
+                .collect(Collectors.joining("; ")));
+
+        if (matchingEvents.stream().noneMatch(Event::isHaveFreeSeats)) {
+            if (awaitsRelease.test(target)) {
+                logger.debug("User {}: poll target [{}]: all matching events are full, waiting for release",
+                    userId, target);
+                return Map.of();
+            }
+            logger.info("User {}: poll target [{}]: all matching events have no free seats — target lost, advancing",
+                userId, target);
+            targetLost(current);
+            return Map.of();
+        }
+        return Map.of(current, matchingEvents);
+    }
+
+    private Map<Integer, List<Event>> planConcurrent(Map<Integer, List<Event>> hitsByTarget,
+                                                     Predicate<PollTarget> awaitsRelease) {
+        BitSet pending = new BitSet(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            if (!completedTargets.contains(i)) {
+                pending.set(i);
+            }
+        }
+        PollTargetPlan plan = PollTargetPlan.build(pending, hitsByTarget, bookedSlots, bookedEventTargets);
+        deferredHits.clear();
+        BitSet deferred = plan.deferred();
+        for (int target = deferred.nextSetBit(0); target >= 0; target = deferred.nextSetBit(target + 1)) {
+            deferredHits.put(target, hitsByTarget.get(target));
+        }
+
+        BitSet lost = plan.lost();
+        for (int target = lost.nextSetBit(0); target >= 0; target = lost.nextSetBit(target + 1)) {
+            if (awaitsRelease.test(targets.get(target))) {
+                continue;
+            }
+            logger.info("User {}: poll target [{}]: all matching events have no free seats — target lost",
+                userId, targets.get(target));
+            targetLost(target);
+        }
+        BitSet blocked = plan.blocked();
+        for (int target = blocked.nextSetBit(0); target >= 0; target = blocked.nextSetBit(target + 1)) {
+            logger.debug("User {}: poll target [{}]: free events conflict with higher-priority targets",
+                userId, targets.get(target));
+        }
+        plan.assignments().forEach((target, candidates) ->
+            logger.info("User {}: poll target [{}] ({}/{}): {} available event(s): {}",
+                userId, targets.get(target), target + 1, targets.size(), candidates.size(),
+                candidates.stream()
+                    .map(e -> String.format("%s (id=%s, freeSeats=%d)", e.getTitle(), e.getId(), e.getFreeSeats()))
+                    .collect(Collectors.joining("; "))));
+        return plan.assignments();
+    }
+
+    /**
+     * Second pass of a concurrent tick, after the jobs of the first one: targets deferred by {@link #plan}
+     * because their events conflicted with higher-priority candidates get the events those targets did
+     * not book. Targets still in conflict wait for the next tick.
+     */
+    Map<Integer, List<Event>> planDeferred() {
+        if (deferredHits.isEmpty()) {
+            return Map.of();
+        }
+        BitSet pending = new BitSet(targets.size());
+        deferredHits.keySet().stream().filter(this::isPending).forEach(pending::set);
+        PollTargetPlan plan = PollTargetPlan.build(pending, deferredHits, bookedSlots, bookedEventTargets);
+        deferredHits.clear();
+        plan.assignments().forEach((target, candidates) ->
+            logger.info("User {}: poll target [{}]: {} event(s) left by higher-priority targets",
+                userId, targets.get(target), candidates.size()));
+        return plan.assignments();
+    }
+
+    /**
+     * The target booked {@code event} (or the user was already booked for it).
+     */
+    void targetDone(int target, Event event, String reason) {
+        long[] slots = PollTargetPlan.slotsOf(event);
+        if (concurrentTargets) {
+            bookedEventTargets.putIfAbsent(event.getId(), target);
+            for (long slot : slots) {
+                bookedSlots.putIfAbsent(slot, target);
+            }
+        }
+        if (complete(target, reason)) {
+            progressLog.targetDone(target, event.getId(), slots);
+        }
+    }
+
+    void targetLost(int target) {
+        if (complete(target, "no free seats")) {
+            lostTargets.add(target);
+            progressLog.targetLost(target);
+        }
+    }
+
+    /**
+     * @return whether the target was pending
+     */
+    private boolean complete(int target, String reason) {
+        if (concurrentTargets) {
+            if (completedTargets.add(target)) {
+                logger.info("User {}: poll target [{}] done ({}). {}/{} poll target(s) completed.",
+                    userId, targets.get(target), reason, completedTargets.size(), targets.size());
+                return true;
+            }
+            return false;
+        }
+        if (target != currentTargetIndex) {
+            return false;
+        }
+        currentTargetIndex = target + 1;
+        if (currentTargetIndex < targets.size()) {
+            logger.info("User {}: poll target [{}] done ({}). Next target: [{}] ({}/{})",
+                userId, targets.get(target), reason, targets.get(currentTargetIndex),
+                currentTargetIndex + 1, targets.size());
+        } else {
+            logger.info("User {}: poll target [{}] done ({}). All {} poll target(s) completed.",
+                userId, targets.get(target), reason, targets.size());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.telegrambot.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable browser-like request headers for events.yandex-team.ru, built once per
+ * (method kind, cookie, referer, User-Agent) and reused by every later request with the same values.
+ * <p>
+ * A request copies the template into its own headers instead of building about twenty header
+ * values from scratch. The number of cached templates is bounded: referers differ per event.
+ */
+final class RequestHeaderTemplates {
+
+    enum Kind {
+        // GET: JSON response, no body
+        GET,
+        // POST with a JSON body (booking)
+        POST_JSON,
+        // DELETE (unbooking)
+        DELETE
+    }
+
+    private static final String ORIGIN = "https://events.yandex-team.ru";
+    private static final int MAX_TEMPLATES = 256;
+
+    private final Map<Key, HttpHeaders> templates = new ConcurrentHashMap<>();
+
+    /**
+     * @return read-only headers; copy them into the request with {@code putAll}
+     */
+    HttpHeaders get(Kind kind, String cookieHeader, String referer, String userAgent) {
+        Key key = new Key(kind, cookieHeader, referer, userAgent);
+        HttpHeaders template = templates.get(key);
+        if (template != null) {
+            return template;
+        }
+        if (templates.size() >= MAX_TEMPLATES) {
+            templates.clear();
+        }
+        return templates.computeIfAbsent(key, RequestHeaderTemplates::build);
+    }
+
+    private static HttpHeaders build(Key key) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (key.kind() == Kind.POST_JSON) {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+        headers.set("Accept-Language", "ru");
+        headers.set("Connection", "keep-alive");
+        headers.set("Cookie", key.cookieHeader());
+        if (key.kind() != Kind.GET) {
+            headers.set("Origin", ORIGIN);
+        }
+        headers.set("Referer", key.referer());
+        headers.set("Sec-Fetch-Dest", "empty");
+        headers.set("Sec-Fetch-Mode", "cors");
+        headers.set("Sec-Fetch-Site", "same-origin");
+        headers.set("User-Agent", key.userAgent());
+        headers.set("sec-ch-ua", "\"Not)A;Brand\";v=\"8\", \"Chromium\";v=\"138\", \"YaBrowser\";v=\"25.8\", \"Yowser\";v=\"2.5\"");
+        headers.set("sec-ch-ua-arch", "\"arm\"");
+        headers.set("sec-ch-ua-bitness", "\"64\"");
+        headers.set("sec-ch-ua-full-version-list", "\"Not)A;Brand\";v=\"8.0.0.0\", \"Chromium\";v=\"138.0.7204.977\", \"YaBrowser\";v=\"25.8.5.977\", \"Yowser\";v=\"2.5\"");
+        headers.set("sec-ch-ua-mobile", "?0");
+        headers.set("sec-ch-ua-platform", "\"macOS\"");
+        headers.set("sec-ch-ua-platform-version", "\"15.7.1\"");
+        headers.set("sec-ch-ua-wow64", "?0");
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    private record Key(Kind kind, String cookieHeader, String referer, String userAgent) {
+    }
+}
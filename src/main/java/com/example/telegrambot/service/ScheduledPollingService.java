@@ -1,13 +1,18 @@
 package com.example.telegrambot.service;
 
+import com.example.telegrambot.config.SchedulingConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -15,15 +20,27 @@ import java.time.format.DateTimeParseException;
 /**
  * Service that automatically starts and stops event polling at configured times
  * Only active in server-only mode
+ * <p>
+ * Times are compared against the events backend clock ({@link ServerClock}), not the local one,
+ * and the start is scheduled to the millisecond so the first poll lands right at the start time.
  */
 @Service
 @Profile("server-only")
 public class ScheduledPollingService {
 
     private static final Logger logger = LoggerFactory.getLogger(ScheduledPollingService.class);
+    private static final long PREWARM_CHECK_INTERVAL_MS = 1000;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
 
     private final EventPollingService eventPollingService;
+    private final ConnectionPrewarmService connectionPrewarmService;
+    private final ServerClock serverClock;
+    private final TaskScheduler windowScheduler;
+    private final ScheduledTickMonitor.Task scheduleTicks;
+    private final ScheduledTickMonitor.Task prewarmTicks;
     private volatile boolean pollingStarted = false;
+    // Exact start for the current window is already scheduled
+    private volatile boolean startArmed = false;
 
     // Dummy user ID and chat ID for server-only mode
     private static final Long SERVER_USER_ID = ServerStartupService.SERVER_USER_ID;
@@ -35,12 +52,28 @@ public class ScheduledPollingService {
     @Value("${events.poll.end-time:}")
     private String endTimeString;
 
+    @Value("${events.poll.prewarm-seconds:30}")
+    private long prewarmSeconds;
+
+    // Idle TTL of the shared HTTP client pool (YandexHttpClientConfig)
+    @Value("${events.http.idle-ttl-seconds:300}")
+    private long httpIdleTtlSeconds;
+
     private LocalTime startTime;
     private LocalTime endTime;
     private boolean timesConfigured = false;
 
-    public ScheduledPollingService(EventPollingService eventPollingService) {
+    public ScheduledPollingService(EventPollingService eventPollingService,
+                                   ConnectionPrewarmService connectionPrewarmService,
+                                   ServerClock serverClock,
+                                   @Qualifier(SchedulingConfig.POLLING_WINDOW_SCHEDULER) TaskScheduler windowScheduler,
+                                   ScheduledTickMonitor tickMonitor) {
         this.eventPollingService = eventPollingService;
+        this.connectionPrewarmService = connectionPrewarmService;
+        this.serverClock = serverClock;
+        this.windowScheduler = windowScheduler;
+        this.scheduleTicks = tickMonitor.aligned("polling-window", 60_000);
+        this.prewarmTicks = tickMonitor.fixedRate("prewarm-check", PREWARM_CHECK_INTERVAL_MS);
     }
 
     @PostConstruct
@@ -66,6 +99,14 @@ public class ScheduledPollingService {
             }
         }
 
+        long keepWarmIntervalMs = connectionPrewarmService.getKeepWarmIntervalMs();
+        if (prewarmSeconds > 0 && keepWarmIntervalMs >= httpIdleTtlSeconds * 1000) {
+            throw new IllegalStateException(String.format(
+                "events.poll.keep-warm-interval-ms (%d) must be shorter than events.http.idle-ttl-seconds (%d s): "
+                    + "pre-warmed connections would be closed as idle before polling starts",
+                keepWarmIntervalMs, httpIdleTtlSeconds));
+        }
+
         // Do NOT start polling here - it runs before cookie is set (race condition).
         // Polling is started by ServerStartupService after cookie validation.
         if (!timesConfigured) {
@@ -95,13 +136,17 @@ public class ScheduledPollingService {
     /**
      * Checks every minute if it's time to start or stop polling
      */
-    @Scheduled(cron = "0 * * * * ?") // Every minute at second 0
+    @Scheduled(cron = "0 * * * * ?", scheduler = SchedulingConfig.POLLING_WINDOW_SCHEDULER) // Every minute at second 0
     public void checkPollingSchedule() {
+        scheduleTicks.run(this::checkPollingScheduleTick);
+    }
+
+    private void checkPollingScheduleTick() {
         if (!timesConfigured) {
             return; // Times not configured, polling already started or will be handled elsewhere
         }
 
-        LocalTime currentTime = LocalTime.now();
+        LocalTime currentTime = LocalTime.now(serverClock.clock());
 
         // Check if we should start polling
         if (!pollingStarted && startTime != null) {
@@ -132,6 +177,60 @@ public class ScheduledPollingService {
         }
     }
 
+    /**
+     * Checks every second whether the pre-warm phase ({@code prewarm-seconds} before start time) has begun.
+     * Pre-warm runs once per window: DNS, pooled connections and JSON decoders are ready
+     * before the first real poll tick; after it the connections are kept in use until the start.
+     * Shortly before the start time the exact start is scheduled.
+     */
+    @Scheduled(fixedRate = PREWARM_CHECK_INTERVAL_MS, scheduler = SchedulingConfig.POLLING_WINDOW_SCHEDULER)
+    public void checkPrewarmSchedule() {
+        prewarmTicks.run(this::checkPrewarmScheduleTick);
+    }
+
+    private void checkPrewarmScheduleTick() {
+        if (startTime == null || pollingStarted) {
+            return;
+        }
+
+        LocalTime currentTime = LocalTime.now(serverClock.clock());
+        armExactStart(currentTime);
+        if (prewarmSeconds <= 0) {
+            return;
+        }
+        if (connectionPrewarmService.isWindowPrewarmed()) {
+            connectionPrewarmService.keepWarm(SERVER_USER_ID);
+            return;
+        }
+        LocalTime prewarmTime = startTime.minusSeconds(prewarmSeconds);
+        if (isTimeWithinWindow(currentTime, prewarmTime, startTime) && !currentTime.equals(startTime)) {
+            logger.info("Pre-warm phase started at {} ({} s before polling start {})", currentTime, prewarmSeconds, startTime);
+            connectionPrewarmService.prewarmOnce(SERVER_USER_ID);
+        }
+    }
+
+    /**
+     * Schedules {@link #startPolling()} at the local instant that corresponds to the start time on the
+     * server clock, once the start is less than two check intervals away. The per-minute check stays
+     * as a fallback.
+     */
+    private void armExactStart(LocalTime serverTime) {
+        if (startArmed) {
+            return;
+        }
+        long untilStartMs = Math.floorMod(Duration.between(serverTime, startTime).toMillis(), MILLIS_PER_DAY);
+        if (untilStartMs > 2 * PREWARM_CHECK_INTERVAL_MS) {
+            return;
+        }
+        startArmed = true;
+        logger.info("Polling start {} (server time) in {} ms, clock offset {} ms", startTime, untilStartMs,
+            serverClock.offsetMs());
+        windowScheduler.schedule(() -> {
+            logger.info("Scheduled polling start time reached: {} (server time). Starting event polling...", startTime);
+            startPolling();
+        }, Instant.now().plusMillis(untilStartMs));
+    }
+
     /**
      * Checks if current time is within the polling window on startup
      */
@@ -140,7 +239,7 @@ public class ScheduledPollingService {
             return;
         }
 
-        LocalTime currentTime = LocalTime.now();
+        LocalTime currentTime = LocalTime.now(serverClock.clock());
         if (isTimeWithinWindow(currentTime, startTime, endTime)) {
             logger.info("Application started at {} which is within polling window ({} - {}). Starting polling immediately...", 
                 currentTime, startTime, endTime != null ? endTime : "no end");
@@ -177,7 +276,7 @@ public class ScheduledPollingService {
     /**
      * Starts polling immediately (can be called manually or by schedule)
      */
-    public void startPolling() {
+    public synchronized void startPolling() {
         if (pollingStarted) {
             logger.warn("Polling already started, skipping");
             return;
@@ -209,14 +308,17 @@ public class ScheduledPollingService {
     /**
      * Stops polling
      */
-    public void stopPolling() {
+    public synchronized void stopPolling() {
         if (!pollingStarted) {
             logger.warn("Polling not started, cannot stop");
             return;
         }
 
-        eventPollingService.stopPolling();
+        eventPollingService.stopPolling(SERVER_USER_ID);
         pollingStarted = false;
+        // Next window gets its own pre-warm
+        connectionPrewarmService.resetWindow();
+        startArmed = false;
         logger.info("Event polling stopped via scheduled service");
     }
 
@@ -0,0 +1,183 @@
+package com.example.telegrambot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Tick metrics for scheduled subsystems: how late each tick starts relative to its schedule,
+ * how long it runs, overruns (a tick running longer than its period) and, for scans, coverage
+ * (how many of the items due were actually checked, see {@link Task#recordCoverage}).
+ * Late ticks and overruns are logged as they happen, a per-task summary is logged periodically.
+ */
+@Service
+public class ScheduledTickMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledTickMonitor.class);
+
+    // A tick starting later than this is logged as a warning
+    @Value("${events.scheduler.lateness-warn-ms:500}")
+    private long latenessWarnMs = 500;
+
+    private final Map<String, Task> tasks = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a fixed-rate task. Lateness is measured against {@code firstStart + n * period}.
+     */
+    public Task fixedRate(String name, long periodMs) {
+        return tasks.computeIfAbsent(name, key -> new Task(key, periodMs, Mode.FIXED_RATE, System::currentTimeMillis));
+    }
+
+    /**
+     * Registers a task aligned to wall-clock multiples of its period (e.g. a cron task at second 0 of every minute).
+     */
+    public Task aligned(String name, long periodMs) {
+        return tasks.computeIfAbsent(name, key -> new Task(key, periodMs, Mode.ALIGNED, System::currentTimeMillis));
+    }
+
+    /**
+     * Registers a task that schedules its next tick itself with a varying delay.
+     * Lateness is measured against the time passed to {@link Task#expectStartAt(long)}; since the next tick
+     * is only scheduled after the previous one finished, overruns are not tracked.
+     */
+    public Task adaptive(String name) {
+        return tasks.computeIfAbsent(name, key -> new Task(key, Long.MAX_VALUE, Mode.ADAPTIVE, System::currentTimeMillis));
+    }
+
+    enum Mode {
+        FIXED_RATE,
+        ALIGNED,
+        ADAPTIVE
+    }
+
+    @Scheduled(fixedRateString = "${events.scheduler.metrics-log-interval-ms:60000}",
+        initialDelayString = "${events.scheduler.metrics-log-interval-ms:60000}")
+    public void logSummary() {
+        for (Task task : tasks.values()) {
+            Task.Window window = task.drainWindow();
+            if (window.ticks() == 0) {
+                continue;
+            }
+            String coverage = window.dueItems() == 0 ? "" : String.format(", coverage %d/%d (%d%%)",
+                window.checkedItems(), window.dueItems(), 100 * window.checkedItems() / window.dueItems());
+            logger.info("Scheduler [{}]: {} tick(s), lateness avg {} ms / max {} ms, duration avg {} ms / max {} ms, {} overrun(s){}",
+                task.name, window.ticks(), window.totalLatenessMs() / window.ticks(), window.maxLatenessMs(),
+                window.totalDurationMs() / window.ticks(), window.maxDurationMs(), window.overruns(), coverage);
+        }
+    }
+
+    public final class Task {
+
+        private final String name;
+        private final long periodMs;
+        private final Mode mode;
+        private final LongSupplier clock;
+
+        // Accessed only from the task's own scheduler thread (ticks of one task never overlap);
+        // adaptive tasks set it from the thread that schedules the next tick
+        private volatile long expectedStartMs = -1;
+
+        private long ticks;
+        private long overruns;
+        private long totalLatenessMs;
+        private long maxLatenessMs;
+        private long totalDurationMs;
+        private long maxDurationMs;
+        private long checkedItems;
+        private long dueItems;
+
+        Task(String name, long periodMs, Mode mode, LongSupplier clock) {
+            this.name = name;
+            this.periodMs = periodMs;
+            this.mode = mode;
+            this.clock = clock;
+        }
+
+        /**
+         * Adaptive tasks: the next tick is scheduled to start at {@code startAtMs}.
+         */
+        public void expectStartAt(long startAtMs) {
+            expectedStartMs = startAtMs;
+        }
+
+        /**
+         * Runs one tick of the task and records its lateness and duration.
+         */
+        public void run(Runnable tick) {
+            long startedAt = clock.getAsLong();
+            long lateness = latenessOf(startedAt);
+            if (lateness > latenessWarnMs) {
+                logger.warn("Scheduler [{}]: tick started {} ms late", name, lateness);
+            }
+            try {
+                tick.run();
+            } finally {
+                long duration = clock.getAsLong() - startedAt;
+                boolean overrun = duration > periodMs;
+                if (overrun) {
+                    logger.warn("Scheduler [{}]: tick overran its {} ms period ({} ms)", name, periodMs, duration);
+                }
+                record(lateness, duration, overrun);
+            }
+        }
+
+        /**
+         * Scans: {@code checked} of the {@code due} items were checked by the current tick
+         * (the rest were cut off, e.g. by the scan deadline).
+         */
+        public synchronized void recordCoverage(int checked, int due) {
+            checkedItems += checked;
+            dueItems += due;
+        }
+
+        long latenessOf(long startedAt) {
+            if (mode == Mode.ALIGNED) {
+                return startedAt % periodMs;
+            }
+            if (mode == Mode.ADAPTIVE) {
+                return expectedStartMs < 0 ? 0 : Math.max(0, startedAt - expectedStartMs);
+            }
+            if (expectedStartMs < 0) {
+                expectedStartMs = startedAt;
+            }
+            long lateness = Math.max(0, startedAt - expectedStartMs);
+            expectedStartMs += periodMs;
+            return lateness;
+        }
+
+        private synchronized void record(long lateness, long duration, boolean overrun) {
+            ticks++;
+            totalLatenessMs += lateness;
+            maxLatenessMs = Math.max(maxLatenessMs, lateness);
+            totalDurationMs += duration;
+            maxDurationMs = Math.max(maxDurationMs, duration);
+            if (overrun) {
+                overruns++;
+            }
+        }
+
+        private synchronized Window drainWindow() {
+            Window window = new Window(ticks, overruns, totalLatenessMs, maxLatenessMs, totalDurationMs, maxDurationMs,
+                checkedItems, dueItems);
+            ticks = 0;
+            overruns = 0;
+            totalLatenessMs = 0;
+            maxLatenessMs = 0;
+            totalDurationMs = 0;
+            maxDurationMs = 0;
+            checkedItems = 0;
+            dueItems = 0;
+            return window;
+        }
+
+        private record Window(long ticks, long overruns, long totalLatenessMs, long maxLatenessMs, long totalDurationMs,
+                              long maxDurationMs, long checkedItems, long dueItems) {
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.telegrambot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Estimate of the events backend clock, calibrated from ordinary API responses.
+ * <p>
+ * Installed as an interceptor on the shared request factory ({@code YandexHttpClientConfig}) behind
+ * the rate limiter, so every response is a sample: its {@code Date} header (whole seconds) was generated
+ * somewhere between sending the request and receiving the headers, which bounds the offset
+ * {@code server - local} to {@code [date - received, date + 1000 - sent]}. The estimate is the middle
+ * of the intersection of the most recent consistent samples; a sample that contradicts older ones
+ * (the local clock was stepped, or drifted) drops them. With enough samples the 1-second header
+ * resolution narrows down to roughly the round-trip time.
+ * <p>
+ * Until the first sample the offset is 0, i.e. {@link #clock()} is the local clock.
+ */
+@Service
+public class ServerClock implements ClientHttpRequestInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerClock.class);
+    private static final long DATE_RESOLUTION_MS = 1000;
+    // Estimate changes smaller than this are logged at debug level only
+    private static final long LOG_THRESHOLD_MS = 100;
+
+    @Value("${events.clock.calibration-enabled:true}")
+    private boolean enabled = true;
+
+    // How many recent samples are intersected
+    @Value("${events.clock.window-samples:32}")
+    private int windowSamples = 32;
+
+    // Samples with a longer round trip carry almost no information
+    @Value("${events.clock.max-round-trip-ms:3000}")
+    private long maxRoundTripMs = 3000;
+
+    // Offset bounds of recent samples, ring buffer ordered by arrival
+    private long[] lowerBounds;
+    private long[] upperBounds;
+    private int next;
+    private int count;
+
+    private volatile long offsetMs;
+    private volatile long uncertaintyMs = Long.MAX_VALUE;
+    private long loggedOffsetMs;
+
+    private final Clock clock = new OffsetClock(ZoneId.systemDefault());
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!enabled) {
+            return execution.execute(request, body);
+        }
+        long sentMs = System.currentTimeMillis();
+        ClientHttpResponse response = execution.execute(request, body);
+        long receivedMs = System.currentTimeMillis();
+        try {
+            long dateMs = response.getHeaders().getDate();
+            if (dateMs > 0) {
+                record(sentMs, receivedMs, dateMs);
+            }
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring unparseable Date header from {}: {}", request.getURI().getHost(), e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * Adds one sample.
+     *
+     * @param sentMs     local time the request was sent
+     * @param receivedMs local time the response headers arrived
+     * @param dateMs     server {@code Date} header
+     */
+    synchronized void record(long sentMs, long receivedMs, long dateMs) {
+        if (receivedMs < sentMs || receivedMs - sentMs > maxRoundTripMs) {
+            return;
+        }
+        if (lowerBounds == null) {
+            int size = Math.max(1, windowSamples);
+            lowerBounds = new long[size];
+            upperBounds = new long[size];
+        }
+        lowerBounds[next] = dateMs - receivedMs;
+        upperBounds[next] = dateMs + DATE_RESOLUTION_MS - sentMs;
+        next = (next + 1) % lowerBounds.length;
+        count = Math.min(count + 1, lowerBounds.length);
+
+        // Intersect from the newest sample back while the samples agree
+        long lower = Long.MIN_VALUE;
+        long upper = Long.MAX_VALUE;
+        int used = 0;
+        for (int i = 1; i <= count; i++) {
+            int index = Math.floorMod(next - i, lowerBounds.length);
+            long newLower = Math.max(lower, lowerBounds[index]);
+            long newUpper = Math.min(upper, upperBounds[index]);
+            if (newLower > newUpper) {
+                break;
+            }
+            lower = newLower;
+            upper = newUpper;
+            used++;
+        }
+        // Older samples that contradict the newest one are stale
+        count = used;
+
+        boolean first = uncertaintyMs == Long.MAX_VALUE;
+        offsetMs = lower + (upper - lower) / 2;
+        uncertaintyMs = (upper - lower) / 2;
+        if (first || Math.abs(offsetMs - loggedOffsetMs) >= LOG_THRESHOLD_MS) {
+            loggedOffsetMs = offsetMs;
+            logger.info("Server clock offset: {} ms (±{} ms, {} sample(s))", offsetMs, uncertaintyMs, used);
+        } else {
+            logger.debug("Server clock offset: {} ms (±{} ms, {} sample(s))", offsetMs, uncertaintyMs, used);
+        }
+    }
+
+    /**
+     * @return estimated {@code server - local} clock difference in milliseconds (0 before calibration)
+     */
+    public long offsetMs() {
+        return offsetMs;
+    }
+
+    /**
+     * @return half-width of the offset interval, {@link Long#MAX_VALUE} before calibration
+     */
+    public long uncertaintyMs() {
+        return uncertaintyMs;
+    }
+
+    public boolean isCalibrated() {
+        return uncertaintyMs != Long.MAX_VALUE;
+    }
+
+    public long currentTimeMillis() {
+        return System.currentTimeMillis() + offsetMs;
+    }
+
+    /**
+     * @return clock showing the estimated server time in the system default zone,
+     *         e.g. {@code LocalTime.now(serverClock.clock())}
+     */
+    public Clock clock() {
+        return clock;
+    }
+
+    private final class OffsetClock extends Clock {
+
+        private final ZoneId zone;
+
+        private OffsetClock(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return zone.equals(this.zone) ? this : new OffsetClock(zone);
+        }
+
+        @Override
+        public long millis() {
+            return currentTimeMillis();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+    }
+}
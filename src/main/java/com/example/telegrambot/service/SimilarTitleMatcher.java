@@ -0,0 +1,75 @@
+package com.example.telegrambot.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Title similarity check of a next-week subscription, compiled once per subscription.
+ * <p>
+ * A title is similar if one title contains the other, or if at least half of the subscription
+ * words match (a word longer than 3 chars matches if some event word contains it or is contained in it).
+ * The subscription title and its long words are matched against the event title in a single
+ * {@link MultiPatternMatcher} pass; event words are split only when the reverse check is needed.
+ */
+final class SimilarTitleMatcher {
+
+    private static final double MIN_WORD_SIMILARITY = 0.5;
+    private static final int MIN_WORD_LENGTH = 4;
+
+    private final String title;
+    private final int wordCount;
+    // Words longer than 3 chars; pattern ID i + 1 in the matcher (ID 0 is the whole title)
+    private final List<String> longWords;
+    private final MultiPatternMatcher matcher;
+
+    private SimilarTitleMatcher(String title, int wordCount, List<String> longWords, MultiPatternMatcher matcher) {
+        this.title = title;
+        this.wordCount = wordCount;
+        this.longWords = longWords;
+        this.matcher = matcher;
+    }
+
+    static SimilarTitleMatcher of(String subscriptionTitle) {
+        String title = MultiPatternMatcher.normalize(subscriptionTitle).trim();
+        String[] words = title.split("\\s+");
+        List<String> longWords = new ArrayList<>();
+        for (String word : words) {
+            if (word.length() >= MIN_WORD_LENGTH) {
+                longWords.add(word);
+            }
+        }
+        List<String> patterns = new ArrayList<>(longWords.size() + 1);
+        patterns.add(title);
+        patterns.addAll(longWords);
+        return new SimilarTitleMatcher(title, words.length, List.copyOf(longWords), MultiPatternMatcher.compile(patterns));
+    }
+
+    boolean matches(String eventTitle) {
+        String normalized = MultiPatternMatcher.normalize(eventTitle).trim();
+        BitSet found = matcher.find(normalized);
+        if (found.get(0) || title.contains(normalized)) {
+            return true;
+        }
+
+        String[] eventWords = null;
+        int matchingWords = 0;
+        for (int i = 0; i < longWords.size(); i++) {
+            if (found.get(i + 1)) {
+                matchingWords++;
+                continue;
+            }
+            if (eventWords == null) {
+                eventWords = normalized.split("\\s+");
+            }
+            String word = longWords.get(i);
+            for (String eventWord : eventWords) {
+                if (word.contains(eventWord)) {
+                    matchingWords++;
+                    break;
+                }
+            }
+        }
+        return (double) matchingWords / wordCount >= MIN_WORD_SIMILARITY;
+    }
+}
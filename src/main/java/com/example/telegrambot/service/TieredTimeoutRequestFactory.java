@@ -0,0 +1,78 @@
+package com.example.telegrambot.service;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Request factory over the shared pooled {@link HttpClient} with a timeout per endpoint class
+ * ({@link YandexApiRateLimiter#classify}): a background {@code /bookings/} refresh may take long,
+ * a list or booking request fails fast. If a {@link Deadline} is current on the calling thread, the
+ * timeout is cut to the time it has left, and a request past the deadline is not sent at all.
+ * <p>
+ * The timeout bounds waiting for a pooled connection and waiting for response data; connection
+ * setup is bounded by the pool's connect timeout.
+ */
+public final class TieredTimeoutRequestFactory implements ClientHttpRequestFactory {
+
+    private final RequestConfig defaults;
+    private final Map<YandexApiRateLimiter.EndpointClass, Long> timeoutsMs;
+    private final HttpComponentsClientHttpRequestFactory delegate;
+
+    /**
+     * @param defaults request settings other than timeouts (e.g. keep-alive), applied to every request
+     */
+    public TieredTimeoutRequestFactory(HttpClient httpClient, RequestConfig defaults,
+                                       Map<YandexApiRateLimiter.EndpointClass, Long> timeoutsMs) {
+        this.defaults = defaults;
+        this.timeoutsMs = new EnumMap<>(timeoutsMs);
+        for (YandexApiRateLimiter.EndpointClass endpoint : YandexApiRateLimiter.EndpointClass.values()) {
+            if (!this.timeoutsMs.containsKey(endpoint)) {
+                throw new IllegalArgumentException("No timeout for endpoint class " + endpoint);
+            }
+        }
+        this.delegate = new HttpComponentsClientHttpRequestFactory(httpClient);
+        this.delegate.setHttpContextFactory(this::createContext);
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        if (timeoutMs(httpMethod, uri.getPath(), Deadline.current()) <= 0) {
+            throw new SocketTimeoutException("Deadline exceeded before " + httpMethod + " " + uri.getPath());
+        }
+        return delegate.createRequest(uri, httpMethod);
+    }
+
+    /**
+     * @return timeout of the request in ms; 0 if the deadline has already passed
+     */
+    long timeoutMs(HttpMethod method, String path, Deadline deadline) {
+        long timeoutMs = timeoutsMs.get(YandexApiRateLimiter.classify(method, path));
+        if (deadline == null) {
+            return timeoutMs;
+        }
+        return deadline.isExpired() ? 0 : Math.min(timeoutMs, Math.max(1, deadline.remainingMs()));
+    }
+
+    private HttpClientContext createContext(HttpMethod method, URI uri) {
+        // Called right after createRequest checked the deadline: at least 1 ms is left by then
+        Timeout timeout = Timeout.ofMilliseconds(Math.max(1, timeoutMs(method, uri.getPath(), Deadline.current())));
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.copy(defaults)
+            .setConnectionRequestTimeout(timeout)
+            .setResponseTimeout(timeout)
+            .build());
+        return context;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.telegrambot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбор ответа {@code /timeslots}: ID слотов события в порядке, в котором их отдает API.
+ */
+public final class TimeSlots {
+
+    // Ответ бывает массивом слотов или объектом, где слоты лежат в одном из этих полей
+    private static final String[] SLOT_ARRAY_FIELDS = {"result", "timeSlots", "timeslots"};
+
+    private TimeSlots() {
+    }
+
+    /**
+     * Извлекает ID первого доступного слота из JSON ответа
+     *
+     * @return ID слота или null, если слотов нет
+     */
+    public static Long firstSlotId(JsonNode slotsJson) {
+        List<Long> slotIds = slotIds(slotsJson);
+        return slotIds.isEmpty() ? null : slotIds.get(0);
+    }
+
+    /**
+     * @return ID всех слотов из первого непустого массива слотов ответа; пустой список, если слотов нет
+     */
+    public static List<Long> slotIds(JsonNode slotsJson) {
+        if (slotsJson == null) {
+            return List.of();
+        }
+        // Вариант 1: массив слотов
+        List<Long> slotIds = idsOf(slotsJson);
+        // Вариант 2 и 3: объект с полем result / timeSlots / timeslots
+        for (int i = 0; i < SLOT_ARRAY_FIELDS.length && slotIds.isEmpty(); i++) {
+            slotIds = idsOf(slotsJson.get(SLOT_ARRAY_FIELDS[i]));
+        }
+        return slotIds;
+    }
+
+    /**
+     * Ищет регистрацию пользователя ({@code booking.id}) в слотах ответа.
+     *
+     * @param slotId слот, регистрация на который нужна, или null — регистрация на любой слот
+     * @return ID регистрации или null, если ее нет
+     */
+    public static String bookingId(JsonNode slotsJson, Long slotId) {
+        if (slotsJson == null) {
+            return null;
+        }
+        String bookingId = bookingIdIn(slotsJson, slotId);
+        for (int i = 0; i < SLOT_ARRAY_FIELDS.length && bookingId == null; i++) {
+            bookingId = bookingIdIn(slotsJson.get(SLOT_ARRAY_FIELDS[i]), slotId);
+        }
+        return bookingId;
+    }
+
+    private static String bookingIdIn(JsonNode slots, Long slotId) {
+        if (slots == null || !slots.isArray()) {
+            return null;
+        }
+        for (JsonNode slot : slots) {
+            JsonNode id = slot.get("id");
+            if (slotId != null && (id == null || !id.canConvertToLong() || id.asLong() != slotId)) {
+                continue;
+            }
+            JsonNode booking = slot.get("booking");
+            String bookingId = booking != null ? YandexEventsBookingService.readId(booking) : null;
+            if (bookingId != null && !bookingId.isEmpty()) {
+                return bookingId;
+            }
+        }
+        return null;
+    }
+
+    private static List<Long> idsOf(JsonNode slots) {
+        if (slots == null || !slots.isArray() || slots.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(slots.size());
+        for (JsonNode slot : slots) {
+            JsonNode id = slot.get("id");
+            if (id != null && id.canConvertToLong()) {
+                ids.add(id.asLong());
+            }
+        }
+        return ids;
+    }
+}
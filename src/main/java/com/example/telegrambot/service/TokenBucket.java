@@ -0,0 +1,109 @@
+package com.example.telegrambot.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket with an adaptive rate.
+ * <p>
+ * A 429 halves the current rate (down to {@code minRateFraction} of the configured one) and
+ * blocks the bucket until the server's {@code Retry-After} has passed; every successful request
+ * afterwards restores a small share of the configured rate. Priority callers that are waiting
+ * hold back non-priority callers, so a booking is never queued behind background refreshes.
+ */
+final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // Share of the configured rate restored by every successful request after a 429
+    private static final double RECOVERY_STEP = 0.05;
+
+    private final double configuredRate;
+    private final double minRate;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long blockedUntilNanos;
+    private int priorityWaiters;
+
+    TokenBucket(double ratePerSecond, double burst, double minRateFraction, LongSupplier nanoClock) {
+        this.configuredRate = ratePerSecond;
+        this.minRate = Math.max(ratePerSecond * minRateFraction, 0.01);
+        this.capacity = Math.max(burst, 1);
+        this.nanoClock = nanoClock;
+        this.rate = ratePerSecond;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+        this.blockedUntilNanos = lastRefillNanos;
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the number of nanoseconds to wait before trying again
+     */
+    synchronized long tryAcquire(boolean priority) {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        if (now < blockedUntilNanos) {
+            return blockedUntilNanos - now;
+        }
+        if (!priority && priorityWaiters > 0) {
+            // Уступаем бронированию: фоновый запрос ждет, пока приоритетные не получат токены
+            return Math.max(nanosPerToken() / 4, 1_000_000L);
+        }
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max((long) ((1 - tokens) * nanosPerToken()), 1);
+    }
+
+    /**
+     * Returns a token taken by {@link #tryAcquire} for a request that was not sent after all.
+     */
+    synchronized void giveBack() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    synchronized void enterPriorityWait() {
+        priorityWaiters++;
+    }
+
+    synchronized void exitPriorityWait() {
+        priorityWaiters--;
+    }
+
+    synchronized void onSuccess() {
+        if (rate < configuredRate) {
+            rate = Math.min(configuredRate, rate + configuredRate * RECOVERY_STEP);
+        }
+    }
+
+    synchronized void onRateLimited(long retryAfterNanos) {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        rate = Math.max(minRate, rate / 2);
+        tokens = 0;
+        blockedUntilNanos = Math.max(blockedUntilNanos, now + retryAfterNanos);
+        // Токены начинают копиться только после окончания блокировки
+        lastRefillNanos = blockedUntilNanos;
+    }
+
+    synchronized double currentRate() {
+        return rate;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * rate / NANOS_PER_SECOND);
+            lastRefillNanos = now;
+        }
+    }
+
+    private long nanosPerToken() {
+        return (long) (NANOS_PER_SECOND / rate);
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.telegrambot.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * In-memory view of each user's bookings (eventId -> bookingId), keyed by the user's cookie.
+ * <p>
+ * The first lookup for a user loads the list synchronously; afterwards a stale entry is still
+ * served while a background refresh runs. Successful {@code book()}/{@code unbook()} calls
+ * update the entry immediately. A refresh that started before such a local update is discarded,
+ * so a slow {@code /bookings/} response cannot undo a booking made meanwhile. A booking recorded
+ * for a user whose list was never loaded does not count as the full list: the next lookup still
+ * loads it synchronously.
+ * <p>
+ * Concurrent first lookups for one cookie share a single load. If the first load fails, lookups within
+ * {@link #FAILURE_RETRY_MS} get what is known locally (usually nothing) without another request, so
+ * an unavailable {@code /bookings/} does not turn every booking check into a synchronous request.
+ * <p>
+ * Entries neither loaded nor updated for {@link #RETENTION_MS} are evicted (a user's cookie rotates,
+ * the old key is never used again); an evicted user is simply loaded again on the next lookup.
+ */
+final class UserBookingsCache {
+
+    // Booking ID unknown (e.g. booking response had no id); Map values cannot be null
+    private static final String UNKNOWN_BOOKING_ID = "";
+
+    // Far above the refresh interval: an entry in use is reloaded long before it expires
+    static final long RETENTION_MS = 60 * 60_000L;
+
+    // A failed first load is not retried for this long
+    static final long FAILURE_RETRY_MS = 5_000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    // First loads in flight, shared by concurrent lookups of the same cookie
+    private final Map<String, CompletableFuture<Map<String, String>>> firstLoads = new ConcurrentHashMap<>();
+    // Cookie -> when its first load last failed
+    private final Map<String, Long> failedAt = new ConcurrentHashMap<>();
+    // Orders local updates against loads (milliseconds are too coarse: both often fall into the same one)
+    private final AtomicLong localUpdates = new AtomicLong();
+    private final long retentionMs;
+    private final long failureRetryMs;
+
+    UserBookingsCache() {
+        this(RETENTION_MS);
+    }
+
+    UserBookingsCache(long retentionMs) {
+        this(retentionMs, FAILURE_RETRY_MS);
+    }
+
+    UserBookingsCache(long retentionMs, long failureRetryMs) {
+        this.retentionMs = retentionMs;
+        this.failureRetryMs = failureRetryMs;
+    }
+
+    /**
+     * @param loader loads eventId -> bookingId for a cookie, returns null if the request failed
+     * @return current bookings of the user (eventId -> bookingId or empty string when unknown)
+     */
+    Map<String, String> get(String cookie, long refreshMs, Function<String, Map<String, String>> loader, Executor executor) {
+        Entry entry = entries.get(cookie);
+        if (entry == null || !entry.isLoaded()) {
+            return firstLoad(cookie, entry, loader);
+        }
+        if (System.currentTimeMillis() - entry.loadedAt() >= refreshMs && refreshing.add(cookie)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        load(cookie, loader);
+                    } finally {
+                        refreshing.remove(cookie);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                refreshing.remove(cookie);
+            }
+        }
+        return entry.bookings();
+    }
+
+    /**
+     * Loads the bookings right away, bypassing the cached list.
+     *
+     * @return current bookings of the user, or null if the request failed
+     */
+    Map<String, String> refresh(String cookie, Function<String, Map<String, String>> loader) {
+        return reload(cookie, loader);
+    }
+
+    private Map<String, String> firstLoad(String cookie, Entry entry, Function<String, Map<String, String>> loader) {
+        Long failed = failedAt.get(cookie);
+        if (failed != null && System.currentTimeMillis() - failed < failureRetryMs) {
+            return entry != null ? entry.bookings() : Map.of();
+        }
+        CompletableFuture<Map<String, String>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<String, String>> inFlight = firstLoads.putIfAbsent(cookie, mine);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Map<String, String> bookings = load(cookie, loader);
+            mine.complete(bookings);
+            return bookings;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            firstLoads.remove(cookie, mine);
+        }
+    }
+
+    private Map<String, String> load(String cookie, Function<String, Map<String, String>> loader) {
+        Map<String, String> reloaded = reload(cookie, loader);
+        if (reloaded == null) {
+            Entry existing = entries.get(cookie);
+            if (existing == null || !existing.isLoaded()) {
+                failedAt.put(cookie, System.currentTimeMillis());
+            }
+            return existing != null ? existing.bookings() : Map.of();
+        }
+        return reloaded;
+    }
+
+    private Map<String, String> reload(String cookie, Function<String, Map<String, String>> loader) {
+        long updatesBefore = localUpdates.get();
+        Map<String, String> loaded = loader.apply(cookie);
+        if (loaded == null) {
+            return null;
+        }
+        Entry updated = entries.compute(cookie, (key, existing) -> {
+            if (existing != null && existing.localUpdate() > updatesBefore) {
+                // Local book/unbook happened while loading: keep local state, retry on next access
+                return existing;
+            }
+            long now = System.currentTimeMillis();
+            return new Entry(Map.copyOf(loaded), now, 0, now);
+        });
+        failedAt.remove(cookie);
+        evictIdle();
+        return updated.bookings();
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> now - entry.touchedAt() > retentionMs);
+        failedAt.values().removeIf(failed -> now - failed >= failureRetryMs);
+    }
+
+    /**
+     * Records a booking made by this process. Without a loaded entry only the booking itself is
+     * known: it is kept (a load already in flight must not drop it), but {@link #get} still loads
+     * the full list first.
+     */
+    void recordBooked(String cookie, String eventId, String bookingId) {
+        entries.compute(cookie, (key, existing) -> {
+            Map<String, String> bookings = existing != null ? new HashMap<>(existing.bookings()) : new HashMap<>();
+            bookings.put(eventId, bookingId != null ? bookingId : UNKNOWN_BOOKING_ID);
+            long loadedAt = existing != null ? existing.loadedAt() : 0;
+            return new Entry(Map.copyOf(bookings), loadedAt, localUpdates.incrementAndGet(), System.currentTimeMillis());
+        });
+    }
+
+    void recordUnbooked(String cookie, String eventId) {
+        entries.computeIfPresent(cookie, (key, existing) -> {
+            Map<String, String> bookings = new HashMap<>(existing.bookings());
+            bookings.remove(eventId);
+            return new Entry(Map.copyOf(bookings), existing.loadedAt(), localUpdates.incrementAndGet(), System.currentTimeMillis());
+        });
+    }
+
+    /**
+     * @return cached booking ID or null if the event is not booked or the ID is unknown
+     */
+    String getBookingId(String cookie, String eventId) {
+        Entry entry = entries.get(cookie);
+        if (entry == null) {
+            return null;
+        }
+        String bookingId = entry.bookings().get(eventId);
+        return bookingId == null || bookingId.isEmpty() ? null : bookingId;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param loadedAt    when the full list was loaded, 0 if it never was (only local updates are known)
+     * @param localUpdate sequence number of the last local book/unbook, 0 if none since the load
+     * @param touchedAt   when the entry was last loaded or updated, for eviction
+     */
+    private record Entry(Map<String, String> bookings, long loadedAt, long localUpdate, long touchedAt) {
+
+        boolean isLoaded() {
+            return loadedAt > 0;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Decides which waitlisted events are worth a {@code /timeslots} request, using the change stream of
+ * the events list snapshots ({@link EventChangeFeed}) as a cheap bulk prefilter.
+ * <p>
+ * An event is probed when a change since the previous check shows it opened ({@link EventChange.Type#SEATS_OPENED})
+ * or its {@code freeSeats} went up (a seat was released), when it was never probed, or when a probe was
+ * requested because the previous offer ended and the next user in line is due. Events that stay available
+ * are re-probed at most once per {@code reprobeIntervalMs}, in case the snapshot ran ahead of the slots.
+ * Events the snapshot shows full are never probed. When the feed cannot tell what changed (first check of
+ * a snapshot key, or the cursor fell out of its log), every available waitlisted event counts as opened.
+ */
+final class WaitlistAvailability {
+
+    private final long reprobeIntervalMs;
+    private final BiFunction<EventsSnapshotCache.Key, Long, EventChangeFeed.Batch> changesSince;
+
+    // Feed cursor per snapshot key
+    private final Map<EventsSnapshotCache.Key, Long> cursors = new ConcurrentHashMap<>();
+    // Waitlisted events, and those of them opened by changes not yet handled
+    private volatile Set<String> tracked = Set.of();
+    private final Set<String> opened = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> probedAtMs = new ConcurrentHashMap<>();
+    private final Set<String> probeRequested = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param changesSince the feed, see {@link EventsService#changesSince}
+     */
+    WaitlistAvailability(long reprobeIntervalMs,
+                         BiFunction<EventsSnapshotCache.Key, Long, EventChangeFeed.Batch> changesSince) {
+        this.reprobeIntervalMs = reprobeIntervalMs;
+        this.changesSince = changesSince;
+    }
+
+    /**
+     * Applies the changes of the event's snapshot key since the previous check.
+     *
+     * @param event the event in the current snapshot of {@code key}
+     * @return whether its time slots should be requested now
+     */
+    boolean shouldProbe(EventsSnapshotCache.Key key, Event event, long nowMs) {
+        consumeChanges(key);
+        String eventId = event.getId();
+        if (!event.isHaveFreeSeats()) {
+            opened.remove(eventId);
+            return false;
+        }
+        boolean changed = opened.remove(eventId);
+        boolean requested = probeRequested.remove(eventId);
+        Long probedAt = probedAtMs.get(eventId);
+        boolean probe = changed
+            || requested
+            || probedAt == null
+            || nowMs - probedAt >= reprobeIntervalMs;
+        if (probe) {
+            probedAtMs.put(eventId, nowMs);
+        }
+        return probe;
+    }
+
+    private void consumeChanges(EventsSnapshotCache.Key key) {
+        // Events of one key are checked in parallel: the cursor is advanced by one of them at a time
+        synchronized (cursors) {
+            EventChangeFeed.Batch batch = changesSince.apply(key, cursors.getOrDefault(key, EventChangeFeed.NO_CURSOR));
+            cursors.put(key, batch.cursor());
+            Set<String> waitlisted = tracked;
+            if (!batch.complete()) {
+                for (Event event : batch.current().values()) {
+                    if (event.isHaveFreeSeats() && waitlisted.contains(event.getId())) {
+                        opened.add(event.getId());
+                    }
+                }
+                return;
+            }
+            for (EventChange change : batch.changes()) {
+                boolean opens = change.type() == EventChange.Type.SEATS_OPENED
+                    || change.type() == EventChange.Type.FREE_SEATS_CHANGED && change.freeSeatsDelta() > 0;
+                if (opens && waitlisted.contains(change.eventId())) {
+                    opened.add(change.eventId());
+                }
+            }
+        }
+    }
+
+    /**
+     * The next availability check of the event requests its time slots, if the snapshot shows it available.
+     */
+    void requestProbe(String eventId) {
+        probeRequested.add(eventId);
+    }
+
+    /**
+     * Sets the waitlisted events; state of the others is dropped.
+     */
+    void retainAll(Set<String> eventIds) {
+        tracked = Set.copyOf(eventIds);
+        opened.retainAll(eventIds);
+        probedAtMs.keySet().retainAll(eventIds);
+        probeRequested.retainAll(eventIds);
+    }
+}
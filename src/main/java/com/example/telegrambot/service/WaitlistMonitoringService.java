@@ -2,16 +2,22 @@ package com.example.telegrambot.service;
 
 import com.example.telegrambot.entity.WaitlistEntry;
 import com.example.telegrambot.bot.TelegramBot;
+import com.example.telegrambot.config.ExecutionConfig;
+import com.example.telegrambot.config.SchedulingConfig;
 import com.example.telegrambot.dto.Event;
 import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @org.springframework.context.annotation.Profile("!server-only")
@@ -30,6 +36,27 @@ public class WaitlistMonitoringService {
     private final Map<String, Boolean> notifiedUsers = new ConcurrentHashMap<>();
     
     private static final long OFFER_TIMEOUT_MS = 60_000; // 1 минута таймаут на ответ
+    private static final long WAITLIST_CHECK_INTERVAL_MS = 5000;
+    // Сколько первых записей очереди читается при проверке: уведомлен может быть только тот, кому сделано активное предложение
+    private static final int WAITLIST_HEAD_SIZE = 16;
+
+    // Не более стольких событий проверяется одновременно
+    @Value("${events.waitlist.scan.parallelism:8}")
+    private int scanParallelism = 8;
+
+    // Срок одного прохода: после него новые проверки не начинаются, запросы урезаются до оставшегося времени
+    @Value("${events.waitlist.scan.deadline-ms:4500}")
+    private long scanDeadlineMs = 4500;
+
+    // События, до которых прошлый проход не дошел; следующий проход начинается с них (только поток планировщика)
+    private List<String> uncheckedLastScan = List.of();
+
+    // Слоты запрашиваются только у событий, которые по изменениям списка событий только что стали доступны,
+    // см. WaitlistAvailability и EventChangeFeed
+    @Value("${events.waitlist.reprobe-interval-ms:60000}")
+    private long reprobeIntervalMs = 60000;
+
+    private WaitlistAvailability availability;
 
     private final WaitlistService waitlistService;
     private final YandexEventsBookingService bookingService;
@@ -37,6 +64,8 @@ public class WaitlistMonitoringService {
     private final UserCookieService userCookieService;
     private final EventHoldService eventHoldService;
     private final ApplicationContext applicationContext;
+    private final ScheduledTickMonitor.Task waitlistTicks;
+    private final ExecutorService scanExecutor;
 
     public WaitlistMonitoringService(
             WaitlistService waitlistService,
@@ -44,6 +73,8 @@ public class WaitlistMonitoringService {
             EventsService eventsService,
             UserCookieService userCookieService,
             EventHoldService eventHoldService,
+            ScheduledTickMonitor tickMonitor,
+            @Qualifier(ExecutionConfig.WAITLIST_SCAN_EXECUTOR) ExecutorService scanExecutor,
             ApplicationContext applicationContext) {
         this.waitlistService = waitlistService;
         this.bookingService = bookingService;
@@ -51,6 +82,13 @@ public class WaitlistMonitoringService {
         this.userCookieService = userCookieService;
         this.eventHoldService = eventHoldService;
         this.applicationContext = applicationContext;
+        this.waitlistTicks = tickMonitor.fixedRate("waitlist-monitoring", WAITLIST_CHECK_INTERVAL_MS);
+        this.scanExecutor = scanExecutor;
+    }
+
+    @PostConstruct
+    void initAvailability() {
+        availability = new WaitlistAvailability(reprobeIntervalMs, eventsService::changesSince);
     }
 
     private TelegramBot getTelegramBot() {
@@ -60,14 +98,27 @@ public class WaitlistMonitoringService {
     /**
      * Проверяет события из листа ожидания каждые 5 секунд
      */
-    @Scheduled(fixedRate = 5000)
+    @Scheduled(fixedRate = WAITLIST_CHECK_INTERVAL_MS, scheduler = SchedulingConfig.WAITLIST_SCHEDULER)
     public void checkWaitlistEvents() {
+        waitlistTicks.run(this::checkWaitlistEventsTick);
+    }
+
+    private void checkWaitlistEventsTick() {
         try {
             // Получаем все уникальные eventId из листа ожидания
             Set<String> eventIds = getAllEventIdsInWaitlist();
-            
-            for (String eventId : eventIds) {
-                checkEventAvailability(eventId);
+            List<String> scanOrder = scanOrder(eventIds);
+            availability.retainAll(eventIds);
+
+            // События проверяются параллельно на blocking I/O executor (виртуальные потоки, если включены),
+            // не более scan.parallelism одновременно и не дольше scan.deadline-ms
+            WaitlistScan.Result scan = WaitlistScan.run(scanOrder, this::checkEventAvailability,
+                scanParallelism, Deadline.after(scanDeadlineMs), scanExecutor);
+            uncheckedLastScan = scan.unchecked();
+            waitlistTicks.recordCoverage(scan.checked(), scanOrder.size());
+            if (!scan.unchecked().isEmpty()) {
+                logger.warn("Waitlist scan hit its {} ms deadline: {}/{} event(s) checked, the rest go first next time",
+                    scanDeadlineMs, scan.checked(), scanOrder.size());
             }
             
             // Проверяем таймауты предложений
@@ -77,6 +128,25 @@ public class WaitlistMonitoringService {
         }
     }
 
+    /**
+     * Порядок проверки: сначала события, до которых не дошел прошлый проход
+     */
+    private List<String> scanOrder(Set<String> eventIds) {
+        List<String> order = new ArrayList<>(eventIds.size());
+        for (String eventId : uncheckedLastScan) {
+            if (eventIds.contains(eventId)) {
+                order.add(eventId);
+            }
+        }
+        Set<String> first = new HashSet<>(order);
+        for (String eventId : eventIds) {
+            if (!first.contains(eventId)) {
+                order.add(eventId);
+            }
+        }
+        return order;
+    }
+
     /**
      * Получает все уникальные eventId из листа ожидания
      */
@@ -98,8 +168,8 @@ public class WaitlistMonitoringService {
                 return;
             }
 
-            // Получаем список пользователей в листе ожидания (упорядоченный по позиции)
-            List<WaitlistEntry> waitlist = waitlistService.getAllUsersInWaitlist(eventId);
+            // Получаем начало листа ожидания (упорядоченное по позиции)
+            List<WaitlistEntry> waitlist = waitlistService.getWaitlistHead(eventId, WAITLIST_HEAD_SIZE);
             if (waitlist.isEmpty()) {
                 return;
             }
@@ -150,19 +220,35 @@ public class WaitlistMonitoringService {
                 return;
             }
 
+            // Изменения списка событий — дешевый фильтр: слоты запрашиваем, только если событие стало доступно
+            EventsSnapshotCache.Key snapshotKey = eventsService.snapshotKey(firstUser.getUserId());
+            if (!availability.shouldProbe(snapshotKey, event, System.currentTimeMillis())) {
+                logger.debug("Event {} not opened in events list (haveFreeSeats={}, freeSeats={}), skipping slots check",
+                    eventId, event.isHaveFreeSeats(), event.getFreeSeats());
+                return;
+            }
+
             int cityId = event.getCity() != null ? event.getCity().getId() : 1;
             String referer = String.format("https://events.yandex-team.ru/?city=%d&eventId=%s", cityId, eventId);
 
             // Проверяем доступность слотов через API
-            JsonNode slotsJson = bookingService.getTimeSlots(
-                eventId,
-                userCookie,
-                referer,
-                DEFAULT_USER_AGENT
-            );
+            JsonNode slotsJson;
+            try {
+                slotsJson = bookingService.getTimeSlots(
+                    eventId,
+                    userCookie,
+                    referer,
+                    DEFAULT_USER_AGENT
+                );
+            } catch (RuntimeException e) {
+                // shouldProbe уже отметил проверку: без повторного запроса событие ждало бы смены мест
+                // в списке или reprobe-interval-ms
+                availability.requestProbe(eventId);
+                throw e;
+            }
 
             // Проверяем, есть ли доступные слоты
-            Long slotId = extractFirstSlotId(slotsJson);
+            Long slotId = TimeSlots.firstSlotId(slotsJson);
             if (slotId != null && slotId > 0) {
                 // Есть доступный слот - предлагаем пользователю
                 offerSlotToUser(eventId, firstUser, event, slotId);
@@ -199,7 +285,7 @@ public class WaitlistMonitoringService {
                 escapeMarkdown(eventTitle)
             );
 
-            getTelegramBot().sendSlotOfferNotification(user.getChatId(), user.getUserId(), eventId, eventTitle, message);
+            getTelegramBot().sendSlotOfferNotificationAsync(user.getChatId(), user.getUserId(), eventId, eventTitle, message);
             
             logger.info("Offered slot for event {} to user {} (position 1)", eventId, user.getUserId());
         } catch (Exception e) {
@@ -251,7 +337,7 @@ public class WaitlistMonitoringService {
                 DEFAULT_USER_AGENT
             );
 
-            Long slotId = extractFirstSlotId(slotsJson);
+            Long slotId = TimeSlots.firstSlotId(slotsJson);
             if (slotId == null || slotId <= 0) {
                 logger.warn("No available slots for event {} at confirmation time", eventId);
                 getTelegramBot().sendMessage(chatId, "❌ К сожалению, слот больше не доступен.");
@@ -262,6 +348,7 @@ public class WaitlistMonitoringService {
 
             // Выполняем регистрацию
             JsonNode response = bookingService.book(
+                eventId,
                 userCookie,
                 referer,
                 DEFAULT_USER_AGENT,
@@ -367,6 +454,8 @@ public class WaitlistMonitoringService {
      * Очищает предложение для события
      */
     private void clearOffer(String eventId) {
+        // Место может достаться следующему в очереди: на следующей проверке снова запрашиваем слоты
+        availability.requestProbe(eventId);
         Long userId = pendingOffers.remove(eventId);
         offerTimestamps.remove(eventId);
         // Удаляем информацию об уведомлении для этого события и пользователя
@@ -376,46 +465,6 @@ public class WaitlistMonitoringService {
         }
     }
 
-    /**
-     * Извлекает ID первого доступного слота из JSON
-     */
-    private Long extractFirstSlotId(JsonNode slotsJson) {
-        if (slotsJson == null) {
-            return null;
-        }
-        // Вариант 1: массив слотов
-        if (slotsJson.isArray() && slotsJson.size() > 0) {
-            JsonNode first = slotsJson.get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        // Вариант 2: объект с полем result
-        if (slotsJson.has("result") && slotsJson.get("result").isArray() && 
-            slotsJson.get("result").size() > 0) {
-            JsonNode first = slotsJson.get("result").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        // Вариант 3: объект с полем timeSlots/timeslots
-        if (slotsJson.has("timeSlots") && slotsJson.get("timeSlots").isArray() && 
-            slotsJson.get("timeSlots").size() > 0) {
-            JsonNode first = slotsJson.get("timeSlots").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        if (slotsJson.has("timeslots") && slotsJson.get("timeslots").isArray() && 
-            slotsJson.get("timeslots").size() > 0) {
-            JsonNode first = slotsJson.get("timeslots").get(0);
-            if (first.has("id") && first.get("id").canConvertToLong()) {
-                return first.get("id").asLong();
-            }
-        }
-        return null;
-    }
-
     /**
      * Получает событие по ID для пользователя
      */
@@ -0,0 +1,69 @@
+package com.example.telegrambot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * One pass over the waitlisted events with bounded fan-out: at most {@code parallelism} events are
+ * checked at a time, and no new check starts once the scan's {@link Deadline} has passed. Checks run
+ * with the deadline current, so their requests are cut to the time the scan has left.
+ * <p>
+ * Events left unchecked are reported, so the next scan can start with them.
+ */
+final class WaitlistScan {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistScan.class);
+
+    /**
+     * @param checked   number of events checked
+     * @param unchecked events not reached before the deadline, in scan order
+     */
+    record Result(int checked, List<String> unchecked) {
+    }
+
+    private WaitlistScan() {
+    }
+
+    /**
+     * Checks {@code eventIds} in order; {@code check} must not throw.
+     */
+    static Result run(List<String> eventIds, Consumer<String> check, int parallelism, Deadline deadline, Executor executor) {
+        if (eventIds.isEmpty()) {
+            return new Result(0, List.of());
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger checked = new AtomicInteger();
+        int workers = Math.max(1, Math.min(parallelism, eventIds.size()));
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try (Deadline.Scope ignored = deadline.enter()) {
+                    while (!deadline.isExpired()) {
+                        int index = next.getAndIncrement();
+                        if (index >= eventIds.size()) {
+                            return;
+                        }
+                        check.accept(eventIds.get(index));
+                        checked.incrementAndGet();
+                    }
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (RuntimeException e) {
+            logger.error("Waitlist scan worker failed", e);
+        }
+
+        int reached = Math.min(next.get(), eventIds.size());
+        return new Result(checked.get(), List.copyOf(eventIds.subList(reached, eventIds.size())));
+    }
+}
@@ -4,18 +4,28 @@ import com.example.telegrambot.entity.WaitlistEntry;
 import com.example.telegrambot.repository.WaitlistRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Лист ожидания события. Порядок очереди задается номером {@code position}, который выдается по
+ * возрастанию и не пересчитывается: выход из очереди — один DELETE, место в очереди вычисляется
+ * подсчетом записей впереди.
+ */
 @Service
 @org.springframework.context.annotation.Profile("!server-only")
 public class WaitlistService {
 
     private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
-    private static final int MAX_WAITLIST_SIZE = 10;
+
+    // Вместимость листа ожидания одного события
+    @Value("${events.waitlist.max-size:10}")
+    private int maxWaitlistSize = 10;
 
     private final WaitlistRepository waitlistRepository;
 
@@ -28,31 +38,32 @@ public class WaitlistService {
         // Проверяем, не записан ли уже пользователь в лист ожидания
         Optional<WaitlistEntry> existingEntry = waitlistRepository.findByEventIdAndUserId(eventId, userId);
         if (existingEntry.isPresent()) {
-            int position = existingEntry.get().getPosition();
-            int peopleAhead = position - 1;
+            int peopleAhead = (int) countAhead(existingEntry.get());
             return new AddToWaitlistResult(false, "Вы уже записаны в лист ожидания на это событие.", peopleAhead);
         }
 
         // Проверяем, заполнен ли лист ожидания
         long currentSize = waitlistRepository.countByEventId(eventId);
-        if (currentSize >= MAX_WAITLIST_SIZE) {
-            return new AddToWaitlistResult(false, "Лист ожидания заполнен (максимум " + MAX_WAITLIST_SIZE + " человек).", -1);
+        if (currentSize >= maxWaitlistSize) {
+            return new AddToWaitlistResult(false, "Лист ожидания заполнен (максимум " + maxWaitlistSize + " человек).", -1);
         }
 
-        // Добавляем пользователя в лист ожидания
-        int newPosition = (int) currentSize + 1;
-        WaitlistEntry entry = new WaitlistEntry(eventId, userId, chatId, newPosition);
+        // Добавляем пользователя в конец листа ожидания: номер больше всех выданных для события
+        WaitlistEntry entry = new WaitlistEntry(eventId, userId, chatId, waitlistRepository.findMaxPosition(eventId) + 1);
         waitlistRepository.save(entry);
 
-        int peopleAhead = newPosition - 1;
-        logger.info("User {} added to waitlist for event {} at position {}", userId, eventId, newPosition);
+        int peopleAhead = (int) currentSize;
+        logger.info("User {} added to waitlist for event {} at position {}", userId, eventId, peopleAhead + 1);
 
         return new AddToWaitlistResult(true, "Вы успешно записаны в лист ожидания!", peopleAhead);
     }
 
+    /**
+     * @return место пользователя в очереди (с 1) или -1
+     */
     public int getPositionInWaitlist(String eventId, Long userId) {
         Optional<WaitlistEntry> entry = waitlistRepository.findByEventIdAndUserId(eventId, userId);
-        return entry.map(WaitlistEntry::getPosition).orElse(-1);
+        return entry.map(e -> (int) countAhead(e) + 1).orElse(-1);
     }
 
     public int getWaitlistSize(String eventId) {
@@ -60,11 +71,22 @@ public class WaitlistService {
     }
 
     public boolean isWaitlistFull(String eventId) {
-        return waitlistRepository.countByEventId(eventId) >= MAX_WAITLIST_SIZE;
+        return waitlistRepository.countByEventId(eventId) >= maxWaitlistSize;
     }
 
     public List<WaitlistEntry> getAllUsersInWaitlist(String eventId) {
-        return waitlistRepository.findByEventIdOrderByPositionAsc(eventId);
+        return waitlistRepository.findByEventIdOrderByPositionAscIdAsc(eventId);
+    }
+
+    /**
+     * Первые {@code limit} записей очереди (очередь может быть длинной)
+     */
+    public List<WaitlistEntry> getWaitlistHead(String eventId, int limit) {
+        return waitlistRepository.findByEventIdOrderByPositionAscIdAsc(eventId, PageRequest.of(0, limit));
+    }
+
+    public Optional<WaitlistEntry> findEntryByChatId(String eventId, Long chatId) {
+        return waitlistRepository.findFirstByEventIdAndChatId(eventId, chatId);
     }
 
     /**
@@ -81,62 +103,37 @@ public class WaitlistService {
         return waitlistRepository.findAllDistinctEventIds();
     }
 
+    /**
+     * Удаляет пользователя из очереди. Все, кто стоял за ним, сдвигаются на одно место вперед;
+     * их список для уведомлений получается одним запросом.
+     */
     @Transactional
     public RemoveFromWaitlistResult removeFromWaitlist(String eventId, Long userId) {
-        Optional<WaitlistEntry> entry = waitlistRepository.findByEventIdAndUserId(eventId, userId);
-        if (entry.isEmpty()) {
+        Optional<WaitlistEntry> found = waitlistRepository.findByEventIdAndUserId(eventId, userId);
+        if (found.isEmpty()) {
             return new RemoveFromWaitlistResult(false, "Вы не находитесь в листе ожидания на это событие.");
         }
+        WaitlistEntry entry = found.get();
+
+        int removedPosition = (int) countAhead(entry) + 1;
+        List<WaitlistEntry> behind = waitlistRepository.findBehind(eventId, entry.getPosition(), entry.getId());
+        waitlistRepository.deleteEntry(entry.getId());
+
+        List<PositionUpdate> positionUpdates = new java.util.ArrayList<>(behind.size());
+        for (int i = 0; i < behind.size(); i++) {
+            WaitlistEntry moved = behind.get(i);
+            positionUpdates.add(new PositionUpdate(moved.getUserId(), moved.getChatId(),
+                removedPosition + i + 1, removedPosition + i));
+        }
 
-        int removedPosition = entry.get().getPosition();
-        
-        // Получаем всех пользователей с их текущими позициями до удаления
-        List<WaitlistEntry> allEntriesBefore = waitlistRepository.findByEventIdOrderByPositionAsc(eventId);
-        
-        // Сохраняем старые позиции для последующих пользователей
-        java.util.Map<Long, Integer> oldPositions = new java.util.HashMap<>();
-        for (WaitlistEntry e : allEntriesBefore) {
-            oldPositions.put(e.getUserId(), e.getPosition());
-        }
-        
-        // Удаляем пользователя
-        waitlistRepository.deleteByEventIdAndUserId(eventId, userId);
-        
-        // Пересчитываем позиции после удаления
-        recalculatePositions(eventId);
-        
-        // Получаем обновленный список и собираем информацию об изменениях
-        List<PositionUpdate> positionUpdates = new java.util.ArrayList<>();
-        List<WaitlistEntry> remainingEntries = waitlistRepository.findByEventIdOrderByPositionAsc(eventId);
-        
-        for (WaitlistEntry remainingEntry : remainingEntries) {
-            Integer oldPosition = oldPositions.get(remainingEntry.getUserId());
-            int newPosition = remainingEntry.getPosition();
-            // Уведомляем только тех, кто был после удаленного пользователя
-            if (oldPosition != null && oldPosition > removedPosition && oldPosition != newPosition) {
-                positionUpdates.add(new PositionUpdate(
-                    remainingEntry.getUserId(),
-                    remainingEntry.getChatId(),
-                    oldPosition,
-                    newPosition
-                ));
-            }
-        }
-        
         logger.info("User {} removed from waitlist for event {}. {} users will be notified.", 
             userId, eventId, positionUpdates.size());
 
         return new RemoveFromWaitlistResult(true, "Вы успешно вышли из листа ожидания.", positionUpdates);
     }
 
-    @Transactional
-    private void recalculatePositions(String eventId) {
-        List<WaitlistEntry> entries = waitlistRepository.findByEventIdOrderByPositionAsc(eventId);
-        for (int i = 0; i < entries.size(); i++) {
-            WaitlistEntry entry = entries.get(i);
-            entry.setPosition(i + 1);
-            waitlistRepository.save(entry);
-        }
+    private long countAhead(WaitlistEntry entry) {
+        return waitlistRepository.countAhead(entry.getEventId(), entry.getPosition(), entry.getId());
     }
 
     public static class RemoveFromWaitlistResult {
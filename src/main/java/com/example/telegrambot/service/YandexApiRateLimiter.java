@@ -0,0 +1,212 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.exception.RateLimitException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single rate limiter in front of every events.yandex-team.ru request.
+ * <p>
+ * Installed as an interceptor on the shared request factory ({@code YandexHttpClientConfig}),
+ * so {@link EventsService}, {@link YandexEventsBookingService} and every subsystem using them
+ * (poller, waitlist and next-week monitors, bot) draw from the same budget. Each request takes a
+ * token from the bucket of its endpoint class and from the global bucket. A 429 blocks the bucket of
+ * its endpoint class until {@code Retry-After} and halves its rate; only a 429 on a booking request
+ * penalizes the global bucket too, so a throttled waitlist probe never holds back a booking.
+ * Booking requests have priority over everything else.
+ * If a token is not available within {@code max-wait-ms}, {@link RateLimitException} is thrown
+ * instead of blocking the calling scheduler thread indefinitely.
+ */
+@Service
+public class YandexApiRateLimiter implements ClientHttpRequestInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(YandexApiRateLimiter.class);
+
+    public enum EndpointClass {
+        // Список событий, города, категории
+        LIST,
+        TIMESLOTS,
+        // Регистрация и отмена регистрации
+        BOOK,
+        BOOKINGS
+    }
+
+    @Value("${events.rate-limit.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${events.rate-limit.global-rps:20}")
+    private double globalRps = 20;
+
+    @Value("${events.rate-limit.list-rps:5}")
+    private double listRps = 5;
+
+    @Value("${events.rate-limit.timeslots-rps:10}")
+    private double timeslotsRps = 10;
+
+    @Value("${events.rate-limit.book-rps:5}")
+    private double bookRps = 5;
+
+    @Value("${events.rate-limit.bookings-rps:2}")
+    private double bookingsRps = 2;
+
+    // Lower bound for the adaptive rate, as a fraction of the configured rate
+    @Value("${events.rate-limit.min-rate-fraction:0.1}")
+    private double minRateFraction = 0.1;
+
+    // Backoff after a 429 without a Retry-After header
+    @Value("${events.rate-limit.default-retry-after-ms:500}")
+    private long defaultRetryAfterMs = 500;
+
+    @Value("${events.rate-limit.max-wait-ms:5000}")
+    private long maxWaitMs = 5000;
+
+    private TokenBucket globalBucket;
+    private final Map<EndpointClass, TokenBucket> buckets = new EnumMap<>(EndpointClass.class);
+
+    @PostConstruct
+    void init() {
+        globalBucket = newBucket(globalRps);
+        buckets.put(EndpointClass.LIST, newBucket(listRps));
+        buckets.put(EndpointClass.TIMESLOTS, newBucket(timeslotsRps));
+        buckets.put(EndpointClass.BOOK, newBucket(bookRps));
+        buckets.put(EndpointClass.BOOKINGS, newBucket(bookingsRps));
+        logger.info("Yandex API rate limiter: enabled={}, global={} rps, list={} rps, timeslots={} rps, book={} rps, bookings={} rps",
+            enabled, globalRps, listRps, timeslotsRps, bookRps, bookingsRps);
+    }
+
+    private TokenBucket newBucket(double rps) {
+        // Burst = one second worth of requests
+        return new TokenBucket(rps, rps, minRateFraction, System::nanoTime);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!enabled) {
+            return execution.execute(request, body);
+        }
+        EndpointClass endpoint = classify(request.getMethod(), request.getURI().getPath());
+        acquire(endpoint);
+
+        ClientHttpResponse response = execution.execute(request, body);
+        if (response.getStatusCode().value() == 429) {
+            onRateLimited(endpoint, response.getHeaders());
+        } else {
+            buckets.get(endpoint).onSuccess();
+            globalBucket.onSuccess();
+        }
+        return response;
+    }
+
+    static EndpointClass classify(HttpMethod method, String path) {
+        if (path == null) {
+            return EndpointClass.LIST;
+        }
+        if (path.contains("/timeslots")) {
+            return EndpointClass.TIMESLOTS;
+        }
+        if (path.contains("/back/events/bookings")) {
+            return EndpointClass.BOOKINGS;
+        }
+        if (path.contains("/back/events/booking")) {
+            return EndpointClass.BOOK;
+        }
+        return EndpointClass.LIST;
+    }
+
+    /**
+     * Blocks until both the endpoint bucket and the global bucket grant a token.
+     *
+     * @throws RateLimitException if no token is available within {@code max-wait-ms}
+     *                            or before the caller's {@link Deadline}
+     */
+    void acquire(EndpointClass endpoint) {
+        boolean priority = endpoint == EndpointClass.BOOK;
+        Deadline callerDeadline = Deadline.current();
+        long waitMs = callerDeadline != null ? Math.min(maxWaitMs, callerDeadline.remainingMs()) : maxWaitMs;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        TokenBucket bucket = buckets.get(endpoint);
+        take(bucket, endpoint, priority, deadline, waitMs);
+        try {
+            take(globalBucket, endpoint, priority, deadline, waitMs);
+        } catch (RateLimitException e) {
+            // No request goes out: the endpoint token is not spent
+            bucket.giveBack();
+            throw e;
+        }
+    }
+
+    private void take(TokenBucket bucket, EndpointClass endpoint, boolean priority, long deadline, long waitMs) {
+        if (priority) {
+            bucket.enterPriorityWait();
+        }
+        try {
+            long waitNanos;
+            while ((waitNanos = bucket.tryAcquire(priority)) > 0) {
+                if (System.nanoTime() + waitNanos > deadline) {
+                    throw new RateLimitException(String.format(
+                        "Rate limiter: no %s token within %d ms", endpoint, waitMs), true);
+                }
+                LockSupport.parkNanos(waitNanos);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new RateLimitException("Interrupted while waiting for rate limiter", true);
+                }
+            }
+        } finally {
+            if (priority) {
+                bucket.exitPriorityWait();
+            }
+        }
+    }
+
+    private void onRateLimited(EndpointClass endpoint, HttpHeaders headers) {
+        long retryAfterMs = parseRetryAfterMs(headers.getFirst(HttpHeaders.RETRY_AFTER), defaultRetryAfterMs);
+        long retryAfterNanos = TimeUnit.MILLISECONDS.toNanos(retryAfterMs);
+        TokenBucket bucket = buckets.get(endpoint);
+        bucket.onRateLimited(retryAfterNanos);
+        if (endpoint == EndpointClass.BOOK) {
+            globalBucket.onRateLimited(retryAfterNanos);
+        }
+        logger.warn("429 from {} endpoint: pausing for {} ms, rate reduced to {} rps",
+            endpoint, retryAfterMs, String.format("%.2f", bucket.currentRate()));
+    }
+
+    /**
+     * Parses {@code Retry-After} given either in seconds or as an HTTP date.
+     */
+    static long parseRetryAfterMs(String retryAfter, long defaultMs) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return defaultMs;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException ignored) {
+            // not delta-seconds, try HTTP date
+        }
+        try {
+            ZonedDateTime until = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(until.getZone()), until).toMillis());
+        } catch (DateTimeParseException e) {
+            return defaultMs;
+        }
+    }
+}
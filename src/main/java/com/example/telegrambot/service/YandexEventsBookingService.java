@@ -3,40 +3,68 @@ package com.example.telegrambot.service;
 import com.example.telegrambot.exception.RateLimitException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.time.Duration;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @Service
 public class YandexEventsBookingService {
 
-    private static final String BOOKING_URL = "https://events.yandex-team.ru/back/events/booking/";
+    private static final URI BOOKING_URI = URI.create("https://events.yandex-team.ru/back/events/booking/");
+    // Закодированные тела запросов на запись храним ограниченно: ID слотов со временем меняются
+    private static final int MAX_ENCODED_BODIES = 1024;
     private static final Logger logger = LoggerFactory.getLogger(YandexEventsBookingService.class);
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public YandexEventsBookingService(RestTemplateBuilder restTemplateBuilder) {
+    // Список регистраций старше этого значения отдается из кэша и обновляется в фоне
+    @Value("${events.bookings.refresh-ms:30000}")
+    private long bookingsRefreshMs = 30000;
+
+    private final UserBookingsCache bookingsCache = new UserBookingsCache();
+    private final RequestHeaderTemplates headerTemplates = new RequestHeaderTemplates();
+    // Тело запроса на запись в JSON; кодируется один раз на слот, обычно заранее (armed booking)
+    private final Map<BookingRequest, byte[]> encodedBodies = new ConcurrentHashMap<>();
+    private final ExecutorService bookingsRefreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bookings-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public YandexEventsBookingService(RestTemplateBuilder restTemplateBuilder,
+                                      ClientHttpRequestFactory yandexRequestFactory) {
+        // Таймауты и пул соединений задаются общим клиентом (YandexHttpClientConfig)
         this.restTemplate = restTemplateBuilder
-                .setConnectTimeout(Duration.ofSeconds(10))
-                .setReadTimeout(Duration.ofSeconds(20))
+                .requestFactory(() -> yandexRequestFactory)
                 .build();
         // Не падаем на 4xx, т.к. API может вернуть валидный JSON с причиной ошибки
         this.restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
@@ -49,56 +77,96 @@ public class YandexEventsBookingService {
 
     public record BookingRequest(long timeSlot, int extraAdults, int extraChildren) {}
 
-    public JsonNode book(String cookieHeader,
-                         String referer,
-                         String userAgent,
-                         BookingRequest bookingRequest) {
-        logger.info("Booking request: timeSlot={}, extraAdults={}, extraChildren={}, referer={}",
-                bookingRequest.timeSlot(), bookingRequest.extraAdults(), bookingRequest.extraChildren(), referer);
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Accept-Language", "ru");
-        headers.set("Connection", "keep-alive");
-        headers.set("Cookie", cookieHeader);
-        headers.set("Origin", "https://events.yandex-team.ru");
-        headers.set("Referer", referer);
-        headers.set("Sec-Fetch-Dest", "empty");
-        headers.set("Sec-Fetch-Mode", "cors");
-        headers.set("Sec-Fetch-Site", "same-origin");
-        headers.set("User-Agent", userAgent);
-        headers.set("sec-ch-ua", "\"Not)A;Brand\";v=\"8\", \"Chromium\";v=\"138\", \"YaBrowser\";v=\"25.8\", \"Yowser\";v=\"2.5\"");
-        headers.set("sec-ch-ua-arch", "\"arm\"");
-        headers.set("sec-ch-ua-bitness", "\"64\"");
-        headers.set("sec-ch-ua-full-version-list", "\"Not)A;Brand\";v=\"8.0.0.0\", \"Chromium\";v=\"138.0.7204.977\", \"YaBrowser\";v=\"25.8.5.977\", \"Yowser\";v=\"2.5\"");
-        headers.set("sec-ch-ua-mobile", "?0");
-        headers.set("sec-ch-ua-platform", "\"macOS\"");
-        headers.set("sec-ch-ua-platform-version", "\"15.7.1\"");
-        headers.set("sec-ch-ua-wow64", "?0");
-
-        String payload;
+    /**
+     * Ответ API: статус и тело как есть.
+     */
+    private record RawResponse(HttpStatusCode status, byte[] body) {
+
+        static RawResponse read(ClientHttpResponse response) throws IOException {
+            return new RawResponse(response.getStatusCode(), StreamUtils.copyToByteArray(response.getBody()));
+        }
+
+        String bodyAsString() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Готовит запись на слоты заранее: шаблон заголовков для (cookie, referer) и закодированные тела
+     * запросов, чтобы {@link #book} сразу отправлял готовые байты.
+     */
+    public void prepareBooking(String cookieHeader, String referer, String userAgent, Collection<Long> slotIds) {
+        headerTemplates.get(RequestHeaderTemplates.Kind.POST_JSON, cookieHeader, referer, userAgent);
+        for (long slotId : slotIds) {
+            encodedBody(new BookingRequest(slotId, 0, 0));
+        }
+    }
+
+    private byte[] encodedBody(BookingRequest bookingRequest) {
+        byte[] body = encodedBodies.get(bookingRequest);
+        if (body != null) {
+            return body;
+        }
         try {
-            payload = objectMapper.writeValueAsString(bookingRequest);
+            body = objectMapper.writeValueAsBytes(bookingRequest);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to serialize booking request", e);
         }
+        if (encodedBodies.size() >= MAX_ENCODED_BODIES) {
+            encodedBodies.clear();
+        }
+        encodedBodies.put(bookingRequest, body);
+        return body;
+    }
 
-        HttpEntity<String> entity = new HttpEntity<>(payload, headers);
+    @PreDestroy
+    public void shutdown() {
+        bookingsRefreshExecutor.shutdownNow();
+    }
 
-        ResponseEntity<String> response = restTemplate.postForEntity(BOOKING_URL, entity, String.class);
-        logger.info("Booking response status: {}", response.getStatusCode());
-        logger.info("Booking response body: {}", response.getBody());
+    /**
+     * Регистрирует пользователя на слот события. При успешной регистрации событие сразу
+     * попадает в кэш регистраций пользователя.
+     *
+     * @param eventId ID события, которому принадлежит слот
+     */
+    public JsonNode book(String eventId,
+                         String cookieHeader,
+                         String referer,
+                         String userAgent,
+                         BookingRequest bookingRequest) {
+        logger.info("Booking request: eventId={}, timeSlot={}, extraAdults={}, extraChildren={}, referer={}",
+                eventId, bookingRequest.timeSlot(), bookingRequest.extraAdults(), bookingRequest.extraChildren(), referer);
+        HttpHeaders headers = headerTemplates.get(RequestHeaderTemplates.Kind.POST_JSON, cookieHeader, referer, userAgent);
+        byte[] payload = encodedBody(bookingRequest);
+
+        RawResponse response = restTemplate.execute(BOOKING_URI, HttpMethod.POST,
+            request -> {
+                request.getHeaders().putAll(headers);
+                request.getBody().write(payload);
+            },
+            RawResponse::read);
+        logger.info("Booking response status: {}", response.status());
+        if (logger.isInfoEnabled()) {
+            logger.info("Booking response body: {}", response.bodyAsString());
+        }
 
-        if (response.getStatusCode().value() == 429) {
+        if (response.status().value() == 429) {
             throw new RateLimitException("Booking API rate limited (429). Retry after delay.");
         }
 
+        JsonNode bookingJson;
         try {
-            return objectMapper.readTree(response.getBody());
+            bookingJson = objectMapper.readTree(response.body());
         } catch (Exception e) {
             logger.error("Failed to parse booking response body as JSON", e);
             throw new IllegalStateException("Booking API returned non-JSON body", e);
         }
+
+        if (response.status().is2xxSuccessful() && bookingJson.hasNonNull("startDatetime")) {
+            bookingsCache.recordBooked(cookieHeader, eventId, readId(bookingJson));
+        }
+        return bookingJson;
     }
 
     public JsonNode getTimeSlots(String eventId,
@@ -108,24 +176,7 @@ public class YandexEventsBookingService {
         String url = String.format("https://events.yandex-team.ru/back/events/%s/timeslots", eventId);
         logger.info("Fetching timeslots: eventId={}, referer={}", eventId, referer);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-        headers.set("Accept-Language", "ru");
-        headers.set("Connection", "keep-alive");
-        headers.set("Cookie", cookieHeader);
-        headers.set("Referer", referer);
-        headers.set("Sec-Fetch-Dest", "empty");
-        headers.set("Sec-Fetch-Mode", "cors");
-        headers.set("Sec-Fetch-Site", "same-origin");
-        headers.set("User-Agent", userAgent);
-        headers.set("sec-ch-ua", "\"Not)A;Brand\";v=\"8\", \"Chromium\";v=\"138\", \"YaBrowser\";v=\"25.8\", \"Yowser\";v=\"2.5\"");
-        headers.set("sec-ch-ua-arch", "\"arm\"");
-        headers.set("sec-ch-ua-bitness", "\"64\"");
-        headers.set("sec-ch-ua-full-version-list", "\"Not)A;Brand\";v=\"8.0.0.0\", \"Chromium\";v=\"138.0.7204.977\", \"YaBrowser\";v=\"25.8.5.977\", \"Yowser\";v=\"2.5\"");
-        headers.set("sec-ch-ua-mobile", "?0");
-        headers.set("sec-ch-ua-platform", "\"macOS\"");
-        headers.set("sec-ch-ua-platform-version", "\"15.7.1\"");
-        headers.set("sec-ch-ua-wow64", "?0");
+        HttpHeaders headers = headerTemplates.get(RequestHeaderTemplates.Kind.GET, cookieHeader, referer, userAgent);
 
         HttpEntity<String> entity = new HttpEntity<>(headers);
         ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
@@ -141,13 +192,29 @@ public class YandexEventsBookingService {
     }
 
     /**
-     * Получает все регистрации пользователя через API.
+     * Получает все регистрации пользователя.
+     * Список берется из кэша: первый запрос для пользователя идет в API, дальше устаревший
+     * список отдается сразу и обновляется в фоне ({@code events.bookings.refresh-ms}).
      *
      * @param cookieHeader Cookie с авторизацией пользователя
      * @param userAgent User-Agent для запроса
      * @return Set с ID событий, на которые пользователь зарегистрирован
      */
     public Set<String> getUserBookings(String cookieHeader, String userAgent) {
+        return getCachedBookings(cookieHeader, userAgent).keySet();
+    }
+
+    private Map<String, String> getCachedBookings(String cookieHeader, String userAgent) {
+        return bookingsCache.get(cookieHeader, bookingsRefreshMs,
+            cookie -> fetchUserBookings(cookie, userAgent), bookingsRefreshExecutor);
+    }
+
+    /**
+     * Загружает регистрации пользователя через API.
+     *
+     * @return eventId -> bookingId (пустая строка, если ID регистрации нет в ответе) или null при ошибке
+     */
+    private Map<String, String> fetchUserBookings(String cookieHeader, String userAgent) {
         try {
             // Используем текущую дату в UTC для фильтрации будущих событий
             // Формат: 2025-11-01T16:23:48.082Z (с миллисекундами и Z)
@@ -165,24 +232,8 @@ public class YandexEventsBookingService {
 
             logger.info("Fetching user bookings: end_datetime__gte={}", endDateTimeParam);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-            headers.set("Accept-Language", "ru");
-            headers.set("Connection", "keep-alive");
-            headers.set("Cookie", cookieHeader);
-            headers.set("Referer", "https://events.yandex-team.ru/my/tickets");
-            headers.set("Sec-Fetch-Dest", "empty");
-            headers.set("Sec-Fetch-Mode", "cors");
-            headers.set("Sec-Fetch-Site", "same-origin");
-            headers.set("User-Agent", userAgent);
-            headers.set("sec-ch-ua", "\"Not)A;Brand\";v=\"8\", \"Chromium\";v=\"138\", \"YaBrowser\";v=\"25.8\", \"Yowser\";v=\"2.5\"");
-            headers.set("sec-ch-ua-arch", "\"arm\"");
-            headers.set("sec-ch-ua-bitness", "\"64\"");
-            headers.set("sec-ch-ua-full-version-list", "\"Not)A;Brand\";v=\"8.0.0.0\", \"Chromium\";v=\"138.0.7204.977\", \"YaBrowser\";v=\"25.8.5.977\", \"Yowser\";v=\"2.5\"");
-            headers.set("sec-ch-ua-mobile", "?0");
-            headers.set("sec-ch-ua-platform", "\"macOS\"");
-            headers.set("sec-ch-ua-platform-version", "\"15.7.1\"");
-            headers.set("sec-ch-ua-wow64", "?0");
+            HttpHeaders headers = headerTemplates.get(RequestHeaderTemplates.Kind.GET, cookieHeader,
+                "https://events.yandex-team.ru/my/tickets", userAgent);
 
             HttpEntity<String> entity = new HttpEntity<>(headers);
             ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
@@ -190,51 +241,72 @@ public class YandexEventsBookingService {
             logger.info("User bookings response status: {}", response.getStatusCode());
             logger.info("User bookings response body: {}", response.getBody());
 
-            Set<String> bookedEventIds = new HashSet<>();
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                return null;
+            }
 
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                JsonNode bookingsJson = objectMapper.readTree(response.getBody());
+            Map<String, String> bookings = new HashMap<>();
 
-                // Проверяем разные форматы ответа
-                JsonNode results = bookingsJson;
-                if (bookingsJson.has("result") && bookingsJson.get("result").isArray()) {
-                    results = bookingsJson.get("result");
-                } else if (bookingsJson.isArray()) {
-                    results = bookingsJson;
-                }
+            JsonNode bookingsJson = objectMapper.readTree(response.getBody());
 
-                if (results.isArray()) {
-                    for (JsonNode booking : results) {
-                        // Извлекаем event_id из регистрации
-                        if (booking.has("event_id")) {
-                            String eventId = booking.get("event_id").asText();
-                            bookedEventIds.add(eventId);
-                        } else if (booking.has("eventId")) {
-                            String eventId = booking.get("eventId").asText();
-                            bookedEventIds.add(eventId);
-                        } else if (booking.has("event")) {
-                            JsonNode eventNode = booking.get("event");
-                            if (eventNode.isTextual()) {
-                                bookedEventIds.add(eventNode.asText());
-                            } else if (eventNode.has("id")) {
-                                bookedEventIds.add(eventNode.get("id").asText());
-                            }
+            // Проверяем разные форматы ответа
+            JsonNode results = bookingsJson;
+            if (bookingsJson.has("result") && bookingsJson.get("result").isArray()) {
+                results = bookingsJson.get("result");
+            } else if (bookingsJson.isArray()) {
+                results = bookingsJson;
+            }
+
+            if (results.isArray()) {
+                for (JsonNode booking : results) {
+                    // Извлекаем event_id из регистрации
+                    String eventId = null;
+                    if (booking.has("event_id")) {
+                        eventId = booking.get("event_id").asText();
+                    } else if (booking.has("eventId")) {
+                        eventId = booking.get("eventId").asText();
+                    } else if (booking.has("event")) {
+                        JsonNode eventNode = booking.get("event");
+                        if (eventNode.isTextual()) {
+                            eventId = eventNode.asText();
+                        } else if (eventNode.has("id")) {
+                            eventId = eventNode.get("id").asText();
                         }
                     }
+                    if (eventId != null) {
+                        String bookingId = readId(booking);
+                        bookings.put(eventId, bookingId != null ? bookingId : "");
+                    }
                 }
             }
 
-            logger.info("Found {} user bookings", bookedEventIds.size());
-            return bookedEventIds;
+            logger.info("Found {} user bookings", bookings.size());
+            return bookings;
         } catch (Exception e) {
             logger.error("Failed to get user bookings", e);
-            return new HashSet<>();
+            return null;
+        }
+    }
+
+    /**
+     * Запоминает регистрацию в кэше, например когда ответ {@link #book} на другой слот того же события
+     * перезаписал ее.
+     */
+    void recordBooked(String cookieHeader, String eventId, String bookingId) {
+        bookingsCache.recordBooked(cookieHeader, eventId, bookingId);
+    }
+
+    static String readId(JsonNode node) {
+        JsonNode id = node.get("id");
+        if (id == null || id.isNull()) {
+            return null;
         }
+        return id.isNumber() ? String.valueOf(id.asLong()) : id.asText();
     }
 
     /**
-     * Проверяет статус регистрации пользователя на событие через API.
-     * Использует список всех регистраций пользователя для проверки.
+     * Проверяет статус регистрации пользователя на событие.
+     * Отвечает из кэша регистраций пользователя, без запроса к API (кроме первого обращения).
      *
      * @param eventId ID события
      * @param cookieHeader Cookie с авторизацией пользователя
@@ -250,6 +322,21 @@ public class YandexEventsBookingService {
         return userBookings.contains(eventId);
     }
 
+    /**
+     * Проверяет статус регистрации свежим запросом к API, минуя кэш (кэш при этом обновляется).
+     * Нужен, когда ответ {@link #book} потерян: POST мог успеть создать регистрацию.
+     *
+     * @return true если пользователь зарегистрирован на событие
+     * @throws RestClientException если список регистраций получить не удалось
+     */
+    public boolean isUserBookedFresh(String eventId, String cookieHeader, String userAgent) {
+        Map<String, String> bookings = bookingsCache.refresh(cookieHeader, cookie -> fetchUserBookings(cookie, userAgent));
+        if (bookings == null) {
+            throw new RestClientException("Failed to load user bookings");
+        }
+        return bookings.containsKey(eventId);
+    }
+
     /**
      * Получает ID регистрации (bookingId) по ID события.
      * Использует метод getTimeSlots() для получения списка слотов и ищет booking.id в ответе.
@@ -261,48 +348,30 @@ public class YandexEventsBookingService {
      * @return bookingId если регистрация найдена, null в противном случае
      */
     public String getBookingId(String eventId, String cookieHeader, String referer, String userAgent) {
+        return getBookingId(eventId, null, cookieHeader, referer, userAgent);
+    }
+
+    /**
+     * Получает ID регистрации на конкретный слот события, например когда у события несколько регистраций
+     * (параллельная запись на несколько слотов), а ответ {@link #book} не содержал ID.
+     *
+     * @param slotId ID слота или null — регистрация на любой слот
+     * @return bookingId если регистрация найдена, null в противном случае
+     */
+    public String getBookingId(String eventId, Long slotId, String cookieHeader, String referer, String userAgent) {
         try {
-            logger.info("Getting bookingId for eventId: {} from timeslots", eventId);
-            
-            // Используем существующий метод getTimeSlots()
+            logger.info("Getting bookingId for eventId: {} (slot {}) from timeslots", eventId, slotId);
             JsonNode timeslotsJson = getTimeSlots(eventId, cookieHeader, referer, userAgent);
             logger.debug("Timeslots response: {}", timeslotsJson);
 
-            // Ответ может быть массивом слотов или объектом с полем result/result
-            JsonNode slots = timeslotsJson;
-            if (timeslotsJson.has("result") && timeslotsJson.get("result").isArray()) {
-                slots = timeslotsJson.get("result");
-            } else if (timeslotsJson.isArray()) {
-                slots = timeslotsJson;
-            }
-
-            if (slots.isArray()) {
-                logger.debug("Found {} timeslots", slots.size());
-                
-                // Ищем в массиве слотов тот, где есть booking.id (это означает, что пользователь зарегистрирован)
-                for (JsonNode slot : slots) {
-                    if (slot.has("booking") && slot.get("booking").has("id")) {
-                        JsonNode booking = slot.get("booking");
-                        String bookingId = null;
-                        if (booking.get("id").isNumber()) {
-                            bookingId = String.valueOf(booking.get("id").asLong());
-                        } else {
-                            bookingId = booking.get("id").asText();
-                        }
-                        
-                        if (bookingId != null && !bookingId.isEmpty()) {
-                            logger.info("Found bookingId: {} for eventId: {}", bookingId, eventId);
-                            return bookingId;
-                        }
-                    }
-                }
-                
-                logger.warn("No booking found in timeslots for eventId: {} (user may not be registered)", eventId);
+            // Регистрация пользователя отмечена в слоте полем booking.id
+            String bookingId = TimeSlots.bookingId(timeslotsJson, slotId);
+            if (bookingId != null) {
+                logger.info("Found bookingId: {} for eventId: {}", bookingId, eventId);
             } else {
-                logger.warn("Timeslots response is not an array: {}", slots);
+                logger.warn("No booking found in timeslots for eventId: {} (user may not be registered)", eventId);
             }
-            
-            return null;
+            return bookingId;
         } catch (Exception e) {
             logger.error("Failed to get bookingId for event {}", eventId, e);
             return null;
@@ -323,35 +392,39 @@ public class YandexEventsBookingService {
                           String referer,
                           String userAgent) {
         try {
-            // Сначала получаем bookingId по eventId из /timeslots
-            String bookingId = getBookingId(eventId, cookieHeader, referer, userAgent);
+            // bookingId берем из кэша регистраций, иначе ищем его в /timeslots
+            String bookingId = bookingsCache.getBookingId(cookieHeader, eventId);
+            if (bookingId == null) {
+                bookingId = getBookingId(eventId, cookieHeader, referer, userAgent);
+            }
             if (bookingId == null || bookingId.isEmpty()) {
                 logger.warn("BookingId not found for eventId: {}", eventId);
                 return false;
             }
+            return unbook(eventId, bookingId, cookieHeader, referer, userAgent);
+        } catch (Exception e) {
+            logger.error("Failed to unbook event {}", eventId, e);
+            return false;
+        }
+    }
 
+    /**
+     * Отменяет конкретную регистрацию (например, лишнюю после параллельной записи на несколько слотов).
+     * Событие остается в кэше регистраций, если в нем записана другая регистрация на это событие.
+     *
+     * @param bookingId ID регистрации из ответа {@link #book}
+     * @return true если отмена прошла успешно, false в противном случае
+     */
+    public boolean unbook(String eventId,
+                          String bookingId,
+                          String cookieHeader,
+                          String referer,
+                          String userAgent) {
+        try {
             String url = String.format("https://events.yandex-team.ru/back/events/booking/%s", bookingId);
             logger.info("Unbooking request: eventId={}, bookingId={}, referer={}", eventId, bookingId, referer);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setAccept(List.of(MediaType.APPLICATION_JSON));
-            headers.set("Accept-Language", "ru");
-            headers.set("Connection", "keep-alive");
-            headers.set("Cookie", cookieHeader);
-            headers.set("Origin", "https://events.yandex-team.ru");
-            headers.set("Referer", referer);
-            headers.set("Sec-Fetch-Dest", "empty");
-            headers.set("Sec-Fetch-Mode", "cors");
-            headers.set("Sec-Fetch-Site", "same-origin");
-            headers.set("User-Agent", userAgent);
-            headers.set("sec-ch-ua", "\"Not)A;Brand\";v=\"8\", \"Chromium\";v=\"138\", \"YaBrowser\";v=\"25.8\", \"Yowser\";v=\"2.5\"");
-            headers.set("sec-ch-ua-arch", "\"arm\"");
-            headers.set("sec-ch-ua-bitness", "\"64\"");
-            headers.set("sec-ch-ua-full-version-list", "\"Not)A;Brand\";v=\"8.0.0.0\", \"Chromium\";v=\"138.0.7204.977\", \"YaBrowser\";v=\"25.8.5.977\", \"Yowser\";v=\"2.5\"");
-            headers.set("sec-ch-ua-mobile", "?0");
-            headers.set("sec-ch-ua-platform", "\"macOS\"");
-            headers.set("sec-ch-ua-platform-version", "\"15.7.1\"");
-            headers.set("sec-ch-ua-wow64", "?0");
+            HttpHeaders headers = headerTemplates.get(RequestHeaderTemplates.Kind.DELETE, cookieHeader, referer, userAgent);
 
             HttpEntity<String> entity = new HttpEntity<>(headers);
             ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.DELETE, entity, String.class);
@@ -359,7 +432,14 @@ public class YandexEventsBookingService {
             logger.info("Unbooking response status: {}", response.getStatusCode());
             logger.info("Unbooking response body: {}", response.getBody());
 
-            return response.getStatusCode().is2xxSuccessful();
+            if (response.getStatusCode().is2xxSuccessful()) {
+                String cachedBookingId = bookingsCache.getBookingId(cookieHeader, eventId);
+                if (cachedBookingId == null || cachedBookingId.equals(bookingId)) {
+                    bookingsCache.recordUnbooked(cookieHeader, eventId);
+                }
+                return true;
+            }
+            return false;
         } catch (Exception e) {
             logger.error("Failed to unbook event {}", eventId, e);
             return false;
@@ -0,0 +1,26 @@
+-- Schema as previously created by Hibernate (ddl-auto: update).
+-- Databases created that way are baselined at this version and skip it.
+
+CREATE TABLE IF NOT EXISTS waitlist_entries (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    chat_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    event_id VARCHAR(255) NOT NULL,
+    position INTEGER NOT NULL,
+    user_id BIGINT NOT NULL,
+    CONSTRAINT uk_waitlist_entries_event_user UNIQUE (event_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS next_week_subscriptions (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    chat_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    event_category_ids VARCHAR(255),
+    event_city_id INTEGER,
+    event_title VARCHAR(255) NOT NULL,
+    is_active BOOLEAN NOT NULL,
+    original_event_date VARCHAR(255),
+    original_event_id VARCHAR(255) NOT NULL,
+    user_id BIGINT NOT NULL,
+    CONSTRAINT uk_next_week_subscriptions_event_user UNIQUE (original_event_id, user_id)
+);
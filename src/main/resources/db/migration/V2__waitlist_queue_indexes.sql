@@ -0,0 +1,7 @@
+-- Queue order of a waitlist: listing, head of the queue, place in the queue (entries ahead),
+-- entries behind a leaver, size and next position are all range scans of one event.
+-- Lookups by (event_id, user_id) use the index of the unique constraint.
+CREATE INDEX IF NOT EXISTS idx_waitlist_entries_event_position ON waitlist_entries (event_id, position, id);
+
+-- Chat lookups when refreshing event buttons
+CREATE INDEX IF NOT EXISTS idx_waitlist_entries_event_chat ON waitlist_entries (event_id, chat_id);
@@ -6,6 +6,7 @@ import com.example.telegrambot.service.UserCookieService;
 import com.example.telegrambot.service.UserPreferencesService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 
 import java.util.List;
 
@@ -36,7 +37,7 @@ public class EventsJsonTest {
         
         UserCookieService userCookieService = new UserCookieService();
         UserPreferencesService userPreferencesService = new UserPreferencesService();
-        EventsService eventsService = new EventsService(userCookieService, userPreferencesService);
+        EventsService eventsService = new EventsService(userCookieService, userPreferencesService, new JdkClientHttpRequestFactory());
         List<Event> events = eventsService.getEvents(cookies);
 
         if (events.isEmpty()) {
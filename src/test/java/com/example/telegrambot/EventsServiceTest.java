@@ -6,6 +6,7 @@ import com.example.telegrambot.service.UserCookieService;
 import com.example.telegrambot.service.UserPreferencesService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,7 +21,7 @@ public class EventsServiceTest {
     public void testGetEventsAndPrintJson() {
         UserCookieService userCookieService = new UserCookieService();
         UserPreferencesService userPreferencesService = new UserPreferencesService();
-        EventsService eventsService = new EventsService(userCookieService, userPreferencesService);
+        EventsService eventsService = new EventsService(userCookieService, userPreferencesService, new JdkClientHttpRequestFactory());
         // Используем userId = null, что означает отсутствие куки
         List<Event> events = eventsService.getEvents((Long) null);
 
@@ -0,0 +1,60 @@
+package com.example.telegrambot.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventDatesTest {
+
+    @Test
+    void decodedAtDeserialization() throws Exception {
+        Event event = new ObjectMapper().readValue(
+            "{\"id\":\"1\",\"datesOf\":[\"2026-03-18T10:00:00Z\",\"2026-03-18T10:00:00\",\"not a date\"]}", Event.class);
+        EventDates dates = event.getDates();
+
+        assertEquals(3, dates.size());
+        // "Z" is UTC: 10:00Z is 13:00 in Moscow
+        assertEquals(1773828000L, dates.epochSecond(0));
+        assertEquals(3, dates.dayOfWeek(0));
+        assertEquals(13, dates.hour(0));
+        // No offset means Moscow local time
+        assertEquals(1773817200L, dates.epochSecond(1));
+        assertEquals(10, dates.hour(1));
+        // Unparseable entries keep their position
+        assertFalse(dates.isValid(2));
+        assertEquals("not a date", dates.raw(2));
+    }
+
+    @Test
+    void dayOfWeekIsMoscowDay() {
+        // Tuesday 22:30 UTC is already Wednesday in Moscow
+        EventDates dates = EventDates.of(List.of("2026-03-17T22:30:00Z"));
+
+        assertTrue(dates.containsDayOfWeek(3));
+        assertFalse(dates.containsDayOfWeek(2));
+    }
+
+    @Test
+    void wallClockKeepsWrittenTime() {
+        EventDates dates = EventDates.of(List.of("2025-11-05T18:00:00Z", "2025-11-05T18:00:00"));
+
+        assertEquals(LocalDateTime.of(2025, 11, 5, 18, 0), dates.wallClock(0));
+        assertEquals(LocalDateTime.of(2025, 11, 5, 18, 0), dates.wallClock(1));
+    }
+
+    @Test
+    void nullAndEmptyListsAreEmpty() {
+        Event event = new Event();
+        assertTrue(event.getDates().isEmpty());
+
+        event.setDatesOf(null);
+        assertTrue(event.getDates().isEmpty());
+        assertFalse(event.getDates().containsDayOfWeek(1));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArmedBookingServiceTest {
+
+    private static final String COOKIE = "Session_id=test";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // eventId -> slot IDs the stubbed /timeslots returns
+    private final Map<String, List<Long>> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger slotRequests = new AtomicInteger();
+    private final ArmedBookingService service = new ArmedBookingService(
+        new YandexEventsBookingService(new RestTemplateBuilder(), new SimpleClientHttpRequestFactory()) {
+            @Override
+            public JsonNode getTimeSlots(String eventId, String cookieHeader, String referer, String userAgent) {
+                slotRequests.incrementAndGet();
+                List<Long> ids = slots.get(eventId);
+                if (ids == null) {
+                    throw new IllegalStateException("timeslots unavailable");
+                }
+                return MAPPER.valueToTree(Map.of("result", ids.stream().map(id -> Map.of("id", id)).toList()));
+            }
+        });
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void arm_resolvesSlotsInBackgroundOnce() {
+        slots.put("1", List.of(11L, 12L));
+
+        service.arm(List.of(event("1")), COOKIE);
+        awaitTrue(() -> service.getArmedSlot("1") != null);
+
+        assertEquals(List.of(11L, 12L), service.getArmedSlots("1"));
+        service.arm(List.of(event("1")), COOKIE);
+        assertEquals(1, slotRequests.get(), "a fresh armed slot is not resolved again");
+    }
+
+    @Test
+    void arm_failedOrEmptyResolutionLeavesEventUnarmed() throws Exception {
+        slots.put("2", List.of());
+
+        service.arm(List.of(event("1"), event("2")), COOKIE);
+        awaitTrue(() -> slotRequests.get() == 2);
+        Thread.sleep(50);
+
+        assertNull(service.getArmedSlot("1"));
+        assertTrue(service.getArmedSlots("2").isEmpty());
+    }
+
+    @Test
+    void arm_resolvesStaleSlotsAgain() {
+        ReflectionTestUtils.setField(service, "slotTtlMs", -1L);
+        slots.put("1", List.of(11L));
+        service.arm(List.of(event("1")), COOKIE);
+        awaitTrue(() -> service.getArmedSlot("1") != null);
+
+        slots.put("1", List.of(21L));
+        awaitTrue(() -> {
+            service.arm(List.of(event("1")), COOKIE);
+            return Long.valueOf(21L).equals(service.getArmedSlot("1"));
+        });
+        assertTrue(slotRequests.get() >= 2);
+    }
+
+    @Test
+    void disarm_afterFailedBookingResolvesSlotsAgain() {
+        slots.put("1", List.of(11L));
+        service.arm(List.of(event("1")), COOKIE);
+        awaitTrue(() -> service.getArmedSlot("1") != null);
+
+        service.disarm("1");
+        assertNull(service.getArmedSlot("1"));
+
+        slots.put("1", List.of(12L));
+        // The next tick arms it again (the first resolution may still be finishing)
+        awaitTrue(() -> {
+            service.arm(List.of(event("1")), COOKIE);
+            return Long.valueOf(12L).equals(service.getArmedSlot("1"));
+        });
+    }
+
+    @Test
+    void retainOnly_dropsEventsThatNoLongerMatch() {
+        slots.put("1", List.of(11L));
+        slots.put("2", List.of(22L));
+        service.arm(List.of(event("1"), event("2")), COOKIE);
+        awaitTrue(() -> service.getArmedSlot("1") != null && service.getArmedSlot("2") != null);
+
+        service.retainOnly(Set.of("2"));
+
+        assertNull(service.getArmedSlot("1"));
+        assertEquals(22L, service.getArmedSlot("2"));
+    }
+
+    @Test
+    void arm_doesNothingWhenDisabledOrWithoutCookie() throws Exception {
+        slots.put("1", List.of(11L));
+        service.arm(List.of(event("1")), null);
+        ReflectionTestUtils.setField(service, "enabled", false);
+        service.arm(List.of(event("1")), COOKIE);
+        Thread.sleep(50);
+
+        assertEquals(0, slotRequests.get());
+    }
+
+    private static Event event(String id) {
+        Event event = new Event();
+        event.setId(id);
+        event.setTitle("Event " + id);
+        return event;
+    }
+
+    private static void awaitTrue(Supplier<Boolean> condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.get()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+}
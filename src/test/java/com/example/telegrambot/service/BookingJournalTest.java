@@ -0,0 +1,118 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingJournalTest {
+
+    private static final List<PollTarget> TARGETS = PollTarget.parseList("плавание,теннис,йога");
+    private static final String FINGERPRINT = BookingJournal.fingerprint(TARGETS, false);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restart_resumesSessionWhereItStopped() {
+        Path file = dir.resolve("journal.log");
+        BookingJournal journal = open(file);
+        journal.sessionStarted(1L, 10L, TARGETS, false);
+        PollingSession session = new PollingSession(1L, 10L, TARGETS, false, journal.log(1L));
+        Event swim = event("100", "Плавание");
+        session.markBooked("100");
+        session.targetDone(0, swim, "booked");
+        session.targetLost(1);
+        // A crash: the journal is not closed
+        journal.sync();
+
+        BookingJournal restarted = open(file);
+        assertNull(restarted.resume(1L, BookingJournal.fingerprint(TARGETS, true)), "other mode is a different session");
+
+        restarted = open(file);
+        BookingJournal.Progress progress = restarted.resume(1L, FINGERPRINT);
+        assertNotNull(progress);
+        assertNull(restarted.resume(1L, FINGERPRINT), "progress is resumed once");
+
+        PollingSession resumed = new PollingSession(1L, 10L, TARGETS, false, restarted.log(1L));
+        resumed.restore(progress);
+        assertTrue(resumed.isBooked("100"));
+        assertFalse(resumed.isPending(0));
+        assertFalse(resumed.isPending(1));
+        assertTrue(resumed.isPending(2));
+        restarted.close();
+    }
+
+    @Test
+    void restart_recoversTargetsModeAndChatOfInterruptedSessions() {
+        Path file = dir.resolve("journal.log");
+        List<PollTarget> targets = PollTarget.parseList("Плавание:3@12:00/100,теннис");
+        BookingJournal journal = open(file);
+        journal.sessionStarted(1L, 10L, targets, true);
+        journal.sessionStarted(2L, 20L, TARGETS, false);
+        journal.sessionEnded(2L);
+        journal.sync();
+
+        BookingJournal restarted = open(file);
+        Map<Long, BookingJournal.Progress> sessions = restarted.recoveredSessions();
+        assertEquals(List.of(1L), List.copyOf(sessions.keySet()));
+        BookingJournal.Progress progress = sessions.get(1L);
+        assertEquals(10L, progress.chatId());
+        assertTrue(progress.concurrentTargets());
+        assertEquals("плавание:3@12:00/100,теннис", progress.targets().stream()
+            .map(PollTarget::toSpec).collect(Collectors.joining(",")));
+        assertNotNull(restarted.resume(1L, BookingJournal.fingerprint(progress.targets(), true)));
+        assertTrue(restarted.recoveredSessions().isEmpty(), "resumed sessions are not recreated twice");
+        restarted.close();
+    }
+
+    @Test
+    void fingerprint_ignoresCadencePolicy() {
+        assertEquals(BookingJournal.fingerprint(PollTarget.parseList("Плавание:3,теннис"), false),
+            BookingJournal.fingerprint(PollTarget.parseList("Плавание:3@12:00/100,теннис@18:00"), false));
+        assertNotEquals(BookingJournal.fingerprint(PollTarget.parseList("Плавание:3"), false),
+            BookingJournal.fingerprint(PollTarget.parseList("Плавание:1"), false));
+    }
+
+    @Test
+    void replay_stopsAtTornTailAndForgetsEndedSessions() throws Exception {
+        Path file = dir.resolve("journal.log");
+        BookingJournal journal = open(file);
+        journal.sessionStarted(1L, 10L, TARGETS, false);
+        journal.sessionStarted(2L, 20L, TARGETS, false);
+        journal.log(1L).eventBooked("100");
+        journal.sessionEnded(2L);
+        journal.close();
+        Files.write(file, BookingJournal.encode("B", 1L, "200"), StandardOpenOption.APPEND);
+        Files.writeString(file, "1234\tB\t1\t300\n", StandardOpenOption.APPEND);
+        Files.write(file, BookingJournal.encode("B", 1L, "400"), StandardOpenOption.APPEND);
+        Files.writeString(file, "ab", StandardOpenOption.APPEND);
+
+        Map<Long, BookingJournal.Progress> replayed = BookingJournal.replay(file);
+        assertEquals(List.of(1L), List.copyOf(replayed.keySet()));
+        assertEquals(List.of("100", "200"), List.copyOf(replayed.get(1L).bookedEventIds()));
+    }
+
+    private static BookingJournal open(Path file) {
+        BookingJournal journal = new BookingJournal();
+        ReflectionTestUtils.setField(journal, "path", file.toString());
+        journal.open();
+        return journal;
+    }
+
+    private static Event event(String id, String title) {
+        Event event = new Event();
+        event.setId(id);
+        event.setTitle(title);
+        return event;
+    }
+}
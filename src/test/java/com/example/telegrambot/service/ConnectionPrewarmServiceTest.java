@@ -0,0 +1,121 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.City;
+import com.example.telegrambot.dto.Event;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPrewarmServiceTest {
+
+    private static final Long USER_ID = -1L;
+
+    private final ExecutorService ioExecutor = Executors.newFixedThreadPool(2);
+    private final AtomicInteger cityRequests = new AtomicInteger();
+    private final AtomicInteger bookingRequests = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        ioExecutor.shutdownNow();
+    }
+
+    @Test
+    void prewarmOnce_runsOncePerWindow() {
+        ConnectionPrewarmService service = service(false);
+
+        assertTrue(service.prewarmOnce(USER_ID));
+        assertFalse(service.prewarmOnce(USER_ID));
+        assertTrue(service.isWindowPrewarmed());
+        assertEquals(1, bookingRequests.get());
+
+        service.resetWindow();
+        assertTrue(service.prewarmOnce(USER_ID), "the next window gets its own pre-warm");
+        assertEquals(2, bookingRequests.get());
+    }
+
+    @Test
+    void prewarm_toleratesFailingRequests() {
+        ConnectionPrewarmService service = service(true);
+
+        assertDoesNotThrow(() -> service.prewarm(USER_ID));
+        assertEquals(2, cityRequests.get(), "both connections were attempted on the I/O executor");
+        assertEquals(1, bookingRequests.get());
+    }
+
+    @Test
+    void keepWarm_usesConnectionsAfterPrewarmAtMostOncePerInterval() throws Exception {
+        ConnectionPrewarmService service = service(false);
+        ReflectionTestUtils.setField(service, "keepWarmIntervalMs", 50L);
+
+        assertFalse(service.keepWarm(USER_ID), "nothing to keep warm before the pre-warm");
+        service.prewarmOnce(USER_ID);
+        assertFalse(service.keepWarm(USER_ID), "connections were just used");
+
+        Thread.sleep(60);
+        assertTrue(service.keepWarm(USER_ID));
+        assertFalse(service.keepWarm(USER_ID));
+        awaitTrue(() -> cityRequests.get() == 4);
+
+        service.resetWindow();
+        Thread.sleep(60);
+        assertFalse(service.keepWarm(USER_ID), "a new window starts with its own pre-warm");
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private ConnectionPrewarmService service(boolean failing) {
+        UserCookieService cookies = new UserCookieService();
+        cookies.setCookie(USER_ID, "Session_id=test");
+        EventsService events = new EventsService(cookies, null, new SimpleClientHttpRequestFactory()) {
+            @Override
+            public List<City> getCities(String cookie) {
+                cityRequests.incrementAndGet();
+                assertTrue(Thread.currentThread().getName().startsWith("pool-"), "runs on the injected executor");
+                if (failing) {
+                    throw new ResourceAccessException("connection refused");
+                }
+                return List.of();
+            }
+
+            @Override
+            public List<Event> getEvents(Long userId) {
+                if (failing) {
+                    throw new ResourceAccessException("connection refused");
+                }
+                return List.of();
+            }
+        };
+        YandexEventsBookingService bookings = new YandexEventsBookingService(
+                new RestTemplateBuilder(), new SimpleClientHttpRequestFactory()) {
+            @Override
+            public Set<String> getUserBookings(String cookieHeader, String userAgent) {
+                bookingRequests.incrementAndGet();
+                return Set.of();
+            }
+
+            @Override
+            public JsonNode getTimeSlots(String eventId, String cookieHeader, String referer, String userAgent) {
+                throw new IllegalStateException("not expected without events");
+            }
+        };
+        return new ConnectionPrewarmService(events, bookings, cookies, ioExecutor);
+    }
+}
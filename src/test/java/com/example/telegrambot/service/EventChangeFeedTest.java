@@ -0,0 +1,64 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventChangeFeedTest {
+
+    private static final EventsSnapshotCache.Key KEY = EventsSnapshotCache.Key.of(1, List.of(3));
+
+    @Test
+    void record_diffsSuccessiveSnapshots() {
+        EventChangeFeed feed = new EventChangeFeed();
+        assertTrue(feed.record(KEY, List.of(event("1", false, 0, 10), event("2", true, 2, 8))).isEmpty(), "baseline");
+
+        List<EventChange> changes = feed.record(KEY, List.of(event("1", true, 1, 9), event("3", true, 5, 0)));
+
+        assertEquals(List.of(
+            "SEATS_OPENED 1", "FREE_SEATS_CHANGED 1", "BOOKED_COUNT_CHANGED 1", "APPEARED 3", "DISAPPEARED 2"),
+            changes.stream().map(change -> change.type() + " " + change.eventId()).toList());
+        assertEquals(1, changes.get(1).freeSeatsDelta());
+        assertEquals(-1, changes.get(2).bookedCountDelta());
+    }
+
+    @Test
+    void since_returnsChangesAfterCursorOrAsksForRescan() {
+        EventChangeFeed feed = new EventChangeFeed();
+        feed.record(KEY, List.of(event("1", false, 0, 10)));
+
+        EventChangeFeed.Batch first = feed.since(KEY, EventChangeFeed.NO_CURSOR);
+        assertFalse(first.complete());
+        assertEquals(1, first.current().size());
+
+        feed.record(KEY, List.of(event("1", true, 1, 10)));
+        EventChangeFeed.Batch next = feed.since(KEY, first.cursor());
+        assertTrue(next.complete());
+        assertEquals(List.of(EventChange.Type.SEATS_OPENED, EventChange.Type.FREE_SEATS_CHANGED),
+            next.changes().stream().map(EventChange::type).toList());
+        assertTrue(feed.since(KEY, next.cursor()).changes().isEmpty());
+
+        // More changes than the log keeps: the consumer has to rescan
+        List<Event> many = new ArrayList<>();
+        for (int i = 0; i <= EventChangeFeed.MAX_LOG_SIZE; i++) {
+            many.add(event("n" + i, true, 1, 0));
+        }
+        feed.record(KEY, many);
+        EventChangeFeed.Batch behind = feed.since(KEY, next.cursor());
+        assertFalse(behind.complete());
+        assertEquals(many.size(), behind.current().size());
+    }
+
+    private static Event event(String id, boolean haveFreeSeats, int freeSeats, int bookedCount) {
+        Event event = new Event();
+        event.setId(id);
+        event.setHaveFreeSeats(haveFreeSeats);
+        event.setFreeSeats(freeSeats);
+        event.setBookedCount(bookedCount);
+        return event;
+    }
+}
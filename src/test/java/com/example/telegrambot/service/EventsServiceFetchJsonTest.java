@@ -0,0 +1,64 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.EventsResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventsServiceFetchJsonTest {
+
+    private static final String URL = "https://events.yandex-team.ru/back/events/?_page=1";
+    private static final String LOGIN_PAGE = "<!DOCTYPE html><html><body>Login</body></html>";
+
+    @Test
+    void fetchJson_htmlContentTypeIsRejected() {
+        EventsService.HtmlResponseException e = assertThrows(EventsService.HtmlResponseException.class,
+            () -> fetch(MediaType.TEXT_HTML, LOGIN_PAGE));
+
+        assertTrue(e.getBodyPreview().startsWith("<!DOCTYPE html>"), e.getBodyPreview());
+    }
+
+    @Test
+    void fetchJson_htmlBodyLabelledAsJsonIsRejected() {
+        EventsService.HtmlResponseException e = assertThrows(EventsService.HtmlResponseException.class,
+            () -> fetch(MediaType.APPLICATION_JSON, "\n  <html><body>Login</body></html>"));
+
+        assertTrue(e.getBodyPreview().startsWith("<html>"), "leading whitespace is skipped");
+    }
+
+    @Test
+    void fetchJson_parsesJsonAndTreatsBlankBodyAsEmpty() {
+        EventsResponse response = fetch(MediaType.APPLICATION_JSON, " {\"pages\":2,\"result\":[{\"id\":\"a\"}]}");
+
+        assertEquals(2, response.getPages());
+        assertEquals("a", response.getResult().get(0).getId());
+        assertNull(fetch(MediaType.APPLICATION_JSON, "  \n"));
+    }
+
+    private static EventsResponse fetch(MediaType contentType, String body) {
+        EventsService service = new EventsService(null, null, factory(contentType, body));
+        try {
+            return service.fetchJson(URL, new HttpHeaders(), EventsResponse.class);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static ClientHttpRequestFactory factory(MediaType contentType, String body) {
+        return (uri, method) -> {
+            MockClientHttpResponse response = new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+            response.getHeaders().setContentType(contentType);
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            request.setResponse(response);
+            return request;
+        };
+    }
+}
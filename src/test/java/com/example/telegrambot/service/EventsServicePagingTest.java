@@ -0,0 +1,114 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventsServicePagingTest {
+
+    private static final Pattern PAGE = Pattern.compile("_page=(\\d+)");
+    private static final EventsSnapshotCache.Key KEY = EventsSnapshotCache.Key.of(1, Set.of());
+
+    @Test
+    void mergePages_keepsPageOrder() {
+        List<Event> merged = EventsService.mergePages(
+            List.of(event("a"), event("b")),
+            List.of(List.of(event("c")), List.of(event("d"), event("e")))
+        );
+
+        assertEquals(List.of("a", "b", "c", "d", "e"), merged.stream().map(Event::getId).toList());
+    }
+
+    @Test
+    void mergePages_dropsEventShiftedToNextPage() {
+        List<Event> merged = EventsService.mergePages(
+            List.of(event("a"), event("b")),
+            List.of(List.of(event("b"), event("c")))
+        );
+
+        assertEquals(List.of("a", "b", "c"), merged.stream().map(Event::getId).toList());
+    }
+
+    @Test
+    void getEvents_fetchesRemainingPagesInParallelInPageOrder() {
+        Map<Integer, String> pages = new ConcurrentHashMap<>();
+        for (int page = 1; page <= 5; page++) {
+            pages.put(page, page(5, "p" + page + "a", "p" + page + "b"));
+        }
+        AtomicInteger requests = new AtomicInteger();
+        EventsService service = new EventsService(null, null, factory(pages, requests));
+        try {
+            List<Event> events = service.getEvents("cookie", KEY);
+
+            assertEquals(List.of("p1a", "p1b", "p2a", "p2b", "p3a", "p3b", "p4a", "p4b", "p5a", "p5b"),
+                events.stream().map(Event::getId).toList());
+            assertEquals(5, requests.get());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void getEvents_emptyPageFailsTheWholeListAndIsNotCached() {
+        Map<Integer, String> pages = new ConcurrentHashMap<>(Map.of(
+            1, page(3, "a"),
+            2, "",
+            3, page(3, "c")));
+        AtomicInteger requests = new AtomicInteger();
+        EventsService service = new EventsService(null, null, factory(pages, requests));
+        try {
+            assertTrue(service.getEvents("cookie", KEY).isEmpty(), "an incomplete list is not returned");
+            assertFalse(service.changesSince(KEY, EventChangeFeed.NO_CURSOR).current().containsKey("a"),
+                "an incomplete list is not recorded in the change feed");
+
+            pages.put(2, page(3, "b"));
+            assertEquals(List.of("a", "b", "c"), service.getEvents("cookie", KEY).stream().map(Event::getId).toList(),
+                "the failed list was not cached");
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static ClientHttpRequestFactory factory(Map<Integer, String> pages, AtomicInteger requests) {
+        return (uri, method) -> {
+            requests.incrementAndGet();
+            Matcher matcher = PAGE.matcher(uri.toString());
+            assertTrue(matcher.find(), uri.toString());
+            String body = pages.get(Integer.parseInt(matcher.group(1)));
+            MockClientHttpResponse response = new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            request.setResponse(response);
+            return request;
+        };
+    }
+
+    private static String page(int pages, String... ids) {
+        StringBuilder result = new StringBuilder();
+        for (String id : ids) {
+            result.append(result.isEmpty() ? "" : ",").append("{\"id\":\"").append(id).append("\"}");
+        }
+        return "{\"pages\":" + pages + ",\"result\":[" + result + "]}";
+    }
+
+    private static Event event(String id) {
+        Event event = new Event();
+        event.setId(id);
+        return event;
+    }
+}
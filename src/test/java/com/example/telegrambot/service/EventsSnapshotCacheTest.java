@@ -0,0 +1,190 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClientException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventsSnapshotCacheTest {
+
+    @Test
+    void key_ignoresCategoryOrder() {
+        assertEquals(
+            EventsSnapshotCache.Key.of(1, Set.of(13, 3)),
+            EventsSnapshotCache.Key.of(1, List.of(3, 13))
+        );
+        assertEquals(EventsSnapshotCache.Key.of(2, null), EventsSnapshotCache.Key.of(2, Set.of()));
+    }
+
+    @Test
+    void get_reusesSnapshotWithinTtl() {
+        EventsSnapshotCache cache = new EventsSnapshotCache();
+        AtomicInteger loads = new AtomicInteger();
+        EventsSnapshotCache.Key key = EventsSnapshotCache.Key.of(1, Set.of(3));
+
+        cache.get(key, 60_000, () -> loadOne(loads));
+        cache.get(key, 60_000, () -> loadOne(loads));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_failedLoadIsNotCached() {
+        EventsSnapshotCache cache = new EventsSnapshotCache();
+        AtomicInteger loads = new AtomicInteger();
+        EventsSnapshotCache.Key key = EventsSnapshotCache.Key.of(1, Set.of());
+
+        assertTrue(cache.get(key, 60_000, () -> {
+            loads.incrementAndGet();
+            return null;
+        }).isEmpty());
+        assertEquals(1, cache.get(key, 60_000, () -> loadOne(loads)).size());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_concurrentCallersShareOneLoad() throws Exception {
+        EventsSnapshotCache cache = new EventsSnapshotCache();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventsSnapshotCache.Key key = EventsSnapshotCache.Key.of(1, Set.of(3, 13));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Event>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(key, 60_000, () -> {
+                loaderStarted.countDown();
+                await(release);
+                return loadOne(loads);
+            })));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> cache.get(key, 60_000, () -> loadOne(loads))));
+            }
+            release.countDown();
+
+            for (Future<List<Event>> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS).size());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_failedSharedLoadIsRetriedWithOtherSession() throws Exception {
+        EventsSnapshotCache cache = new EventsSnapshotCache();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventsSnapshotCache.Key key = EventsSnapshotCache.Key.of(1, Set.of(3));
+
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            Future<List<Event>> expired = executor.submit(() -> cache.get(key, 60_000, "expired", () -> {
+                loaderStarted.countDown();
+                await(release);
+                return null;
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Future<List<Event>> sameSession = executor.submit(() -> cache.get(key, 60_000, "expired", () -> loadOne(loads)));
+            List<Future<List<Event>>> otherSessions = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                otherSessions.add(executor.submit(() -> cache.get(key, 60_000, "valid", () -> slowLoadOne(loads))));
+            }
+            // Let all callers join the failing load before it completes
+            Thread.sleep(200);
+            release.countDown();
+
+            assertTrue(expired.get(5, TimeUnit.SECONDS).isEmpty());
+            assertTrue(sameSession.get(5, TimeUnit.SECONDS).isEmpty(), "same cookie would fail the same way");
+            for (Future<List<Event>> otherSession : otherSessions) {
+                assertEquals(1, otherSession.get(5, TimeUnit.SECONDS).size());
+            }
+            assertEquals(1, loads.get(), "the retry is shared too");
+            assertEquals(1, cache.get(key, 60_000, "expired", () -> null).size(), "retried load is cached");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_sameSessionWaitersGetTheLoaderException() throws Exception {
+        EventsSnapshotCache cache = new EventsSnapshotCache();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventsSnapshotCache.Key key = EventsSnapshotCache.Key.of(1, Set.of());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Event>> loader = executor.submit(() -> cache.get(key, 60_000, "cookie", () -> {
+                loaderStarted.countDown();
+                await(release);
+                throw new RestClientException("cookie expired");
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Future<List<Event>> waiter = executor.submit(() -> cache.get(key, 60_000, "cookie", List::of));
+            Thread.sleep(200);
+            release.countDown();
+
+            ExecutionException loaderFailure = assertThrows(ExecutionException.class, () -> loader.get(5, TimeUnit.SECONDS));
+            ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RestClientException.class, loaderFailure.getCause());
+            assertSame(loaderFailure.getCause(), waiterFailure.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_evictsSnapshotsPastRetention() throws Exception {
+        EventsSnapshotCache cache = new EventsSnapshotCache(50);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(EventsSnapshotCache.Key.of(1, Set.of()), 10, () -> loadOne(loads));
+        Thread.sleep(100);
+        cache.get(EventsSnapshotCache.Key.of(2, Set.of()), 10, () -> loadOne(loads));
+
+        assertEquals(1, cache.size());
+    }
+
+    private static List<Event> loadOne(AtomicInteger loads) {
+        loads.incrementAndGet();
+        Event event = new Event();
+        event.setId("event-1");
+        return List.of(event);
+    }
+
+    private static List<Event> slowLoadOne(AtomicInteger loads) {
+        // Keeps the load in flight long enough for the other retrying callers to join it
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return loadOne(loads);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import com.example.telegrambot.exception.RateLimitException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedBookingTest {
+
+    private static final Event SWIM = event("1");
+    private static final Event TENNIS = event("2");
+
+    @Test
+    void rank_takesTopDistinctSlotsInPriorityOrder() {
+        Map<String, List<Long>> slots = Map.of("1", List.of(10L, 11L), "2", List.of(11L, 20L, 21L));
+
+        List<HedgedBooking.Slot> ranked = HedgedBooking.rank(List.of(SWIM, TENNIS), e -> slots.get(e.getId()), 3);
+
+        assertEquals(List.of(new HedgedBooking.Slot(SWIM, 10), new HedgedBooking.Slot(SWIM, 11),
+            new HedgedBooking.Slot(TENNIS, 20)), ranked);
+    }
+
+    @Test
+    void race_firstSuccessWinsAndLaterSuccessIsReleased() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch firstInFlight = new CountDownLatch(1);
+        CountDownLatch raceDecided = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        List<Long> releasedSlots = new ArrayList<>();
+        try {
+            // Slot 10 is still in flight when slot 11 wins, and succeeds afterwards
+            CompletableFuture<HedgedBooking.Result> race = CompletableFuture.supplyAsync(() -> HedgedBooking.race(
+                List.of(new HedgedBooking.Slot(SWIM, 10), new HedgedBooking.Slot(SWIM, 11)),
+                slot -> {
+                    if (slot.slotId() == 10) {
+                        firstInFlight.countDown();
+                        await(raceDecided);
+                    } else {
+                        await(firstInFlight);
+                    }
+                    return booked();
+                },
+                executor,
+                (extra, winner) -> {
+                    releasedSlots.add(extra.slot().slotId());
+                    released.countDown();
+                }));
+
+            HedgedBooking.Result result = race.get(5, TimeUnit.SECONDS);
+            raceDecided.countDown();
+
+            assertEquals(11, result.winner().slot().slotId());
+            assertTrue(released.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(10L), releasedSlots);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void race_skipsAttemptsNotStartedBeforeTheWinner() {
+        List<Long> posted = new ArrayList<>();
+
+        HedgedBooking.Result result = HedgedBooking.race(
+            List.of(new HedgedBooking.Slot(SWIM, 10), new HedgedBooking.Slot(TENNIS, 20)),
+            slot -> {
+                posted.add(slot.slotId());
+                return booked();
+            },
+            Runnable::run,
+            (extra, winner) -> fail("nothing to release"));
+
+        assertEquals(10, result.winner().slot().slotId());
+        assertEquals(List.of(10L), posted);
+    }
+
+    @Test
+    void race_reportsRateLimitWhenNothingBooked() {
+        HedgedBooking.Result result = HedgedBooking.race(
+            List.of(new HedgedBooking.Slot(SWIM, 10), new HedgedBooking.Slot(TENNIS, 20)),
+            slot -> {
+                if (slot.slotId() == 10) {
+                    throw new RateLimitException("429");
+                }
+                return JsonNodeFactory.instance.objectNode().put("error", "full");
+            },
+            Runnable::run,
+            (extra, winner) -> fail("nothing to release"));
+
+        assertNull(result.winner());
+        assertTrue(result.rateLimited());
+    }
+
+    private static JsonNode booked() {
+        ObjectNode response = JsonNodeFactory.instance.objectNode();
+        response.put("id", 1);
+        response.put("startDatetime", "2026-03-18T10:00:00Z");
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Event event(String id) {
+        Event event = new Event();
+        event.setId(id);
+        event.setTitle("Event " + id);
+        return event;
+    }
+}
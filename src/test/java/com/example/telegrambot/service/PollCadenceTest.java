@@ -0,0 +1,70 @@
+package com.example.telegrambot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollCadenceTest {
+
+    private static final ZoneId MOSCOW = ZoneId.of("Europe/Moscow");
+
+    // base 1 s, burst 200 ms, idle 30 s, window 10 s before / 120 s after, max 5 req/s
+    private final PollCadence cadence = new PollCadence(1000, 200, 30_000, 10_000, 120_000, 5);
+
+    @Test
+    void idleWithoutPendingTargets() {
+        assertEquals(30_000, cadence.nextDelayMs(at(9, 0, 0), List.of(), 0));
+    }
+
+    @Test
+    void baseIntervalWithoutReleaseTime() {
+        assertEquals(1000, cadence.nextDelayMs(at(9, 0, 0), PollTarget.parseList("теннис"), 1));
+    }
+
+    @Test
+    void burstsAroundReleaseTimeAndWakesUpForWindow() {
+        List<PollTarget> targets = PollTarget.parseList("Плавание:3@12:00,бег@12:00/100");
+
+        // Far from 12:00: idle interval
+        assertEquals(30_000, cadence.nextDelayMs(at(9, 0, 0), targets, 1));
+        // 15 s before: wait until the window opens 10 s before 12:00
+        assertEquals(5_000, cadence.nextDelayMs(at(11, 59, 45), targets, 1));
+        // Inside the window: the shortest per-target burst interval, capped by 5 req/s
+        assertEquals(200, cadence.nextDelayMs(at(12, 0, 30), targets, 1));
+        assertEquals(400, cadence.nextDelayMs(at(12, 0, 30), targets, 2));
+    }
+
+    @Test
+    void learnedReleaseTimeUsedForTargetsWithoutConfiguredOne() {
+        PollTarget target = PollTarget.parseEntry("йога");
+        cadence.learnRelease(target, at(18, 0, 42));
+
+        assertEquals(LocalTime.of(18, 0), cadence.releaseTimeOf(target));
+        // Next day, inside the window around the learned time
+        assertEquals(200, cadence.nextDelayMs(at(17, 59, 55).plusDays(1), List.of(target), 1));
+    }
+
+    @Test
+    void awaitsReleaseOnlyWhenReleaseTimeIsKnownAndNear() {
+        PollTarget configured = PollTarget.parseEntry("Плавание@12:00");
+        PollTarget unknown = PollTarget.parseEntry("теннис");
+
+        assertFalse(cadence.awaitsRelease(unknown, at(11, 0, 0)));
+        assertTrue(cadence.awaitsRelease(configured, at(11, 0, 0)));
+        assertTrue(cadence.awaitsRelease(configured, at(12, 1, 0)));
+        // Window just passed: the next release is almost a day away
+        assertFalse(cadence.awaitsRelease(configured, at(12, 5, 0)));
+
+        cadence.learnRelease(unknown, at(18, 0, 42));
+        assertTrue(cadence.awaitsRelease(unknown, at(17, 0, 0)));
+    }
+
+    private static ZonedDateTime at(int hour, int minute, int second) {
+        return ZonedDateTime.of(2026, 3, 18, hour, minute, second, 0, MOSCOW);
+    }
+}
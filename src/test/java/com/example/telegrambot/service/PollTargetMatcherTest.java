@@ -0,0 +1,67 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollTargetMatcherTest {
+
+    @Test
+    void multiPatternMatcher_findsOverlappingPatterns() {
+        MultiPatternMatcher matcher = MultiPatternMatcher.compile(List.of("he", "she", "his", "hers"));
+
+        BitSet found = matcher.find("uSHErs");
+
+        assertEquals(BitSet.valueOf(new long[]{0b1011}), found);
+        assertTrue(matcher.find("nothing").isEmpty());
+    }
+
+    @Test
+    void matchAll_sameAsPairwiseMatchesEvent() {
+        List<PollTarget> targets = PollTarget.parseList("Плавание:3,Плавание:1,теннис,Boxing (Красная Роза):2,бег");
+        List<Event> events = List.of(
+            event("1", "Плавание в бассейне", "2026-03-18T10:00:00Z"), // Wednesday
+            event("2", "Плавание утреннее", "2026-03-16T10:00:00Z"),   // Monday
+            event("3", "Настольный ТЕННИС", "2026-03-17T10:00:00Z"),
+            event("4", "Boxing (Красная Роза)", "2026-03-17T10:00:00Z"), // Tuesday
+            event("5", "Лекция", "2026-03-17T10:00:00Z"),
+            event("6", null, "2026-03-17T10:00:00Z")
+        );
+
+        Map<Integer, List<Event>> hits = new PollTargetMatcher(targets).matchAll(events);
+
+        for (int i = 0; i < targets.size(); i++) {
+            List<Event> expected = new ArrayList<>();
+            for (Event event : events) {
+                if (targets.get(i).matchesEvent(event)) {
+                    expected.add(event);
+                }
+            }
+            assertEquals(expected, hits.getOrDefault(i, List.of()), "target " + targets.get(i));
+        }
+    }
+
+    @Test
+    void similarTitleMatcher_wordAndContainmentRules() {
+        SimilarTitleMatcher matcher = SimilarTitleMatcher.of("Йога для начинающих");
+
+        assertTrue(matcher.matches("Йога для начинающих (зал 2)"));
+        assertTrue(matcher.matches("йога"));
+        assertTrue(matcher.matches("Утренняя Йога, начинающих ждем"));
+        assertFalse(matcher.matches("Плавание"));
+    }
+
+    private static Event event(String id, String title, String date) {
+        Event event = new Event();
+        event.setId(id);
+        event.setTitle(title);
+        event.setDatesOf(List.of(date));
+        return event;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollTargetPlanTest {
+
+    private static final List<PollTarget> TARGETS = PollTarget.parseList("Плавание:3,теннис,бег,йога");
+
+    @Test
+    void allPendingTargetsGetTheirEvents() {
+        Event swim = event("1", "Плавание", "2026-03-18T10:00:00Z", true);
+        Event tennis = event("2", "Теннис", "2026-03-17T10:00:00Z", true);
+        Event run = event("3", "Бег", "2026-03-16T10:00:00Z", false);
+
+        PollTargetPlan plan = plan(all(), List.of(swim, tennis, run), Map.of(), Map.of());
+
+        assertEquals(Map.of(0, List.of(swim), 1, List.of(tennis)), plan.assignments());
+        assertEquals(bits(2), plan.lost());
+        assertTrue(plan.blocked().isEmpty());
+    }
+
+    @Test
+    void sameSlotGoesToHigherPriority() {
+        Event swim = event("1", "Плавание", "2026-03-18T10:00:00Z", true);
+        Event tennis = event("2", "Теннис", "2026-03-18T10:30:00Z", true); // same Wednesday hour
+        Event yoga = event("3", "Йога", "2026-03-18T12:00:00Z", true);
+
+        PollTargetPlan plan = plan(all(), List.of(swim, tennis, yoga), Map.of(), Map.of());
+
+        assertEquals(Map.of(0, List.of(swim), 3, List.of(yoga)), plan.assignments());
+        // Swimming has not booked yet: tennis waits for its result instead of being dropped
+        assertEquals(bits(1), plan.deferred());
+        assertTrue(plan.blocked().isEmpty());
+    }
+
+    @Test
+    void slotsBookedByCompletedTargetsStayTaken() {
+        Event tennis = event("2", "Теннис", "2026-03-18T10:30:00Z", true);
+        long slot = PollTargetPlan.slotsOf(event("1", "Плавание", "2026-03-18T10:00:00Z", true))[0];
+        BitSet pending = all();
+        pending.clear(0);
+
+        PollTargetPlan plan = plan(pending, List.of(tennis), Map.of(slot, 0), Map.of("1", 0));
+
+        assertTrue(plan.assignments().isEmpty());
+        assertEquals(bits(1), plan.blocked());
+        assertTrue(plan.deferred().isEmpty());
+    }
+
+    private static PollTargetPlan plan(BitSet pending, List<Event> events,
+                                       Map<Long, Integer> bookedSlots, Map<String, Integer> bookedEvents) {
+        Map<Integer, List<Event>> hits = new PollTargetMatcher(TARGETS).matchAll(events);
+        return PollTargetPlan.build(pending, hits, bookedSlots, bookedEvents);
+    }
+
+    private static BitSet all() {
+        BitSet pending = new BitSet();
+        pending.set(0, TARGETS.size());
+        return pending;
+    }
+
+    private static BitSet bits(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return bits;
+    }
+
+    private static Event event(String id, String title, String date, boolean haveFreeSeats) {
+        Event event = new Event();
+        event.setId(id);
+        event.setTitle(title);
+        event.setDatesOf(List.of(date));
+        event.setHaveFreeSeats(haveFreeSeats);
+        return event;
+    }
+}
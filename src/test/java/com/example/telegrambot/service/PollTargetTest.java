@@ -3,6 +3,7 @@ package com.example.telegrambot.service;
 import com.example.telegrambot.dto.Event;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +27,26 @@ class PollTargetTest {
         assertEquals(2, targets.get(3).getDayOfWeek());
     }
 
+    @Test
+    void parseEntry_cadencePolicySuffix() {
+        PollTarget target = PollTarget.parseEntry("Плавание:3@9:30/150");
+        assertEquals("плавание", target.getNamePattern());
+        assertEquals(3, target.getDayOfWeek());
+        assertEquals(LocalTime.of(9, 30), target.getReleaseTime());
+        assertEquals(150L, target.getBurstIntervalMs());
+
+        PollTarget noDay = PollTarget.parseEntry("теннис@12:00");
+        assertEquals("теннис", noDay.getNamePattern());
+        assertNull(noDay.getDayOfWeek());
+        assertEquals(LocalTime.of(12, 0), noDay.getReleaseTime());
+        assertNull(noDay.getBurstIntervalMs());
+
+        // Not a policy: stays part of the name
+        PollTarget plain = PollTarget.parseEntry("Meetup @home");
+        assertEquals("meetup @home", plain.getNamePattern());
+        assertNull(plain.getReleaseTime());
+    }
+
     @Test
     void parseEntry_nameWithColonInParentheses_notTreatedAsDay() {
         PollTarget target = PollTarget.parseEntry("Some Event:99");
@@ -0,0 +1,118 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PollingSessionTest {
+
+    private static final List<PollTarget> TARGETS = PollTarget.parseList("плавание,теннис");
+
+    @Test
+    void sequential_plansOnlyCurrentTargetAndAdvances() {
+        PollingSession session = new PollingSession(1L, 10L, TARGETS, false);
+        Event swim = event("1", "Плавание", true);
+        Event tennis = event("2", "Теннис", true);
+        List<Event> snapshot = List.of(swim, tennis);
+
+        assertEquals(Map.of(0, List.of(swim)), session.plan(session.matchAll(snapshot)));
+
+        session.targetDone(0, swim, "booked");
+        assertFalse(session.isPending(0));
+        assertEquals(Map.of(1, List.of(tennis)), session.plan(session.matchAll(snapshot)));
+
+        session.targetDone(1, tennis, "booked");
+        assertTrue(session.isFinished());
+        assertTrue(session.plan(session.matchAll(snapshot)).isEmpty());
+    }
+
+    @Test
+    void sequential_fullTargetIsLost() {
+        PollingSession session = new PollingSession(1L, 10L, TARGETS, false);
+
+        assertTrue(session.plan(session.matchAll(List.of(event("1", "Плавание", false)))).isEmpty());
+        assertFalse(session.isPending(0));
+        assertTrue(session.isPending(1));
+    }
+
+    @Test
+    void fullTargetThatOpensLaterIsObservedAsReleased() {
+        PollingSession session = new PollingSession(1L, 10L, TARGETS, false);
+
+        Map<Integer, List<Event>> full = session.matchAll(List.of(event("1", "Плавание", false)));
+        assertTrue(session.observeReleases(full).isEmpty());
+        assertTrue(session.plan(full).isEmpty());
+        assertFalse(session.isPending(0));
+
+        Map<Integer, List<Event>> open = session.matchAll(List.of(event("1", "Плавание", true)));
+        assertEquals(List.of(TARGETS.get(0)), session.observeReleases(open));
+        // Reported once per transition
+        assertTrue(session.observeReleases(open).isEmpty());
+    }
+
+    @Test
+    void fullTargetAwaitingReleaseStaysPending() {
+        PollingSession sequential = new PollingSession(1L, 10L, TARGETS, false);
+        PollingSession concurrent = new PollingSession(2L, 20L, TARGETS, true);
+        Event fullSwim = event("1", "Плавание", false);
+        Event swim = event("1", "Плавание", true);
+
+        for (PollingSession session : List.of(sequential, concurrent)) {
+            assertTrue(session.plan(session.matchAll(List.of(fullSwim)), target -> true).isEmpty());
+            assertTrue(session.isPending(0));
+            assertEquals(List.of(swim), session.plan(session.matchAll(List.of(swim)), target -> true).get(0));
+        }
+    }
+
+    @Test
+    void concurrent_plansAllTargetsAndSessionsAreIndependent() {
+        PollingSession first = new PollingSession(1L, 10L, TARGETS, true);
+        PollingSession second = new PollingSession(2L, 20L, TARGETS.subList(1, 2), true);
+        Event swim = event("1", "Плавание", true);
+        Event tennis = event("2", "Теннис", true);
+        List<Event> snapshot = List.of(swim, tennis);
+
+        assertEquals(Map.of(0, List.of(swim), 1, List.of(tennis)), first.plan(first.matchAll(snapshot)));
+
+        first.targetDone(1, tennis, "booked");
+        assertEquals(Map.of(0, List.of(swim)), first.plan(first.matchAll(snapshot)));
+        assertEquals(Map.of(0, List.of(tennis)), second.plan(second.matchAll(snapshot)));
+    }
+
+    @Test
+    void concurrent_deferredTargetGetsSlotsTheHigherTargetDidNotBook() {
+        Event wednesdaySwim = event("1", "Плавание", "2026-03-18T10:00:00Z");
+        Event thursdaySwim = event("2", "Плавание", "2026-03-19T10:00:00Z");
+        Event tennis = event("3", "Теннис", "2026-03-18T10:30:00Z"); // same hour as Wednesday swimming
+        List<Event> snapshot = List.of(wednesdaySwim, thursdaySwim, tennis);
+
+        PollingSession session = new PollingSession(1L, 10L, TARGETS, true);
+        assertEquals(Map.of(0, List.of(wednesdaySwim, thursdaySwim)), session.plan(session.matchAll(snapshot)));
+        session.targetDone(0, thursdaySwim, "booked");
+        assertEquals(Map.of(1, List.of(tennis)), session.planDeferred());
+        assertEquals(Map.of(), session.planDeferred());
+
+        PollingSession sameHour = new PollingSession(2L, 20L, TARGETS, true);
+        sameHour.plan(sameHour.matchAll(snapshot));
+        sameHour.targetDone(0, wednesdaySwim, "booked");
+        assertEquals(Map.of(), sameHour.planDeferred());
+    }
+
+    private static Event event(String id, String title, String date) {
+        Event event = event(id, title, true);
+        event.setDatesOf(List.of(date));
+        return event;
+    }
+
+    private static Event event(String id, String title, boolean haveFreeSeats) {
+        Event event = new Event();
+        event.setId(id);
+        event.setTitle(title);
+        event.setHaveFreeSeats(haveFreeSeats);
+        return event;
+    }
+}
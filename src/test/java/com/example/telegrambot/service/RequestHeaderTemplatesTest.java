@@ -0,0 +1,39 @@
+package com.example.telegrambot.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestHeaderTemplatesTest {
+
+    private static final String REFERER = "https://events.yandex-team.ru/?city=1&eventId=42";
+
+    @Test
+    void get_reusesImmutableTemplate() {
+        RequestHeaderTemplates templates = new RequestHeaderTemplates();
+
+        HttpHeaders first = templates.get(RequestHeaderTemplates.Kind.POST_JSON, "cookie", REFERER, "agent");
+        HttpHeaders second = templates.get(RequestHeaderTemplates.Kind.POST_JSON, "cookie", REFERER, "agent");
+
+        assertSame(first, second);
+        assertThrows(UnsupportedOperationException.class, () -> first.set("Cookie", "other"));
+    }
+
+    @Test
+    void get_headersDependOnKind() {
+        RequestHeaderTemplates templates = new RequestHeaderTemplates();
+
+        HttpHeaders post = templates.get(RequestHeaderTemplates.Kind.POST_JSON, "cookie", REFERER, "agent");
+        HttpHeaders get = templates.get(RequestHeaderTemplates.Kind.GET, "cookie", REFERER, "agent");
+
+        assertEquals(MediaType.APPLICATION_JSON, post.getContentType());
+        assertEquals("https://events.yandex-team.ru", post.getOrigin());
+        assertNull(get.getContentType());
+        assertNull(get.getOrigin());
+        assertEquals("cookie", get.getFirst("Cookie"));
+        assertEquals(REFERER, get.getFirst("Referer"));
+        assertEquals("agent", get.getFirst(HttpHeaders.USER_AGENT));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.telegrambot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduledTickMonitorTest {
+
+    @Test
+    void fixedRate_latenessMeasuredAgainstSchedule() {
+        ScheduledTickMonitor monitor = new ScheduledTickMonitor();
+        AtomicLong clock = new AtomicLong(10_000);
+        ScheduledTickMonitor.Task task = monitor.new Task("test", 1000, ScheduledTickMonitor.Mode.FIXED_RATE, clock::get);
+
+        assertEquals(0, task.latenessOf(10_000));
+        assertEquals(0, task.latenessOf(11_000));
+        // Previous tick overran: this one starts 700 ms after its slot
+        assertEquals(700, task.latenessOf(12_700));
+        // Catch-up tick right after still counts from the original schedule
+        assertEquals(0, task.latenessOf(13_000));
+    }
+
+    @Test
+    void aligned_latenessIsOffsetFromPeriodBoundary() {
+        ScheduledTickMonitor monitor = new ScheduledTickMonitor();
+        ScheduledTickMonitor.Task task = monitor.new Task("cron", 60_000, ScheduledTickMonitor.Mode.ALIGNED, () -> 0);
+
+        assertEquals(0, task.latenessOf(120_000));
+        assertEquals(250, task.latenessOf(180_250));
+    }
+}
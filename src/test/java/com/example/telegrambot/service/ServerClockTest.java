@@ -0,0 +1,63 @@
+package com.example.telegrambot.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerClockTest {
+
+    @Test
+    void singleSampleBoundsOffsetBySecondAndRoundTrip() {
+        ServerClock clock = new ServerClock();
+        assertFalse(clock.isCalibrated());
+        assertEquals(0, clock.offsetMs());
+
+        // Date header 6000 generated between local 1000 and 1100: offset in [6000 - 1100, 7000 - 1000]
+        clock.record(1000, 1100, 6000);
+
+        assertTrue(clock.isCalibrated());
+        assertEquals(5450, clock.offsetMs());
+        assertEquals(550, clock.uncertaintyMs());
+    }
+
+    @Test
+    void samplesAtDifferentPhasesNarrowTheEstimate() {
+        ServerClock clock = new ServerClock();
+        long trueOffset = 5250;
+
+        sample(clock, 1000, 1100, trueOffset);
+        sample(clock, 1700, 1800, trueOffset);
+        sample(clock, 2000, 2100, trueOffset);
+        sample(clock, 1650, 1700, trueOffset);
+
+        assertTrue(clock.uncertaintyMs() <= 100, "uncertainty " + clock.uncertaintyMs());
+        assertTrue(Math.abs(clock.offsetMs() - trueOffset) <= clock.uncertaintyMs(), "offset " + clock.offsetMs());
+    }
+
+    @Test
+    void contradictingSampleReplacesStaleOnes() {
+        ServerClock clock = new ServerClock();
+        sample(clock, 1000, 1100, 5250);
+        sample(clock, 1650, 1700, 5250);
+
+        // Local clock stepped: the server is now only 2 s ahead
+        sample(clock, 10_000, 10_100, 2000);
+
+        assertTrue(Math.abs(clock.offsetMs() - 2000) <= clock.uncertaintyMs(), "offset " + clock.offsetMs());
+    }
+
+    @Test
+    void slowResponsesAreIgnored() {
+        ServerClock clock = new ServerClock();
+
+        clock.record(1000, 9000, 60_000);
+
+        assertFalse(clock.isCalibrated());
+    }
+
+    // Server generates the Date header in the middle of the round trip
+    private static void sample(ServerClock clock, long sentMs, long receivedMs, long offsetMs) {
+        long serverMs = (sentMs + receivedMs) / 2 + offsetMs;
+        clock.record(sentMs, receivedMs, serverMs - serverMs % 1000);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.telegrambot.service;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredTimeoutRequestFactoryTest {
+
+    private final TieredTimeoutRequestFactory factory = new TieredTimeoutRequestFactory(HttpClients.createDefault(), RequestConfig.DEFAULT, Map.of(
+        YandexApiRateLimiter.EndpointClass.LIST, 3000L,
+        YandexApiRateLimiter.EndpointClass.TIMESLOTS, 2000L,
+        YandexApiRateLimiter.EndpointClass.BOOK, 5000L,
+        YandexApiRateLimiter.EndpointClass.BOOKINGS, 20000L));
+
+    @Test
+    void timeoutMs_perEndpointClassAndCutByDeadline() {
+        assertEquals(3000, factory.timeoutMs(HttpMethod.GET, "/back/api/events/", null));
+        assertEquals(2000, factory.timeoutMs(HttpMethod.GET, "/back/events/1/timeslots/", null));
+        assertEquals(5000, factory.timeoutMs(HttpMethod.POST, "/back/events/booking/", null));
+        assertEquals(20000, factory.timeoutMs(HttpMethod.GET, "/back/events/bookings/", null));
+
+        long cut = factory.timeoutMs(HttpMethod.POST, "/back/events/booking/", Deadline.after(1000));
+        assertTrue(cut > 0 && cut <= 1000, "timeout " + cut);
+        assertEquals(2000, factory.timeoutMs(HttpMethod.GET, "/back/events/1/timeslots/", Deadline.after(60000)));
+        assertEquals(0, factory.timeoutMs(HttpMethod.GET, "/back/api/events/", Deadline.after(0)));
+    }
+
+    @Test
+    void createRequest_failsFastPastDeadline() throws Exception {
+        try (Deadline.Scope ignored = Deadline.after(0).enter()) {
+            assertThrows(SocketTimeoutException.class,
+                () -> factory.createRequest(URI.create("https://events.yandex-team.ru/back/events/booking/"), HttpMethod.POST));
+        }
+        assertNull(Deadline.current());
+        assertNotNull(factory.createRequest(URI.create("https://events.yandex-team.ru/back/api/events/"), HttpMethod.GET));
+    }
+}
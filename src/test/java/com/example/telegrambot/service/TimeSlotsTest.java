@@ -0,0 +1,40 @@
+package com.example.telegrambot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSlotsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void slotIds_readsAllResponseShapes() throws Exception {
+        assertEquals(List.of(1L, 2L), TimeSlots.slotIds(objectMapper.readTree("[{\"id\":1},{\"id\":2}]")));
+        assertEquals(List.of(3L), TimeSlots.slotIds(objectMapper.readTree("{\"result\":[{\"id\":3}]}")));
+        assertEquals(List.of(4L), TimeSlots.slotIds(objectMapper.readTree("{\"timeSlots\":[{\"id\":4}]}")));
+        assertEquals(List.of(5L), TimeSlots.slotIds(objectMapper.readTree("{\"result\":[],\"timeslots\":[{\"id\":5}]}")));
+    }
+
+    @Test
+    void bookingId_ofGivenSlotOrAny() throws Exception {
+        var slots = objectMapper.readTree(
+            "{\"result\":[{\"id\":1},{\"id\":2,\"booking\":{\"id\":20}},{\"id\":3,\"booking\":{\"id\":\"30\"}}]}");
+
+        assertEquals("30", TimeSlots.bookingId(slots, 3L));
+        assertEquals("20", TimeSlots.bookingId(slots, null));
+        assertNull(TimeSlots.bookingId(slots, 1L), "slot booked by someone else or not at all");
+        assertNull(TimeSlots.bookingId(slots, 4L));
+        assertEquals("50", TimeSlots.bookingId(objectMapper.readTree("[{\"id\":5,\"booking\":{\"id\":50}}]"), 5L));
+    }
+
+    @Test
+    void firstSlotId_nullWithoutSlots() throws Exception {
+        assertNull(TimeSlots.firstSlotId(null));
+        assertNull(TimeSlots.firstSlotId(objectMapper.readTree("{\"result\":[]}")));
+        assertEquals(7L, TimeSlots.firstSlotId(objectMapper.readTree("{\"result\":[{\"id\":7},{\"id\":8}]}")));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.telegrambot.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void tryAcquire_allowsBurstThenWaitsForRefill() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(2, 2, 0.1, clock::get);
+
+        assertEquals(0, bucket.tryAcquire(false));
+        assertEquals(0, bucket.tryAcquire(false));
+        long wait = bucket.tryAcquire(false);
+        assertEquals(SECOND / 2, wait);
+
+        clock.addAndGet(wait);
+        assertEquals(0, bucket.tryAcquire(false));
+    }
+
+    @Test
+    void onRateLimited_blocksUntilRetryAfterAndHalvesRate() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(4, 4, 0.1, clock::get);
+
+        bucket.onRateLimited(3 * SECOND);
+
+        assertEquals(3 * SECOND, bucket.tryAcquire(true));
+        assertEquals(2.0, bucket.currentRate());
+
+        clock.addAndGet(3 * SECOND + SECOND / 2);
+        assertEquals(0, bucket.tryAcquire(true));
+
+        for (int i = 0; i < 100; i++) {
+            bucket.onSuccess();
+        }
+        assertEquals(4.0, bucket.currentRate());
+    }
+
+    @Test
+    void tryAcquire_backgroundYieldsToWaitingPriorityCaller() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 10, 0.1, clock::get);
+
+        bucket.enterPriorityWait();
+        assertTrue(bucket.tryAcquire(false) > 0);
+        assertEquals(0, bucket.tryAcquire(true));
+        bucket.exitPriorityWait();
+
+        assertEquals(0, bucket.tryAcquire(false));
+    }
+
+    @Test
+    void rateLimiter_classifiesEndpointsAndParsesRetryAfter() {
+        assertEquals(YandexApiRateLimiter.EndpointClass.BOOK,
+            YandexApiRateLimiter.classify(HttpMethod.POST, "/back/events/booking/"));
+        assertEquals(YandexApiRateLimiter.EndpointClass.BOOK,
+            YandexApiRateLimiter.classify(HttpMethod.DELETE, "/back/events/booking/123"));
+        assertEquals(YandexApiRateLimiter.EndpointClass.BOOKINGS,
+            YandexApiRateLimiter.classify(HttpMethod.GET, "/back/events/bookings/"));
+        assertEquals(YandexApiRateLimiter.EndpointClass.TIMESLOTS,
+            YandexApiRateLimiter.classify(HttpMethod.GET, "/back/events/42/timeslots"));
+        assertEquals(YandexApiRateLimiter.EndpointClass.LIST,
+            YandexApiRateLimiter.classify(HttpMethod.GET, "/back/events/"));
+
+        assertEquals(2000, YandexApiRateLimiter.parseRetryAfterMs("2", 500));
+        assertEquals(500, YandexApiRateLimiter.parseRetryAfterMs(null, 500));
+        assertEquals(500, YandexApiRateLimiter.parseRetryAfterMs("soon", 500));
+        assertEquals(0, YandexApiRateLimiter.parseRetryAfterMs("Wed, 21 Oct 2015 07:28:00 GMT", 500));
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.telegrambot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserBookingsCacheTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Test
+    void get_loadsOnceAndServesFromMemory() {
+        UserBookingsCache cache = new UserBookingsCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("cookie", 60_000, cookie -> load(loads, Map.of("1", "100")), DIRECT);
+        Map<String, String> bookings = cache.get("cookie", 60_000, cookie -> load(loads, Map.of()), DIRECT);
+
+        assertEquals(1, loads.get());
+        assertEquals(Map.of("1", "100"), bookings);
+        assertEquals("100", cache.getBookingId("cookie", "1"));
+    }
+
+    @Test
+    void bookAndUnbook_updateCacheWithoutReload() {
+        UserBookingsCache cache = new UserBookingsCache();
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("cookie", 60_000, cookie -> load(loads, Map.of()), DIRECT);
+
+        cache.recordBooked("cookie", "2", null);
+        assertTrue(cache.get("cookie", 60_000, cookie -> load(loads, Map.of()), DIRECT).containsKey("2"));
+        assertNull(cache.getBookingId("cookie", "2"));
+
+        cache.recordUnbooked("cookie", "2");
+        assertFalse(cache.get("cookie", 60_000, cookie -> load(loads, Map.of()), DIRECT).containsKey("2"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void refresh_startedBeforeLocalBookingDoesNotOverwriteIt() {
+        UserBookingsCache cache = new UserBookingsCache();
+        cache.get("cookie", 0, cookie -> Map.of(), DIRECT);
+
+        // The stale entry triggers a refresh; the booking is recorded while /bookings/ is "in flight"
+        cache.get("cookie", 0, cookie -> {
+            cache.recordBooked("cookie", "3", "300");
+            return Map.of();
+        }, DIRECT);
+
+        assertEquals("300", cache.getBookingId("cookie", "3"));
+    }
+
+    @Test
+    void get_failedLoadKeepsPreviousBookings() {
+        UserBookingsCache cache = new UserBookingsCache();
+        cache.get("cookie", 0, cookie -> Map.of("1", "100"), DIRECT);
+
+        Map<String, String> bookings = cache.get("cookie", 0, cookie -> null, DIRECT);
+
+        assertEquals(Map.of("1", "100"), bookings);
+        assertTrue(new UserBookingsCache().get("other", 0, cookie -> null, DIRECT).isEmpty());
+    }
+
+    @Test
+    void get_failedFirstLoadIsNotRetriedRightAway() throws Exception {
+        UserBookingsCache cache = new UserBookingsCache(UserBookingsCache.RETENTION_MS, 50);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertTrue(cache.get("cookie", 60_000, cookie -> load(loads, null), DIRECT).isEmpty());
+        assertTrue(cache.get("cookie", 60_000, cookie -> load(loads, Map.of("1", "100")), DIRECT).isEmpty());
+        assertEquals(1, loads.get());
+
+        Thread.sleep(100);
+        assertEquals(Map.of("1", "100"), cache.get("cookie", 60_000, cookie -> load(loads, Map.of("1", "100")), DIRECT));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_concurrentFirstLookupsShareOneLoad() throws Exception {
+        UserBookingsCache cache = new UserBookingsCache();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Map<String, String>> first = CompletableFuture.supplyAsync(() ->
+            cache.get("cookie", 60_000, cookie -> {
+                loading.countDown();
+                await(release);
+                return load(loads, Map.of("1", "100"));
+            }, DIRECT));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<Map<String, String>>> waiters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            waiters.add(CompletableFuture.supplyAsync(() ->
+                cache.get("cookie", 60_000, cookie -> load(loads, Map.of()), DIRECT)));
+        }
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals(Map.of("1", "100"), first.get(5, TimeUnit.SECONDS));
+        for (CompletableFuture<Map<String, String>> waiter : waiters) {
+            assertEquals(Map.of("1", "100"), waiter.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void refresh_bypassesFreshEntryAndReportsFailure() {
+        UserBookingsCache cache = new UserBookingsCache();
+        cache.get("cookie", Long.MAX_VALUE, cookie -> Map.of(), DIRECT);
+
+        assertEquals(Map.of("1", "100"), cache.refresh("cookie", cookie -> Map.of("1", "100")));
+        assertEquals(Map.of("1", "100"), cache.get("cookie", Long.MAX_VALUE, cookie -> Map.of(), DIRECT));
+
+        assertNull(cache.refresh("cookie", cookie -> null));
+        assertEquals(Map.of("1", "100"), cache.get("cookie", Long.MAX_VALUE, cookie -> Map.of(), DIRECT));
+    }
+
+    @Test
+    void recordBooked_withoutLoadedListDoesNotHideOtherBookings() {
+        UserBookingsCache cache = new UserBookingsCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.recordBooked("cookie", "2", "200");
+        Map<String, String> bookings = cache.get("cookie", 60_000, cookie -> load(loads, Map.of("1", "100", "2", "200")), DIRECT);
+
+        assertEquals(1, loads.get(), "the partial entry is not served as the full list");
+        assertEquals(Map.of("1", "100", "2", "200"), bookings);
+    }
+
+    @Test
+    void recordBooked_duringFirstLoadIsKept() {
+        UserBookingsCache cache = new UserBookingsCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        // /bookings/ was requested before the booking and answers without it
+        cache.get("cookie", 60_000, cookie -> {
+            cache.recordBooked("cookie", "2", "200");
+            return load(loads, Map.of("1", "100"));
+        }, DIRECT);
+
+        assertEquals("200", cache.getBookingId("cookie", "2"));
+        assertEquals(Map.of("1", "100", "2", "200"),
+            cache.get("cookie", 60_000, cookie -> load(loads, Map.of("1", "100", "2", "200")), DIRECT));
+        assertEquals(2, loads.get(), "the list is loaded again instead of trusting the local booking alone");
+    }
+
+    @Test
+    void load_evictsEntriesOfUnusedCookies() throws Exception {
+        UserBookingsCache cache = new UserBookingsCache(50);
+        cache.get("old-cookie", 60_000, cookie -> Map.of("1", "100"), DIRECT);
+        Thread.sleep(100);
+
+        cache.get("new-cookie", 60_000, cookie -> Map.of("1", "100"), DIRECT);
+
+        assertEquals(1, cache.size());
+        assertNull(cache.getBookingId("old-cookie", "1"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> load(AtomicInteger loads, Map<String, String> bookings) {
+        loads.incrementAndGet();
+        return bookings;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.dto.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaitlistAvailabilityTest {
+
+    private static final EventsSnapshotCache.Key KEY = EventsSnapshotCache.Key.of(1, List.of(3));
+
+    private final EventChangeFeed feed = new EventChangeFeed();
+    private final WaitlistAvailability availability = new WaitlistAvailability(60_000, feed::since);
+
+    @Test
+    void shouldProbe_onlyWhenEventOpensOrSeatsAreReleased() {
+        availability.retainAll(Set.of("1"));
+
+        assertFalse(check(false, 0, 0));
+        assertFalse(check(false, 0, 1_000));
+        assertTrue(check(true, 1, 2_000), "opened");
+        assertFalse(check(true, 1, 3_000));
+        assertTrue(check(true, 2, 4_000), "seat released");
+        assertFalse(check(true, 1, 5_000));
+        assertTrue(check(true, 1, 64_000), "re-probe interval");
+        assertFalse(check(false, 0, 65_000));
+        assertTrue(check(true, 1, 66_000), "opened again");
+    }
+
+    @Test
+    void shouldProbe_seesChangesMadeBetweenChecks() {
+        availability.retainAll(Set.of("1"));
+        assertTrue(check(true, 1, 0), "never probed");
+
+        // Closed and reopened by snapshots the waitlist did not check
+        feed.record(KEY, List.of(event(false, 0)));
+        feed.record(KEY, List.of(event(true, 1)));
+        assertTrue(availability.shouldProbe(KEY, event(true, 1), 1_000));
+        assertFalse(availability.shouldProbe(KEY, event(true, 1), 2_000));
+    }
+
+    @Test
+    void requestProbe_isConsumedByNextAvailableCheck() {
+        availability.retainAll(Set.of("1"));
+        assertTrue(check(true, 1, 0));
+
+        availability.requestProbe("1");
+        assertTrue(check(true, 1, 1_000));
+        assertFalse(check(true, 1, 2_000));
+
+        availability.retainAll(Set.of());
+        availability.retainAll(Set.of("1"));
+        assertTrue(check(true, 1, 3_000), "forgotten event starts over");
+    }
+
+    /**
+     * Loads a snapshot with event 1 in the given state and checks it.
+     */
+    private boolean check(boolean haveFreeSeats, int freeSeats, long nowMs) {
+        Event event = event(haveFreeSeats, freeSeats);
+        feed.record(KEY, List.of(event));
+        return availability.shouldProbe(KEY, event, nowMs);
+    }
+
+    private static Event event(boolean haveFreeSeats, int freeSeats) {
+        Event event = new Event();
+        event.setId("1");
+        event.setHaveFreeSeats(haveFreeSeats);
+        event.setFreeSeats(freeSeats);
+        return event;
+    }
+}
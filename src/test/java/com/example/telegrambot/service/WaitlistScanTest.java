@@ -0,0 +1,59 @@
+package com.example.telegrambot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaitlistScanTest {
+
+    private static final List<String> EVENTS = IntStream.range(0, 20).mapToObj(i -> "event-" + i).toList();
+
+    @Test
+    void run_checksEverythingWithinParallelismCap() {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        try {
+            WaitlistScan.Result result = WaitlistScan.run(EVENTS, eventId -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                assertNotNull(Deadline.current());
+                sleep(5);
+                inFlight.decrementAndGet();
+            }, 3, Deadline.after(10_000), executor);
+
+            assertEquals(EVENTS.size(), result.checked());
+            assertTrue(result.unchecked().isEmpty());
+            assertTrue(maxInFlight.get() <= 3, "max in flight " + maxInFlight.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void run_stopsStartingChecksAtDeadline() {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            WaitlistScan.Result result = WaitlistScan.run(EVENTS, eventId -> sleep(30), 2, Deadline.after(50), executor);
+
+            assertTrue(result.checked() < EVENTS.size());
+            assertEquals(EVENTS.size() - result.checked(), result.unchecked().size());
+            assertEquals(EVENTS.get(EVENTS.size() - 1), result.unchecked().get(result.unchecked().size() - 1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.repository.WaitlistRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "events.waitlist.max-size=25")
+@Import(WaitlistService.class)
+class WaitlistServiceTest {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Test
+    void removeFromWaitlist_shiftsEveryoneBehindWithoutRenumbering() {
+        for (long user = 1; user <= 4; user++) {
+            assertEquals(user - 1, waitlistService.addToWaitlist("e", user, user * 10).getPeopleAhead());
+        }
+
+        WaitlistService.RemoveFromWaitlistResult result = waitlistService.removeFromWaitlist("e", 2L);
+
+        assertTrue(result.isSuccess());
+        assertEquals(List.of("3:3->2", "4:4->3"), result.getPositionUpdates().stream()
+            .map(update -> update.getUserId() + ":" + update.getOldPosition() + "->" + update.getNewPosition())
+            .toList());
+        assertEquals(List.of(1, 3, 4), waitlistRepository.findByEventIdOrderByPositionAscIdAsc("e").stream()
+            .map(entry -> entry.getPosition()).toList(), "stored positions keep their gap");
+        assertEquals(2, waitlistService.getPositionInWaitlist("e", 3L));
+        assertEquals(-1, waitlistService.getPositionInWaitlist("e", 2L));
+
+        // A new entry goes after everyone, even after the gap
+        assertEquals(3, waitlistService.addToWaitlist("e", 5L, 50L).getPeopleAhead());
+        assertEquals(4, waitlistService.getPositionInWaitlist("e", 5L));
+        assertEquals(List.of(1L, 3L, 4L, 5L), waitlistService.getAllUsersInWaitlist("e").stream()
+            .map(entry -> entry.getUserId()).toList());
+    }
+
+    @Test
+    void addToWaitlist_honoursConfiguredCapacityAndServesHeadByIndex() {
+        for (long user = 1; user <= 25; user++) {
+            assertTrue(waitlistService.addToWaitlist("big", user, user * 10).isSuccess());
+        }
+
+        assertTrue(waitlistService.isWaitlistFull("big"));
+        assertFalse(waitlistService.addToWaitlist("big", 26L, 260L).isSuccess());
+
+        waitlistService.removeFromWaitlist("big", 1L);
+        assertEquals(List.of(2L, 3L, 4L), waitlistService.getWaitlistHead("big", 3).stream()
+            .map(entry -> entry.getUserId()).toList());
+        assertEquals(7L, waitlistService.findEntryByChatId("big", 70L).orElseThrow().getUserId());
+        assertTrue(waitlistService.findEntryByChatId("big", 10L).isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.telegrambot.service;
+
+import com.example.telegrambot.exception.RateLimitException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YandexApiRateLimiterTest {
+
+    @Test
+    void classify_mapsPathsToEndpointClasses() {
+        assertEquals(YandexApiRateLimiter.EndpointClass.LIST,
+            YandexApiRateLimiter.classify(HttpMethod.GET, "/back/events/"));
+        assertEquals(YandexApiRateLimiter.EndpointClass.LIST,
+            YandexApiRateLimiter.classify(HttpMethod.GET, "/back/events/cities/"));
+        assertEquals(YandexApiRateLimiter.EndpointClass.TIMESLOTS,
+            YandexApiRateLimiter.classify(HttpMethod.GET, "/back/events/42/timeslots"));
+        assertEquals(YandexApiRateLimiter.EndpointClass.BOOKINGS,
+            YandexApiRateLimiter.classify(HttpMethod.GET, "/back/events/bookings/"));
+        assertEquals(YandexApiRateLimiter.EndpointClass.BOOK,
+            YandexApiRateLimiter.classify(HttpMethod.POST, "/back/events/booking/"));
+        assertEquals(YandexApiRateLimiter.EndpointClass.BOOK,
+            YandexApiRateLimiter.classify(HttpMethod.DELETE, "/back/events/booking/7/"));
+        assertEquals(YandexApiRateLimiter.EndpointClass.LIST, YandexApiRateLimiter.classify(HttpMethod.GET, null));
+    }
+
+    @Test
+    void parseRetryAfterMs_acceptsSecondsAndHttpDates() {
+        assertEquals(3000, YandexApiRateLimiter.parseRetryAfterMs("3", 500));
+        assertEquals(0, YandexApiRateLimiter.parseRetryAfterMs(" 0 ", 500));
+        assertEquals(0, YandexApiRateLimiter.parseRetryAfterMs("-5", 500), "negative delay is clamped");
+
+        String inTenSeconds = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(10));
+        long fromDate = YandexApiRateLimiter.parseRetryAfterMs(inTenSeconds, 500);
+        assertTrue(fromDate > 8_000 && fromDate <= 10_000, "HTTP date in 10 s, got " + fromDate);
+
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+        assertEquals(0, YandexApiRateLimiter.parseRetryAfterMs(past, 500));
+    }
+
+    @Test
+    void parseRetryAfterMs_fallsBackToDefault() {
+        assertEquals(500, YandexApiRateLimiter.parseRetryAfterMs(null, 500));
+        assertEquals(500, YandexApiRateLimiter.parseRetryAfterMs("  ", 500));
+        assertEquals(500, YandexApiRateLimiter.parseRetryAfterMs("soon", 500));
+    }
+
+    @Test
+    void acquire_refusesLocallyWhenNoTokenBeforeDeadline() {
+        YandexApiRateLimiter limiter = new YandexApiRateLimiter();
+        limiter.init();
+        // Burst of the bookings bucket is its rate (2 rps)
+        limiter.acquire(YandexApiRateLimiter.EndpointClass.BOOKINGS);
+        limiter.acquire(YandexApiRateLimiter.EndpointClass.BOOKINGS);
+
+        try (Deadline.Scope ignored = Deadline.after(10).enter()) {
+            RateLimitException e = assertThrows(RateLimitException.class,
+                () -> limiter.acquire(YandexApiRateLimiter.EndpointClass.BOOKINGS));
+            assertTrue(e.isLocalLimit());
+        }
+    }
+
+    @Test
+    void rateLimited_waitlistProbeDoesNotBlockBookings() throws Exception {
+        YandexApiRateLimiter limiter = new YandexApiRateLimiter();
+        limiter.init();
+        MockClientHttpResponse tooManyRequests = new MockClientHttpResponse(new byte[0], HttpStatus.TOO_MANY_REQUESTS);
+        tooManyRequests.getHeaders().set(HttpHeaders.RETRY_AFTER, "60");
+
+        limiter.intercept(new MockClientHttpRequest(HttpMethod.GET, URI.create("https://events.yandex-team.ru/back/events/1/timeslots/")),
+            new byte[0], (request, body) -> tooManyRequests);
+
+        try (Deadline.Scope ignored = Deadline.after(50).enter()) {
+            assertDoesNotThrow(() -> limiter.acquire(YandexApiRateLimiter.EndpointClass.BOOK));
+            assertThrows(RateLimitException.class, () -> limiter.acquire(YandexApiRateLimiter.EndpointClass.TIMESLOTS));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void acquire_givesEndpointTokenBackWhenGlobalBucketRefuses() {
+        YandexApiRateLimiter limiter = new YandexApiRateLimiter();
+        ReflectionTestUtils.setField(limiter, "globalRps", 1.0);
+        limiter.init();
+        limiter.acquire(YandexApiRateLimiter.EndpointClass.LIST);
+
+        try (Deadline.Scope ignored = Deadline.after(10).enter()) {
+            assertThrows(RateLimitException.class, () -> limiter.acquire(YandexApiRateLimiter.EndpointClass.BOOKINGS));
+        }
+
+        TokenBucket bookings = ((Map<YandexApiRateLimiter.EndpointClass, TokenBucket>)
+            ReflectionTestUtils.getField(limiter, "buckets")).get(YandexApiRateLimiter.EndpointClass.BOOKINGS);
+        // Burst of the bookings bucket is 2: both tokens are still there
+        assertEquals(0, bookings.tryAcquire(false));
+        assertEquals(0, bookings.tryAcquire(false));
+    }
+}